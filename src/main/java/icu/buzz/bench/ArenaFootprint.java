@@ -0,0 +1,79 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.Parser;
+import icu.buzz.lox.Resolver;
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.arena.ArenaBuilder;
+import icu.buzz.lox.arena.ArenaResolver;
+import icu.buzz.lox.arena.AstArena;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.token.Token;
+
+import java.util.List;
+
+/**
+ * retained heap of a resolved program, object tree (Stmt with inline depths) against AstArena
+ * usage: java icu.buzz.bench.ArenaFootprint [number of generated functions]
+ */
+public class ArenaFootprint {
+    public static void main(String[] args) {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = generate(functions);
+        System.out.printf("source: %d lines, %.1f MB%n", source.lines().count(), source.length() / 1e6);
+
+        long base = usedHeap();
+        List<Token> tokens = new Scanner(source).scanTokens();
+        List<Stmt> statements = new Parser(tokens).parse();
+        Interpreter interpreter = new Interpreter(statements);
+        new Resolver().resolveSource(statements);
+        tokens = null;
+        long tree = usedHeap() - base;
+        System.out.printf("object tree: %.1f MB%n", tree / 1e6);
+        statements = null;
+        interpreter = null;
+
+        base = usedHeap();
+        tokens = new Scanner(source).scanTokens();
+        AstArena arena = new AstArena();
+        ArenaBuilder builder = new ArenaBuilder(arena);
+        Parser parser = new Parser(tokens);
+        for (Stmt stmt = parser.next(); stmt != null; stmt = parser.next()) builder.add(stmt);
+        arena.trim();
+        new ArenaResolver(arena).resolveSource();
+        tokens = null;
+        parser = null;
+        builder = null;
+        long flat = usedHeap() - base;
+        System.out.printf("arena (%d nodes): %.1f MB%n", arena.nodeCount(), flat / 1e6);
+    }
+
+    /**
+     * generate a script with @param: functions functions, a class and some top-level statements per function
+     */
+    static String generate(int functions) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            builder.append("fun f").append(i).append("(a, b) {\n")
+                    .append("    var sum = 0;\n")
+                    .append("    for (var i = 0; i < a; i = i + 1) {\n")
+                    .append("        if (i > b or sum == nil) sum = sum + i * ").append(i).append(";\n")
+                    .append("        else sum = sum - \"x\".length;\n")
+                    .append("    }\n")
+                    .append("    return sum;\n")
+                    .append("}\n")
+                    .append("class C").append(i).append(" {\n")
+                    .append("    init(v) { this.v = v; }\n")
+                    .append("    get() { return this.v + f").append(i).append("(1, 2); }\n")
+                    .append("}\n")
+                    .append("var v").append(i).append(" = C").append(i).append("(").append(i).append(").get();\n");
+        }
+        return builder.toString();
+    }
+
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+
+import java.util.Map;
+
+/**
+ * a script fills n numbers and sums them, kept in a native array (push, a[i]) against a linked list of instances
+ * reports nanoseconds per element for fill and sum, and heap bytes per element retained by the filled structure
+ * usage: java icu.buzz.bench.ArrayBenchmark [elements]
+ */
+public class ArrayBenchmark {
+    private static final String ARRAY = """
+            var start = clock();
+            var data = array(0);
+            for (var i = 0; i < n; i = i + 1) push(data, i * 0.5);
+            var filled = clock();
+            var sum = 0;
+            for (var i = 0; i < length(data); i = i + 1) sum = sum + data[i];
+            var end = clock();
+            """;
+
+    private static final String LIST = """
+            class Node { init(value, next) { this.value = value; this.next = next; } }
+            var start = clock();
+            var data = nil;
+            for (var i = 0; i < n; i = i + 1) data = Node(i * 0.5, data);
+            var filled = clock();
+            var sum = 0;
+            for (var node = data; node != nil; node = node.next) sum = sum + node.value;
+            var end = clock();
+            """;
+
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        LoxScript array = LoxEngine.compile(ARRAY);
+        LoxScript list = LoxEngine.compile(LIST);
+        for (int round = 0; round < 3; round++) {
+            report("array", array, elements);
+            report("linked list", list, elements);
+        }
+    }
+
+    private static void report(String name, LoxScript script, int elements) {
+        long before = used();
+        Map<String, Object> globals = script.execute(Map.of("n", elements));
+        long retained = used() - before;
+        double expected = 0.25 * elements * (elements - 1.0);
+        if (!globals.get("sum").equals(expected)) throw new IllegalStateException("unexpected sum " + globals.get("sum"));
+        double start = (double) globals.get("start"), filled = (double) globals.get("filled"), end = (double) globals.get("end");
+        System.out.printf("%s: fill %.0f ns, sum %.0f ns, %.1f bytes per element%n", name,
+                (filled - start) * 1e9 / elements, (end - filled) * 1e9 / elements, (double) retained / elements);
+        // globals hold the structure until it is measured
+        if (globals.isEmpty()) System.out.println(globals);
+    }
+
+    private static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
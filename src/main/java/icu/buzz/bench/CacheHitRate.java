@@ -0,0 +1,71 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.collection.LoxCache;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * hit rate of the native cache (W-TinyLFU) against a plain LRU of the same size, on a zipf distributed trace of keys
+ * with bursts of one-off keys (a scan) mixed in, and nanoseconds per cache read with its put on a miss
+ * usage: java icu.buzz.bench.CacheHitRate [keys] [accesses]
+ */
+public class CacheHitRate {
+    public static void main(String[] args) {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int accesses = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        Object[] trace = trace(keys, accesses, new Random(42));
+        for (int size : new int[]{keys / 1000, keys / 100, keys / 10}) {
+            for (int round = 0; round < 2; round++) {
+                LoxCache cache = new LoxCache(size, 0);
+                long start = System.nanoTime();
+                for (Object key : trace) if (cache.get(key) == LoxCache.MISSING) cache.put(key, key);
+                double nanos = (double) (System.nanoTime() - start) / trace.length;
+                double lru = lru(size, trace);
+                System.out.printf("%d entries: cache hit rate %.1f%% (%.0f ns an access), lru hit rate %.1f%%%n",
+                        size, 100 * (double) cache.stats().get("hitRate"), nanos, 100 * lru);
+            }
+        }
+    }
+
+    /**
+     * zipf(0.9) over @param: keys keys, one access in ten belongs to a scan of keys never seen again
+     */
+    private static Object[] trace(int keys, int accesses, Random random) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += 1 / Math.pow(i + 1, 0.9);
+            cumulative[i] = sum;
+        }
+        Object[] trace = new Object[accesses];
+        int scanned = 0;
+        for (int i = 0; i < accesses; ) {
+            // a scan of 1000 accesses starts after 9000 other accesses on average
+            if (random.nextInt(9000) == 0) {
+                for (int j = 0; j < 1000 && i < accesses; j++) trace[i++] = "scan" + scanned++;
+                continue;
+            }
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            trace[i++] = (double) (index < 0 ? -index - 1 : index);
+        }
+        return trace;
+    }
+
+    private static double lru(int size, Object[] trace) {
+        Map<Object, Object> lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
+                return size() > size;
+            }
+        };
+        int hits = 0;
+        for (Object key : trace) {
+            if (lru.get(key) != null) hits++;
+            else lru.put(key, key);
+        }
+        return (double) hits / trace.length;
+    }
+}
@@ -0,0 +1,46 @@
+package icu.buzz.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * time until the library script of LazyStartup prints its result: without AST cache, with it (--cache):
+ * first run with an empty cache directory (scan, parse, resolve and store), and later runs loading the cached program
+ * each run is a fresh jvm
+ * usage: java icu.buzz.bench.CachedStartup [number of library functions...]
+ */
+public class CachedStartup {
+    private static final int HITS = 3;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] sizes = args.length > 0 ? args : new String[]{"1000", "10000", "100000"};
+        for (String size : sizes) {
+            int functions = Integer.parseInt(size);
+            Path path = Files.createTempFile("lox-library", ".lox");
+            Path cache = Files.createTempDirectory("lox-cache");
+            try {
+                LazyStartup.library(path, functions);
+                List<String> properties = List.of("-Dlox.cache.dir=" + cache);
+                long none = LazyStartup.run(path, properties, null);
+                long miss = LazyStartup.run(path, properties, "--cache");
+                long hit = Long.MAX_VALUE;
+                for (int i = 0; i < HITS; i++) hit = Math.min(hit, LazyStartup.run(path, properties, "--cache"));
+                long cached;
+                try (Stream<Path> files = Files.list(cache)) {
+                    cached = files.mapToLong(file -> file.toFile().length()).sum();
+                }
+                System.out.printf("%d functions and classes, %.1f MB (cache %.1f MB): no cache %.0f ms, miss %.0f ms, hit %.0f ms%n",
+                        functions, Files.size(path) / 1e6, cached / 1e6, none / 1e6, miss / 1e6, hit / 1e6);
+            } finally {
+                Files.deleteIfExists(path);
+                try (Stream<Path> files = Files.walk(cache)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+}
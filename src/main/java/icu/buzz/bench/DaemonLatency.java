@@ -0,0 +1,84 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Lox;
+import icu.buzz.lox.daemon.LoxClient;
+import icu.buzz.lox.daemon.LoxDaemon;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * wall time of one invocation of a small script, as cron or a shell pipeline runs it:
+ * command line Lox (a fresh jvm runs the interpreter cold) against LoxClient talking to a warmed-up LoxDaemon
+ * usage: java icu.buzz.bench.DaemonLatency [invocations]
+ */
+public class DaemonLatency {
+    private static final String SCRIPT = """
+            class Point {
+                init(x, y) { this.x = x; this.y = y; }
+                add(other) { return Point(this.x + other.x, this.y + other.y); }
+            }
+            fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+            var p = Point(0, 0);
+            for (var i = 0; i < 1000; i = i + 1) p = p.add(Point(i, 1));
+            print p.x + p.y;
+            print fib(20);
+            """;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int invocations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        Path directory = Files.createTempDirectory("lox-daemon");
+        Path script = directory.resolve("script.lox");
+        Path socket = directory.resolve("lox.sock");
+        Files.writeString(script, SCRIPT);
+        Process daemon = new ProcessBuilder(java(List.of(), LoxDaemon.class, socket.toString()))
+                .redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            // daemon warms up before it binds the socket
+            while (!Files.exists(socket)) Thread.sleep(50);
+            String expected = run(java(List.of(), Lox.class, script.toString()));
+            List<String> client = java(List.of("-XX:TieredStopAtLevel=1", "-Xshare:auto"), LoxClient.class, "--socket", socket.toString(), script.toString());
+            if (!run(client).equals(expected)) throw new IllegalStateException("daemon output differs from command line");
+            long cold = 0;
+            long warm = 0;
+            for (int i = 0; i < invocations; i++) {
+                long start = System.nanoTime();
+                run(java(List.of(), Lox.class, script.toString()));
+                cold += System.nanoTime() - start;
+                start = System.nanoTime();
+                run(client);
+                warm += System.nanoTime() - start;
+            }
+            System.out.printf("%d invocations: command line %.0f ms, daemon client %.0f ms per invocation%n",
+                    invocations, cold / 1e6 / invocations, warm / 1e6 / invocations);
+        } finally {
+            daemon.destroy();
+            daemon.waitFor();
+            Files.deleteIfExists(script);
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static List<String> java(List<String> options, Class<?> main, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(options);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(main.getName());
+        command.addAll(List.of(args));
+        return command;
+    }
+
+    private static String run(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        if (process.waitFor() != 0) throw new IllegalStateException(String.join(" ", command) + " failed: " + output);
+        return output;
+    }
+}
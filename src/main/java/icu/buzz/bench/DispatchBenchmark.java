@@ -0,0 +1,87 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.Parser;
+import icu.buzz.lox.Resolver;
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.SwitchInterpreter;
+import icu.buzz.lox.stmt.Stmt;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * compare visitor dispatch (Interpreter) with switch dispatch (SwitchInterpreter)
+ * each mode runs in a fresh jvm, otherwise type profiles of one mode pollute the other
+ * usage: java icu.buzz.bench.DispatchBenchmark [visitor | switch]
+ */
+public class DispatchBenchmark {
+    private static final int WARMUP = 10;
+    private static final int ROUNDS = 10;
+
+    private static final String FIB = """
+            fun fib(n) {
+                if (n < 2) return n;
+                return fib(n - 1) + fib(n - 2);
+            }
+            var rst = fib(25);
+            """;
+
+    private static final String LOOP = """
+            var sum = 0;
+            for (var i = 0; i < 1000000; i = i + 1) {
+                if (i > 10 and sum >= 0) sum = sum + i * 2 - i / 2;
+                else sum = sum - 1;
+            }
+            """;
+
+    private static final String METHOD = """
+            class Counter {
+                init() { this.count = 0; }
+                add(n) { this.count = this.count + n; return this; }
+            }
+            class Twice < Counter {
+                add(n) { return super.add(n * 2); }
+            }
+            var counter = Twice();
+            for (var i = 0; i < 200000; i = i + 1) counter.add(1);
+            """;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            fork("visitor");
+            fork("switch");
+            return;
+        }
+        String mode = args[0];
+        for (String[] workload : Arrays.asList(new String[]{"fib", FIB}, new String[]{"loop", LOOP}, new String[]{"method", METHOD})) {
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                long elapsed = run(mode, workload[1]);
+                if (i >= WARMUP) best = Math.min(best, elapsed);
+            }
+            System.out.printf("%-8s %-8s %8.2f ms%n", mode, workload[0], best / 1e6);
+        }
+    }
+
+    private static long run(String mode, String source) {
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        Interpreter interpreter = mode.equals("switch") ? new SwitchInterpreter(statements) : new Interpreter(statements);
+        new Resolver().resolveSource(statements);
+        long start = System.nanoTime();
+        interpreter.interpret();
+        return System.nanoTime() - start;
+    }
+
+    private static void fork(String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(DispatchBenchmark.class.getName());
+        command.add(mode);
+        new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+}
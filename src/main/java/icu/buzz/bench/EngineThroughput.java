@@ -0,0 +1,73 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * executions per second of an embedded script (a small class and a loop, its input is bound per execution),
+ * compiled once and shared by all threads against compiled again for every execution
+ * every execution checks its own result, so executions leaking state into each other would fail
+ * usage: java icu.buzz.bench.EngineThroughput [executions per thread] [threads...]
+ */
+public class EngineThroughput {
+    private static final String SCRIPT = """
+            class Account {
+                init(balance) { this.balance = balance; }
+                deposit(amount) { this.balance = this.balance + amount; return this; }
+            }
+            var account = Account(input);
+            for (var i = 0; i < 10; i = i + 1) account.deposit(i);
+            var result = account.balance;
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int executions = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        List<Integer> threads = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) threads.add(Integer.parseInt(args[i]));
+        if (threads.isEmpty()) threads = List.of(1, Runtime.getRuntime().availableProcessors());
+        LoxScript shared = LoxEngine.compile(SCRIPT);
+        for (int count : threads) {
+            // warm up both paths before measuring
+            run(shared, count, executions / 10);
+            run(null, count, executions / 10);
+            double compiled = run(shared, count, executions);
+            double recompiled = run(null, count, executions);
+            System.out.printf("%d threads: compiled once %.0f executions/s, compiled per execution %.0f executions/s%n",
+                    count, compiled, recompiled);
+        }
+    }
+
+    /**
+     * @param script shared script, null to compile for every execution
+     * @return executions per second over all threads
+     */
+    private static double run(LoxScript script, int threads, int executions) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int base = t * executions;
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < executions; i++) {
+                        LoxScript target = script != null ? script : LoxEngine.compile(SCRIPT);
+                        Object result = target.execute(Map.of("input", base + i)).get("result");
+                        if (!result.equals(base + i + 45.0)) throw new IllegalStateException("unexpected result " + result);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            return (double) threads * executions / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxExecutor;
+import icu.buzz.lox.LoxResult;
+import icu.buzz.lox.LoxScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * scripts per second when thousands of independent scripts are submitted at once to a LoxExecutor,
+ * on pools of 1, 2, 4 ... cores and on the standard executor (virtual threads when the runtime has them)
+ * each script is cpu bound (recursive fib of its own input) and prints its result, every result and output is checked
+ * usage: java icu.buzz.bench.ExecutorScaling [number of scripts]
+ */
+public class ExecutorScaling {
+    private static final String SCRIPT = """
+            fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+            var result = fib(n);
+            print result;
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int scripts = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        LoxScript script = LoxEngine.compile(SCRIPT);
+        // warm up
+        try (LoxExecutor executor = new LoxExecutor()) {
+            run(executor, script, scripts / 10);
+        }
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            try (LoxExecutor executor = new LoxExecutor(Executors.newFixedThreadPool(threads))) {
+                System.out.printf("%d threads: %.0f scripts/s%n", threads, run(executor, script, scripts));
+            }
+            if (threads == cores) break;
+        }
+        try (LoxExecutor executor = new LoxExecutor()) {
+            System.out.printf("standard executor (%s, %d cores): %.0f scripts/s%n",
+                    LoxExecutor.hasVirtualThreads() ? "virtual threads" : "platform thread pool", cores, run(executor, script, scripts));
+        }
+    }
+
+    private static double run(LoxExecutor executor, LoxScript script, int scripts) throws Exception {
+        List<Future<LoxResult>> results = new ArrayList<>(scripts);
+        long start = System.nanoTime();
+        for (int i = 0; i < scripts; i++) results.add(executor.submit(script, Map.of("n", 10 + i % 8)));
+        for (int i = 0; i < scripts; i++) {
+            LoxResult result = results.get(i).get();
+            double expected = fib(10 + i % 8);
+            if (!result.ok() || !result.globals().get("result").equals(expected) || !result.output().equals((long) expected + System.lineSeparator())) {
+                throw new IllegalStateException("script " + i + " went wrong: " + result);
+            }
+        }
+        return scripts / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static double fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+}
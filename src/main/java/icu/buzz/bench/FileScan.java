@@ -0,0 +1,126 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+import icu.buzz.lox.io.LoxFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * line throughput of file natives against wc -l: the wc -l process and a newline count over mapped regions in java
+ * (no line is decoded) set the bound, readLine in "r" and "m" modes from java adds decoding a String a line,
+ * lines(path, fn) and a readLine loop in a script add the interpreter
+ * usage: java icu.buzz.bench.FileScan [megabytes] [path], a file of log lines is written to path (or a temp file) first
+ */
+public class FileScan {
+    private static final String LINES = """
+            var count = 0;
+            fun onLine(line) { count = count + 1; }
+            lines(path, onLine);
+            """;
+    private static final String READ_LINE = """
+            var count = 0;
+            var file = open(path, "m");
+            while (readLine(file) != nil) count = count + 1;
+            close(file);
+            """;
+
+    public static void main(String[] args) throws Exception {
+        long megabytes = args.length > 0 ? Long.parseLong(args[0]) : 512;
+        Path path = args.length > 1 ? Path.of(args[1]) : Files.createTempFile("lox-scan", ".log");
+        try {
+            long bytes = write(path, megabytes << 20);
+            Map<String, Object> bindings = Map.of("path", path.toString());
+            LoxScript lines = LoxEngine.compile(LINES);
+            LoxScript readLine = LoxEngine.compile(READ_LINE);
+            for (int round = 0; round < 3; round++) {
+                report("wc -l", bytes, () -> wc(path));
+                report("java newline count", bytes, () -> newlines(path));
+                report("readLine \"r\" from java", bytes, () -> readLines(path, "r"));
+                report("readLine \"m\" from java", bytes, () -> readLines(path, "m"));
+                report("lines(path, fn) script", bytes, () -> (long) (double) (Double) lines.execute(bindings).get("count"));
+                report("readLine \"m\" script", bytes, () -> (long) (double) (Double) readLine.execute(bindings).get("count"));
+            }
+        } finally {
+            if (args.length < 2) Files.deleteIfExists(path);
+        }
+    }
+
+    private interface Scan {
+        /**
+         * @return number of lines, -1 if the scan can not run here
+         */
+        long lines() throws Exception;
+    }
+
+    private static void report(String name, long bytes, Scan scan) throws Exception {
+        long start = System.nanoTime();
+        long lines = scan.lines();
+        long nanos = System.nanoTime() - start;
+        if (lines < 0) {
+            System.out.printf("%-24s not available%n", name);
+            return;
+        }
+        System.out.printf("%-24s %8.0f MB/s %6.1f ns a line (%d lines)%n", name, (double) bytes / (1 << 20) / (nanos / 1e9), (double) nanos / lines, lines);
+    }
+
+    /**
+     * @return size of the file of log lines of about @param: size bytes written to @param: path
+     */
+    private static long write(Path path, long size) throws IOException {
+        Random random = new Random(42);
+        String[] methods = {"GET", "POST", "PUT"};
+        long written = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (long i = 0; written < size; i++) {
+                String line = String.format("2026-10-19T%02d:%02d:%02d %s /page/%d %d %d", i / 3600 % 24, i / 60 % 60, i % 60,
+                        methods[random.nextInt(methods.length)], random.nextInt(1000), 200 + random.nextInt(4) * 100, random.nextInt(100_000));
+                writer.write(line);
+                writer.write('\n');
+                written += line.length() + 1;
+            }
+        }
+        return Files.size(path);
+    }
+
+    private static long wc(Path path) throws IOException, InterruptedException {
+        Process process;
+        try {
+            process = new ProcessBuilder("wc", "-l", path.toString()).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            return -1;
+        }
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        if (process.waitFor() != 0) return -1;
+        return Long.parseLong(output.split("\\s+")[0]);
+    }
+
+    private static long newlines(Path path) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long start = 0; start < size; start += 1L << 30) {
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << 30, size - start));
+                for (int i = 0, limit = region.limit(); i < limit; i++) if (region.get(i) == '\n') count++;
+            }
+        }
+        return count;
+    }
+
+    private static long readLines(Path path, String mode) {
+        LoxFile file = LoxFile.open(path.toString(), mode);
+        long count = 0;
+        while (file.readLine() != null) count++;
+        file.close();
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Parser;
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.token.TokenBuffer;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * bytes allocated by scanning and parsing a large generated script
+ * token list (every token built) against token buffer (tokens built on demand)
+ * usage: java icu.buzz.bench.FrontEndAllocation [number of generated functions]
+ */
+public class FrontEndAllocation {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = ArenaFootprint.generate(functions);
+        System.out.printf("source: %.1f MB%n", source.length() / 1e6);
+        for (int round = 0; round < 3; round++) {
+            long before = allocated();
+            new Scanner(source).scanTokens();
+            long listScan = allocated() - before;
+
+            before = allocated();
+            new Scanner(source).scan();
+            long bufferScan = allocated() - before;
+
+            before = allocated();
+            new Parser(new Scanner(source).scanTokens()).parse();
+            long listParse = allocated() - before;
+
+            before = allocated();
+            TokenBuffer tokens = new Scanner(source).scan();
+            new Parser(tokens).parse();
+            long bufferParse = allocated() - before;
+
+            System.out.printf("scan: list %.1f MB, buffer %.1f MB | scan + parse: list %.1f MB, buffer %.1f MB%n",
+                    listScan / 1e6, bufferScan / 1e6, listParse / 1e6, bufferParse / 1e6);
+        }
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,74 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * time until a script that loads a large library and calls two of its functions prints its result,
+ * eager parsing against lazy function bodies (--lazy), each run is a fresh jvm without AST cache
+ * usage: java icu.buzz.bench.LazyStartup [number of library functions...]
+ */
+public class LazyStartup {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] sizes = args.length > 0 ? args : new String[]{"1000", "10000", "100000"};
+        for (String size : sizes) {
+            int functions = Integer.parseInt(size);
+            Path path = Files.createTempFile("lox-library", ".lox");
+            try {
+                library(path, functions);
+                System.out.printf("%d functions and classes, %.1f MB: eager %.0f ms, lazy %.0f ms%n", functions, Files.size(path) / 1e6,
+                        run(path, List.of(), null) / 1e6, run(path, List.of(), "--lazy") / 1e6);
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * write a library of @param: functions functions and classes to @param: path, followed by a call that prints 39
+     */
+    static void library(Path path, int functions) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            for (int i = 0; i < functions; i++) {
+                writer.write("fun f" + i + "(a, b) {\n");
+                writer.write("    var sum = 0;\n");
+                writer.write("    for (var i = 0; i < a; i = i + 1) { if (i > b) sum = sum + i; else sum = sum - 1; }\n");
+                writer.write("    return sum;\n");
+                writer.write("}\n");
+                writer.write("class C" + i + " { init(v) { this.v = v; } get() { return this.v + f" + i + "(1, 2); } }\n");
+            }
+            writer.write("print f0(10, 2) + C1(1).get();\n");
+        }
+    }
+
+    /**
+     * @return nanoseconds until a fresh jvm with @param: properties runs Lox with @param: option (may be null) on library and exits
+     */
+    static long run(Path path, List<String> properties, String option) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(properties);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Lox.class.getName());
+        if (option != null) command.add(option);
+        command.add(path.toString());
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line = reader.readLine();
+            if (line == null || !line.equals("39")) throw new IllegalStateException("unexpected output: " + line);
+            while (reader.readLine() != null) ;
+        }
+        process.waitFor();
+        return System.nanoTime() - start;
+    }
+}
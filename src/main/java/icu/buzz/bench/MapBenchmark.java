@@ -0,0 +1,72 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.collection.LoxMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * native map against java.util.HashMap holding the same lox values, number keys and string keys
+ * keys are shuffled, so neither table gets the cache locality of keys hashing to neighbouring slots in order
+ * reports nanoseconds per put and per get, and heap bytes per entry retained by the table (keys and values excluded)
+ * usage: java icu.buzz.bench.MapBenchmark [entries]
+ */
+public class MapBenchmark {
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Object[] numbers = new Object[entries];
+        Object[] strings = new Object[entries];
+        for (int i = 0; i < entries; i++) {
+            numbers[i] = (double) i;
+            strings[i] = "key" + i;
+        }
+        Random random = new Random(42);
+        for (int i = entries - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object number = numbers[i], string = strings[i];
+            numbers[i] = numbers[j];
+            numbers[j] = number;
+            strings[i] = strings[j];
+            strings[j] = string;
+        }
+        for (int round = 0; round < 3; round++) {
+            report("numbers", numbers);
+            report("strings", strings);
+        }
+    }
+
+    private static void report(String name, Object[] keys) {
+        long before = used();
+        long start = System.nanoTime();
+        LoxMap map = new LoxMap();
+        for (Object key : keys) map.put(key, key);
+        long put = System.nanoTime() - start;
+        long retained = used() - before;
+        start = System.nanoTime();
+        int found = 0;
+        for (Object key : keys) if (map.get(key) == key) found++;
+        long get = System.nanoTime() - start;
+
+        before = used();
+        start = System.nanoTime();
+        Map<Object, Object> hashMap = new HashMap<>();
+        for (Object key : keys) hashMap.put(key, key);
+        long hashPut = System.nanoTime() - start;
+        long hashRetained = used() - before;
+        start = System.nanoTime();
+        for (Object key : keys) if (hashMap.get(key) == key) found++;
+        long hashGet = System.nanoTime() - start;
+
+        if (found != keys.length * 2 || map.size() != hashMap.size()) throw new IllegalStateException("lost entries");
+        System.out.printf("%s: map put %.1f ns, get %.1f ns, %.1f bytes per entry; HashMap put %.1f ns, get %.1f ns, %.1f bytes per entry%n",
+                name, (double) put / keys.length, (double) get / keys.length, (double) retained / keys.length,
+                (double) hashPut / keys.length, (double) hashGet / keys.length, (double) hashRetained / keys.length);
+    }
+
+    private static long used() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
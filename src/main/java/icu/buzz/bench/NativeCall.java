@@ -0,0 +1,80 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.foreign.NativeFunction;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * cost of calling a native: sqrt linked from a @LoxNative method (arguments passed as they are) against the same native
+ * written as a LoxCallable class (arguments in a List), from a script loop and from java directly
+ * usage: java icu.buzz.bench.NativeCall [calls]
+ */
+public class NativeCall {
+    private static final String SCRIPT = """
+            var sum = 0;
+            for (var i = 0; i < n; i = i + 1) sum = sum + root(i);
+            """;
+
+    /**
+     * sqrt as natives were written before the registry
+     */
+    public static class ListSqrt implements LoxCallable {
+        @Override
+        public Object call(Interpreter interpreter, List<Object> arguments) {
+            if (!(arguments.get(0) instanceof Double x)) throw new NativeError("sqrt expects a number as argument 1");
+            return Math.sqrt(x);
+        }
+
+        @Override
+        public int arity() {
+            return 1;
+        }
+    }
+
+    public static void main(String[] args) {
+        int calls = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        LoxScript linked = LoxEngine.compile("var root = sqrt;\n" + SCRIPT);
+        LoxScript list = LoxEngine.compile(SCRIPT);
+        LoxCallable sqrt = (LoxCallable) LoxEngine.compile("var root = sqrt;").execute().get("root");
+        LoxCallable listSqrt = new ListSqrt();
+        for (int round = 0; round < 3; round++) {
+            double script = script(linked, Map.of("n", calls), calls);
+            double scriptList = script(list, Map.of("n", calls, "root", listSqrt), calls);
+            double direct = direct(sqrt, calls);
+            double directList = direct(listSqrt, calls);
+            System.out.printf("script: linked %.1f ns, list %.1f ns a loop iteration; java: linked %.1f ns, list %.1f ns a call%n",
+                    script, scriptList, direct, directList);
+        }
+    }
+
+    private static double script(LoxScript script, Map<String, ?> bindings, int calls) {
+        long start = System.nanoTime();
+        Object sum = script.execute(bindings).get("sum");
+        long nanos = System.nanoTime() - start;
+        if (!(sum instanceof Double total) || total <= 0) throw new IllegalStateException("unexpected sum " + sum);
+        return (double) nanos / calls;
+    }
+
+    /**
+     * @return nanoseconds a call the way an interpreter calls @param: function
+     */
+    private static double direct(LoxCallable function, int calls) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            Object result = function instanceof NativeFunction linked
+                    ? linked.call((Object) (double) i)
+                    : function.call(null, List.of((double) i));
+            sum += (double) result;
+        }
+        long nanos = System.nanoTime() - start;
+        if (sum <= 0) throw new IllegalStateException("unexpected sum " + sum);
+        return (double) nanos / calls;
+    }
+}
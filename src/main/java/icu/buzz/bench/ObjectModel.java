@@ -0,0 +1,108 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Environment;
+import icu.buzz.lox.oop.LoxClass;
+import icu.buzz.lox.oop.LoxInstance;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * cost of the object model on the paths a single-threaded script takes, and compareAndSet on one field under contention
+ * scope: a call scope is created, its parameter defined and read twice; instance: an instance gets three fields, read back;
+ * update: an existing field is read and written
+ * usage: java icu.buzz.bench.ObjectModel [operations] [threads...]
+ */
+public class ObjectModel {
+    private static final LoxClass POINT = new LoxClass("Point", null, new HashMap<>());
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        List<Integer> threads = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) threads.add(Integer.parseInt(args[i]));
+        if (threads.isEmpty()) threads = List.of(1, 2, 4);
+        for (int round = 0; round < 3; round++) {
+            System.out.printf("scope %.1f ns, instance %.1f ns, update %.1f ns%n",
+                    scope(operations), instance(operations), update(operations));
+        }
+        for (int count : threads) {
+            compareAndSet(count, operations / 10);
+            System.out.printf("compareAndSet, %d threads: %.0f increments/s%n", count, compareAndSet(count, operations));
+        }
+    }
+
+    private static double scope(int operations) {
+        Environment global = new Environment();
+        Token name = new Token("n", TokenType.IDENTIFIER, null, 1);
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            Environment scope = new Environment(global);
+            scope.define("n", (double) i);
+            sum += (double) scope.get(name, 0) + (double) scope.get(name, 0);
+        }
+        return check(sum, System.nanoTime() - start, operations);
+    }
+
+    private static double instance(int operations) {
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            LoxInstance point = new LoxInstance(POINT);
+            point.set("x", (double) i, false);
+            point.set("y", 1.0, false);
+            point.set("z", 2.0, false);
+            sum += (double) point.get("x") + (double) point.get("z");
+        }
+        return check(sum, System.nanoTime() - start, operations);
+    }
+
+    private static double update(int operations) {
+        LoxInstance counter = new LoxInstance(POINT);
+        counter.set("n", 0.0, false);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) counter.set("n", (double) counter.get("n") + 1, false);
+        return check((double) counter.get("n"), System.nanoTime() - start, operations);
+    }
+
+    /**
+     * @return increments per second of @param: threads threads incrementing one field by compareAndSet
+     */
+    private static double compareAndSet(int threads, int operations) throws Exception {
+        LoxInstance counter = new LoxInstance(POINT);
+        counter.set("n", 0.0);
+        int each = operations / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < each; i++) {
+                        Object value;
+                        do value = counter.get("n");
+                        while (!counter.compareAndSet("n", value, (double) value + 1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            long nanos = System.nanoTime() - start;
+            if (!counter.get("n").equals((double) each * threads)) throw new IllegalStateException("lost increments: " + counter.get("n"));
+            return each * threads / (nanos / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static double check(double sum, long nanos, int operations) {
+        // keeps the loop from being optimized away
+        if (sum < 0) System.out.println(sum);
+        return (double) nanos / operations;
+    }
+}
@@ -0,0 +1,59 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.ParallelScanner;
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.source.Utf8Source;
+import icu.buzz.lox.token.TokenBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * scan time of a large generated data table, sequential Scanner against ParallelScanner on the common pool
+ * tokens of both scans are compared, they must be the same
+ * usage: java icu.buzz.bench.ParallelScan [source size in MB]
+ */
+public class ParallelScan {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 128;
+        String block = """
+                /* row group, values below are generated
+                   from the upstream table */
+                var row = "id,name,value
+                1,alpha,0.5";
+                var total = 12.5 + 3 * 7;
+                """ + ArenaFootprint.generate(2);
+        byte[] bytes = block.repeat(megabytes * 1_000_000 / block.length() + 1).getBytes(StandardCharsets.UTF_8);
+        Source source = new Utf8Source(ByteBuffer.wrap(bytes));
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("source: %.1f MB, parallelism: %d%n", bytes.length / 1e6, pool.getParallelism());
+        check(new Scanner(source).scan(), new ParallelScanner(source, pool, pool.getParallelism() * 4 + 1).scan());
+        long sequential = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            new Scanner(source).scan();
+            sequential = Math.min(sequential, System.nanoTime() - start);
+            start = System.nanoTime();
+            // at least 2 chunks even on a single processor, the fix-up path always runs
+            new ParallelScanner(source, pool, Math.max(pool.getParallelism() * 4, 2)).scan();
+            parallel = Math.min(parallel, System.nanoTime() - start);
+        }
+        System.out.printf("sequential %.1f ms (%.1f MB/s), parallel %.1f ms (%.1f MB/s)%n",
+                sequential / 1e6, bytes.length * 1e3 / sequential, parallel / 1e6, bytes.length * 1e3 / parallel);
+    }
+
+    private static void check(TokenBuffer expected, TokenBuffer actual) {
+        boolean same = expected.size() == actual.size();
+        for (int i = 0; same && i < expected.size(); i++) {
+            same = expected.type(i) == actual.type(i) && expected.start(i) == actual.start(i)
+                    && expected.line(i) == actual.line(i) && expected.column(i) == actual.column(i);
+        }
+        if (!same) throw new IllegalStateException("parallel scan differs from sequential scan");
+        System.out.printf("%d tokens, same as sequential scan%n", expected.size());
+    }
+}
@@ -0,0 +1,79 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * a cpu bound map and sum over an array (integers, so the sum is exact in any order): a while loop on one thread
+ * against parallelMap and parallelReduce in ForkJoin pools of 1 to 16 workers,
+ * the parallel natives use the pool of the worker that calls them
+ * speedup beyond the number of cores of the machine is not possible, those rows show the cost of extra workers
+ * usage: java icu.buzz.bench.ParallelSpeedup [elements] [workers...]
+ */
+public class ParallelSpeedup {
+    private static final String SETUP = """
+            fun work(x) {
+                var sum = 0;
+                for (var i = 0; i < 100; i = i + 1) sum = sum + x * i - i;
+                return sum;
+            }
+            fun add(a, b) { return a + b; }
+            var data = array(elements);
+            for (var i = 0; i < elements; i = i + 1) set(data, i, i);
+            """;
+
+    private static final String LOOP = SETUP + """
+            var result = 0;
+            var i = 0;
+            while (i < elements) {
+                result = result + work(get(data, i));
+                i = i + 1;
+            }
+            """;
+
+    private static final String PARALLEL = SETUP + """
+            var result = parallelReduce(parallelMap(data, work), add, 0);
+            """;
+
+    public static void main(String[] args) throws Exception {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        List<Integer> workers = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) workers.add(Integer.parseInt(args[i]));
+        if (workers.isEmpty()) workers = List.of(1, 2, 4, 8, 16);
+        LoxScript loop = LoxEngine.compile(LOOP);
+        LoxScript parallel = LoxEngine.compile(PARALLEL);
+        System.out.printf("%d cores, %d elements%n", Runtime.getRuntime().availableProcessors(), elements);
+        // warm up
+        Object expected = time(loop, elements, null).result();
+        time(parallel, elements, new ForkJoinPool(2));
+        double sequential = time(loop, elements, null).millis();
+        System.out.printf("while loop: %.0f ms%n", sequential);
+        for (int count : workers) {
+            ForkJoinPool pool = new ForkJoinPool(count);
+            try {
+                Run run = time(parallel, elements, pool);
+                if (!run.result().equals(expected)) throw new IllegalStateException("unexpected result " + run.result());
+                System.out.printf("%d workers: %.0f ms, speedup %.2f%n", count, run.millis(), sequential / run.millis());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private record Run(double millis, Object result) {}
+
+    /**
+     * @param pool pool to run script in, null to run on this thread
+     */
+    private static Run time(LoxScript script, int elements, ForkJoinPool pool) throws Exception {
+        long start = System.nanoTime();
+        Map<String, Object> globals = pool == null ? script.execute(Map.of("elements", elements))
+                : pool.submit(() -> script.execute(Map.of("elements", elements))).get();
+        return new Run((System.nanoTime() - start) / 1e6, globals.get("result"));
+    }
+}
@@ -0,0 +1,37 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Parser;
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.token.TokenBuffer;
+
+/**
+ * parse throughput in tokens per second, tokens are scanned once and parsed again and again
+ * expression heavy code shows the cost of precedence levels best
+ * usage: java icu.buzz.bench.ParseThroughput [number of generated functions]
+ */
+public class ParseThroughput {
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String expressions = """
+                var a = 1; var b = 2; var c = "c";
+                print a + b * 3 - (a / b) >= 4 and !(a == b) or c != nil;
+                print -a * -b + a.b.c(1, 2, a < b) - 42;
+                a = b = 3 + 4 * 5;
+                """;
+        String[][] inputs = {{"code", ArenaFootprint.generate(functions)}, {"expressions", expressions.repeat(functions * 4)}};
+        for (String[] input : inputs) {
+            TokenBuffer tokens = new Scanner(input[1]).scan();
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < WARMUP + ROUNDS; i++) {
+                long start = System.nanoTime();
+                new Parser(tokens).parse();
+                long elapsed = System.nanoTime() - start;
+                if (i >= WARMUP) best = Math.min(best, elapsed);
+            }
+            System.out.printf("%-12s %d tokens, %.1f ms, %.1f M tokens/s%n", input[0], tokens.size(), best / 1e6, tokens.size() * 1e3 / best);
+        }
+    }
+}
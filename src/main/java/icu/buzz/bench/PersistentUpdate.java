@@ -0,0 +1,82 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.collection.LoxMap;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.collection.PersistentVector;
+
+import java.util.Arrays;
+
+/**
+ * copy-on-write update of one element of large state: a full copy of an array or map, against with() on a persistent
+ * vector or map, old versions stay valid in both; and bulk building by append/with against a transient
+ * usage: java icu.buzz.bench.PersistentUpdate [elements] [updates]
+ */
+public class PersistentUpdate {
+    public static void main(String[] args) {
+        int elements = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int updates = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        for (int round = 0; round < 3; round++) {
+            Object[] array = new Object[elements];
+            LoxMap map = new LoxMap();
+            PersistentVector.Transient vectorBuilder = PersistentVector.EMPTY.asTransient();
+            PersistentMap.Transient mapBuilder = PersistentMap.EMPTY.asTransient();
+            for (int i = 0; i < elements; i++) {
+                array[i] = (double) i;
+                map.put((double) i, (double) i);
+                vectorBuilder.push((double) i);
+                mapBuilder.put((double) i, (double) i);
+            }
+            PersistentVector vector = vectorBuilder.persistent();
+            PersistentMap persistentMap = mapBuilder.persistent();
+
+            long start = System.nanoTime();
+            Object[] copied = array;
+            for (int i = 0; i < updates; i++) {
+                copied = Arrays.copyOf(copied, copied.length);
+                copied[i * 7 % elements] = -1.0;
+            }
+            double arrayCopy = (System.nanoTime() - start) / 1e3 / updates;
+            start = System.nanoTime();
+            LoxMap mapCopy = map;
+            for (int i = 0; i < updates / 10; i++) {
+                LoxMap next = new LoxMap();
+                for (Object key = mapCopy.next(null); key != null; key = mapCopy.next(key)) next.put(key, mapCopy.get(key));
+                next.put((double) (i * 7 % elements), -1.0);
+                mapCopy = next;
+            }
+            double mapCopied = (System.nanoTime() - start) / 1e3 / (updates / 10);
+            start = System.nanoTime();
+            PersistentVector changed = vector;
+            for (int i = 0; i < updates * 100; i++) changed = changed.with(i * 7 % elements, -1.0);
+            double vectorWith = (System.nanoTime() - start) / 1e3 / (updates * 100);
+            start = System.nanoTime();
+            PersistentMap changedMap = persistentMap;
+            for (int i = 0; i < updates * 100; i++) changedMap = changedMap.with((double) (i * 7 % elements), -1.0);
+            double mapWith = (System.nanoTime() - start) / 1e3 / (updates * 100);
+            if (copied[0] != changed.get(0) && !copied[0].equals(changed.get(0))) throw new IllegalStateException("versions differ");
+            if (!vector.get(0).equals(0.0) || !persistentMap.get(0.0).equals(0.0)) throw new IllegalStateException("old version changed");
+            System.out.printf("update one of %d: array copy %.1f us, vector with %.2f us; map copy %.1f us, hashMap with %.2f us%n",
+                    elements, arrayCopy, vectorWith, mapCopied, mapWith);
+
+            start = System.nanoTime();
+            PersistentVector appended = PersistentVector.EMPTY;
+            for (int i = 0; i < elements; i++) appended = appended.append((double) i);
+            double append = (double) (System.nanoTime() - start) / elements;
+            start = System.nanoTime();
+            PersistentVector.Transient pushed = PersistentVector.EMPTY.asTransient();
+            for (int i = 0; i < elements; i++) pushed.push((double) i);
+            double push = (double) (System.nanoTime() - start) / elements;
+            start = System.nanoTime();
+            PersistentMap with = PersistentMap.EMPTY;
+            for (int i = 0; i < elements; i++) with = with.with((double) i, (double) i);
+            double withEach = (double) (System.nanoTime() - start) / elements;
+            start = System.nanoTime();
+            PersistentMap.Transient put = PersistentMap.EMPTY.asTransient();
+            for (int i = 0; i < elements; i++) put.put((double) i, (double) i);
+            double putEach = (double) (System.nanoTime() - start) / elements;
+            if (!appended.equals(pushed.persistent()) || !with.equals(put.persistent())) throw new IllegalStateException("builds differ");
+            System.out.printf("build %d: vector append %.0f ns, transient push %.0f ns; hashMap with %.0f ns, transient set %.0f ns%n",
+                    elements, append, push, withEach, putEach);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.source.Utf8Source;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * scanner throughput in MB/s on comment heavy, string heavy, data table (long comments and literals) and ordinary code
+ * bulk: string (String.indexOf) and UTF-8 (SWAR) sources skip strings, comments and blanks in bulk
+ * scalar: same sources behind a wrapper that only offers charAt, so everything is skipped a code unit at a time
+ * each configuration runs in a fresh jvm, several Source classes in one jvm turn source calls of scanner megamorphic
+ * usage: java icu.buzz.bench.ScanThroughput [source size in MB] [string | utf-8] [bulk | scalar]
+ */
+public class ScanThroughput {
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String megabytes = args.length > 0 ? args[0] : "32";
+        if (args.length < 3) {
+            for (String kind : new String[]{"string", "utf-8"}) {
+                for (String mode : new String[]{"bulk", "scalar"}) fork(megabytes, kind, mode);
+            }
+            return;
+        }
+        int size = Integer.parseInt(megabytes);
+        String comment = repeat("""
+                /*
+                 * generated table, every row below is produced by the build
+                 * do not edit by hand, regenerate with the table tool instead
+                 */
+                var row = nil; // trailing comment after a statement, it runs to the end of line
+                """, size);
+        String string = repeat("""
+                var text = "a long string literal which is mostly plain ASCII text, it is kept as it is by the scanner";
+                print "another literal with some more words inside, the scanner looks for the closing quote";
+                """, size);
+        // data tables: long literals and long comment blocks without any '*' inside
+        String table = repeat("/*\n" + "column description of the generated data table below\n".repeat(20) + "*/\n"
+                + "var blob = \"" + "0123456789abcdef".repeat(64) + "\";\n", size);
+        String code = repeat(ArenaFootprint.generate(1000), size);
+        StringBuilder report = new StringBuilder(String.format("%-6s %-6s", args[1], args[2]));
+        for (String[] input : new String[][]{{"comment", comment}, {"string", string}, {"table", table}, {"code", code}}) {
+            byte[] bytes = input[1].getBytes(StandardCharsets.UTF_8);
+            Source source = args[1].equals("string") ? Source.of(input[1]) : new Utf8Source(ByteBuffer.wrap(bytes));
+            if (args[2].equals("scalar")) source = scalar(source);
+            report.append(String.format(" | %s %7.1f MB/s", input[0], throughput(source, bytes.length)));
+        }
+        System.out.println(report);
+    }
+
+    private static String repeat(String block, int megabytes) {
+        return block.repeat(megabytes * 1_000_000 / block.length() + 1);
+    }
+
+    private static double throughput(Source source, int bytes) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            new Scanner(source).scan();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return bytes / 1e6 / (best / 1e9);
+    }
+
+    private static void fork(String megabytes, String kind, String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xmx2g");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScanThroughput.class.getName());
+        command.add(megabytes);
+        command.add(kind);
+        command.add(mode);
+        new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    /**
+     * hide the bulk operations of @param: source, default methods of Source step a code unit at a time
+     */
+    private static Source scalar(Source source) {
+        return new Source() {
+            @Override
+            public int length() {
+                return source.length();
+            }
+
+            @Override
+            public char charAt(int index) {
+                return source.charAt(index);
+            }
+
+            @Override
+            public String text(int start, int end) {
+                return source.text(start, end);
+            }
+
+            @Override
+            public int width(int index) {
+                return source.width(index);
+            }
+        };
+    }
+}
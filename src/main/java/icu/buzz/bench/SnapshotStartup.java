@@ -0,0 +1,84 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Lox;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * time until a script that starts with a large prelude (classes, helper functions, a linked list of instances
+ * and a warm-up loop) prints its result, each run is a fresh jvm
+ * prelude: prelude and script in one file, without AST cache and with it (--cache, front end skipped, prelude still runs)
+ * snapshot: only the script, globals of the prelude are restored from a snapshot (--restore)
+ * usage: java icu.buzz.bench.SnapshotStartup [number of prelude classes...]
+ */
+public class SnapshotStartup {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] sizes = args.length > 0 ? args : new String[]{"100", "1000", "10000"};
+        for (String size : sizes) {
+            int classes = Integer.parseInt(size);
+            Path directory = Files.createTempDirectory("lox-snapshot");
+            try {
+                Path prelude = directory.resolve("prelude.lox");
+                Path script = directory.resolve("script.lox");
+                Path combined = directory.resolve("combined.lox");
+                Path snapshot = directory.resolve("prelude.snapshot");
+                try (Writer writer = Files.newBufferedWriter(prelude)) {
+                    for (int i = 0; i < classes; i++) {
+                        writer.write("class Helper" + i + " { init(v) { this.v = v; this.next = nil; } value() { return this.v * 2; } }\n");
+                        writer.write("fun helper" + i + "(x) { return Helper" + i + "(x).value(); }\n");
+                        writer.write("var instance" + i + " = Helper" + i + "(" + i + ");\n");
+                        if (i > 0) writer.write("instance" + i + ".next = instance" + (i - 1) + ";\n");
+                    }
+                    writer.write("var warm = 0;\n");
+                    writer.write("for (var i = 0; i < " + classes * 100 + "; i = i + 1) warm = warm + helper0(i);\n");
+                }
+                String main = "print helper0(1) + instance" + (classes - 1) + ".next.v + warm;\n";
+                Files.writeString(script, main);
+                Files.writeString(combined, Files.readString(prelude) + main);
+                Path cache = directory.resolve("cache");
+                List<String> properties = List.of("-Dlox.cache.dir=" + cache);
+                long save = run(properties, null, List.of("--snapshot", snapshot.toString(), prelude.toString())).nanos();
+                Run cold = run(properties, null, List.of(combined.toString()));
+                // first run with cache stores the program
+                run(properties, cold.output(), List.of("--cache", combined.toString()));
+                long cached = run(properties, cold.output(), List.of("--cache", combined.toString())).nanos();
+                long restored = run(properties, cold.output(), List.of("--restore", snapshot.toString(), script.toString())).nanos();
+                System.out.printf("%d classes, prelude %.1f MB, snapshot %.1f MB (saved in %.0f ms): prelude %.0f ms, cached prelude %.0f ms, snapshot %.0f ms%n",
+                        classes, Files.size(prelude) / 1e6, Files.size(snapshot) / 1e6, save / 1e6, cold.nanos() / 1e6, cached / 1e6, restored / 1e6);
+            } finally {
+                try (var files = Files.walk(directory)) {
+                    for (Path file : files.sorted((a, b) -> b.compareTo(a)).toList()) Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private record Run(long nanos, String output) {}
+
+    /**
+     * @param expected output the run must print, null if it is not checked
+     * @return time until Lox with @param: arguments exits, and what it prints
+     */
+    private static Run run(List<String> properties, String expected, List<String> arguments) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(properties);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Lox.class.getName());
+        command.addAll(arguments);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        int status = process.waitFor();
+        long elapsed = System.nanoTime() - start;
+        if (status != 0 || expected != null && !expected.equals(output)) throw new IllegalStateException("unexpected output: " + output);
+        return new Run(elapsed, output);
+    }
+}
@@ -0,0 +1,66 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.token.TokenBuffer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * heap held and bytes allocated until a large script file is scanned
+ * decoded string (Files.readAllBytes + new String) against memory-mapped UTF-8 source
+ * usage: java icu.buzz.bench.SourceFootprint [number of generated functions]
+ */
+public class SourceFootprint {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        Path path = Files.createTempFile("lox-footprint", ".lox");
+        try {
+            // a non-ASCII string forces the decoded string into UTF-16, as it happens in real scripts
+            Files.writeString(path, "print \"héllo\";\n" + ArenaFootprint.generate(functions), StandardCharsets.UTF_8);
+            System.out.printf("source file: %.1f MB%n", Files.size(path) / 1e6);
+            for (int round = 0; round < 3; round++) {
+                long base = ArenaFootprint.usedHeap();
+                long before = allocated();
+                long start = System.nanoTime();
+                String text = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+                long loaded = allocated() - before;
+                long held = ArenaFootprint.usedHeap() - base;
+                TokenBuffer tokens = new Scanner(text).scan();
+                long elapsed = System.nanoTime() - start;
+                report("string", loaded, held, elapsed, tokens);
+                text = null;
+                tokens = null;
+
+                base = ArenaFootprint.usedHeap();
+                before = allocated();
+                start = System.nanoTime();
+                Source source = Source.map(path);
+                loaded = allocated() - before;
+                held = ArenaFootprint.usedHeap() - base;
+                tokens = new Scanner(source).scan();
+                elapsed = System.nanoTime() - start;
+                report("mapped", loaded, held, elapsed, tokens);
+                source = null;
+                tokens = null;
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void report(String mode, long loaded, long held, long elapsed, TokenBuffer tokens) {
+        System.out.printf("%s: load allocated %.1f MB, source held %.1f MB, load + scan %.1f ms (%d tokens)%n",
+                mode, loaded / 1e6, held / 1e6, elapsed / 1e6, tokens.size());
+    }
+
+    private static long allocated() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
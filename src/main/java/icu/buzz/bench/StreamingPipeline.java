@@ -0,0 +1,65 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.Lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * time to first output and completion of a large script, whole-program pipeline against streaming (--stream)
+ * each run is a fresh jvm with a small heap, whole-program pipeline runs out of memory once the AST does not fit
+ * usage: java icu.buzz.bench.StreamingPipeline [number of generated blocks] [max heap]
+ */
+public class StreamingPipeline {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int blocks = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        String heap = args.length > 1 ? args[1] : "64m";
+        Path path = Files.createTempFile("lox-stream", ".lox");
+        try {
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                for (int i = 0; i < blocks; i++) {
+                    // globals are redefined, the previous function becomes garbage
+                    writer.write("var x = " + i + ";\n");
+                    writer.write("fun step(n) { var sum = 0; for (var i = 0; i < n; i = i + 1) sum = sum + i; return sum + x; }\n");
+                    writer.write("print step(10);\n");
+                }
+            }
+            System.out.printf("source file: %.1f MB, heap: %s%n", Files.size(path) / 1e6, heap);
+            run(path, heap, "batch");
+            run(path, heap, "--stream");
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void run(Path path, String heap, String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xmx" + heap);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Lox.class.getName());
+        if (!mode.equals("batch")) command.add(mode);
+        command.add(path.toString());
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        long first = -1;
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            while (reader.readLine() != null) {
+                if (first < 0) first = System.nanoTime() - start;
+                lines++;
+            }
+        }
+        int status = process.waitFor();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-8s exit %3d, first output %s, %d lines in %.0f ms%n", mode, status,
+                first < 0 ? "never" : String.format("%.0f ms", first / 1e6), lines, elapsed / 1e6);
+    }
+}
@@ -0,0 +1,74 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxScript;
+import icu.buzz.lox.collection.LoxArray;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * string natives on log lines: nanoseconds a line to split it and parse its fields, and to build one string of all lines
+ * by join against a loop of + (each + copies the whole string so far)
+ * usage: java icu.buzz.bench.StringThroughput [lines]
+ */
+public class StringThroughput {
+    private static final String PARSE = """
+            var bytes = 0;
+            var errors = 0;
+            for (var i = 0; i < length(lines); i = i + 1) {
+              var fields = split(get(lines, i), " ");
+              if (parseNumber(get(fields, 3)) >= 500) errors = errors + 1;
+              bytes = bytes + parseNumber(get(fields, 4));
+            }
+            """;
+    private static final String JOIN = """
+            var text = join(lines, "\n");
+            """;
+    private static final String CONCAT = """
+            var text = "";
+            for (var i = 0; i < length(lines); i = i + 1) {
+              if (i > 0) text = text + "\n";
+              text = text + get(lines, i);
+            }
+            """;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        LoxArray lines = lines(count, new Random(42));
+        Map<String, Object> bindings = Map.of("lines", lines);
+        LoxScript parse = LoxEngine.compile(PARSE);
+        LoxScript join = LoxEngine.compile(JOIN);
+        LoxScript concat = LoxEngine.compile(CONCAT);
+        // + is quadratic, it runs on fewer lines
+        int concatCount = Math.min(count, 20_000);
+        Map<String, Object> concatBindings = Map.of("lines", lines(concatCount, new Random(42)));
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            Map<String, Object> parsed = parse.execute(bindings);
+            double parseNanos = (double) (System.nanoTime() - start) / count;
+            start = System.nanoTime();
+            int joined = ((String) join.execute(bindings).get("text")).length();
+            double joinNanos = (double) (System.nanoTime() - start) / count;
+            start = System.nanoTime();
+            concat.execute(concatBindings);
+            double concatNanos = (double) (System.nanoTime() - start) / concatCount;
+            System.out.printf("parse %.0f ns a line (%.0f errors, %.0f bytes); join %.0f ns a line (%d chars), + %.0f ns a line over %d lines%n",
+                    parseNanos, (double) parsed.get("errors"), (double) parsed.get("bytes"), joinNanos, joined, concatNanos, concatCount);
+        }
+    }
+
+    /**
+     * @return @param: count lines like "2026-10-19T12:00:00 GET /page/17 200 5120"
+     */
+    private static LoxArray lines(int count, Random random) {
+        String[] methods = {"GET", "POST", "PUT"};
+        int[] statuses = {200, 200, 200, 301, 404, 500};
+        Object[] lines = new Object[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = String.format("2026-10-19T%02d:%02d:%02d %s /page/%d %d %d", i / 3600 % 24, i / 60 % 60, i % 60,
+                    methods[random.nextInt(methods.length)], random.nextInt(1000), statuses[random.nextInt(statuses.length)], random.nextInt(100_000));
+        }
+        return LoxArray.of(lines);
+    }
+}
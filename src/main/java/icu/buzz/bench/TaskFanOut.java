@@ -0,0 +1,76 @@
+package icu.buzz.bench;
+
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxExecutor;
+import icu.buzz.lox.LoxScript;
+
+import java.util.Map;
+
+/**
+ * cpu bound work split over spawned tasks against the same work in a loop, and values per second through a channel
+ * fan-out can only be faster than the loop with more than one core, on a single core it shows what spawn and await cost
+ * usage: java icu.buzz.bench.TaskFanOut [tasks] [messages]
+ */
+public class TaskFanOut {
+    private static final String WORK = """
+            fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+            """;
+
+    private static final String SEQUENTIAL = WORK + """
+            var result = 0;
+            for (var i = 0; i < tasks; i = i + 1) result = result + fib(20);
+            """;
+
+    private static final String FAN_OUT = WORK + """
+            fun job() { return fib(20); }
+            var head = nil;
+            class Node { init(task, next) { this.task = task; this.next = next; } }
+            for (var i = 0; i < tasks; i = i + 1) head = Node(spawn(job), head);
+            var result = 0;
+            for (var node = head; node != nil; node = node.next) result = result + await(node.task);
+            """;
+
+    private static final String PIPE = """
+            var pipe = channel(capacity);
+            fun producer() { for (var i = 0; i < messages; i = i + 1) send(pipe, i); send(pipe, nil); }
+            spawn(producer);
+            var result = 0;
+            for (var value = receive(pipe); value != nil; value = receive(pipe)) result = result + value;
+            """;
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int messages = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        System.out.printf("%d cores, %s threads%n", Runtime.getRuntime().availableProcessors(),
+                LoxExecutor.hasVirtualThreads() ? "virtual" : "platform");
+        LoxScript sequential = LoxEngine.compile(SEQUENTIAL);
+        LoxScript fanOut = LoxEngine.compile(FAN_OUT);
+        LoxScript pipe = LoxEngine.compile(PIPE);
+        double expected = tasks * 6765.0;
+        for (int round = 0; round < 3; round++) {
+            long loop = time(sequential, Map.of("tasks", tasks), expected);
+            long spawned = time(fanOut, Map.of("tasks", tasks), expected);
+            System.out.printf("fib(20) x %d: loop %.0f ms, %d tasks %.0f ms%n", tasks, loop / 1e6, tasks, spawned / 1e6);
+        }
+        for (int capacity : new int[]{0, 1, 64}) {
+            // warm up, then measure
+            pipe(pipe, messages / 10, capacity);
+            System.out.printf("channel(%d): %.0f values/s%n", capacity, messages / (pipe(pipe, messages, capacity) / 1e9));
+        }
+    }
+
+    /**
+     * @return nanoseconds to send @param: messages numbers through a channel of @param: capacity
+     */
+    private static long pipe(LoxScript script, int messages, int capacity) {
+        return time(script, Map.of("messages", messages, "capacity", capacity), (double) messages * (messages - 1) / 2);
+    }
+
+    private static long time(LoxScript script, Map<String, ?> bindings, double expected) {
+        long start = System.nanoTime();
+        Object result = script.execute(bindings).get("result");
+        long nanos = System.nanoTime() - start;
+        if (!result.equals(expected)) throw new IllegalStateException("unexpected result " + result);
+        return nanos;
+    }
+}
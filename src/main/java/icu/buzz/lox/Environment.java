@@ -1,72 +1,104 @@
-package icu.buzz.lox;
-
-import icu.buzz.lox.exceptions.ExecuteError;
-import icu.buzz.lox.token.Token;
-
-import java.util.HashMap;
-import java.util.Map;
-
-public class Environment {
-
-    private final Map<String, Object> map;
-    private final Environment enclose;
-
-    public Environment() {
-        this.map = new HashMap<>();
-        this.enclose = null;
-    }
-
-    public Environment(Environment enclose) {
-        this.map = new HashMap<>();
-        this.enclose = enclose;
-    }
-
-
-    public void define(String name, Object value) {
-        map.put(name, value);
-    }
-
-    public Object get(Token name) {
-        if (map.containsKey(name.getLexeme())) return map.get(name.getLexeme());
-        throw new ExecuteError(name, "variable: " + name.getLexeme() + " is undefined");
-    }
-
-    /**
-     * get variables from distance
-     * @param name variable name
-     * @param distance distance from current environment
-     * @return variable value
-     */
-    public Object get(Token name, int distance) {
-        if (distance == 0) return this.get(name);
-        if (enclose != null) return this.enclose.get(name, distance - 1);
-        return null;
-    }
-
-    public Object get(String name, int distance) {
-        Environment environment = this;
-        for (; distance != 0 && environment != null; environment = environment.enclose, distance--);
-        if (environment != null) return environment.map.getOrDefault(name, null);
-        return null;
-    }
-
-    public void assign(Token name, Object value) {
-        if (map.containsKey(name.getLexeme())) map.put(name.getLexeme(), value);
-        else throw new ExecuteError(name, "assign variable: " + name.getLexeme() + " has not been defined");
-    }
-
-    /**
-     * assign variable with distance
-     * @param name variable name
-     * @param value new value
-     * @param distance distance from current environment
-     */
-    public void assign(Token name, Object value, int distance) {
-        if (distance == 0) this.assign(name, value);
-        else if (enclose != null) this.enclose.assign(name, value, distance - 1);
-    }
-
-    public Environment getEnclose() {
-        return enclose;
-    }
+package icu.buzz.lox;
+
+import icu.buzz.lox.concurrent.Slots;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.token.Token;
+
+import java.util.Map;
+
+/**
+ * variables of a scope, an environment may be shared by tasks (spawn), e.g. globals and closures of a spawned function
+ * memory model of Slots: a single read or write of a variable is atomic, a compound update like x = x + 1 is not,
+ * tasks order such updates with channels or await
+ * everything a task has written before send (or before it ends) is visible after the matching receive (or await)
+ * variables are only defined by code running in the scope (declarations, parameters, this, super), that is a single thread,
+ * other tasks only read and assign, so defining a variable takes no lock
+ */
+public class Environment extends Slots {
+    private final Environment enclose;
+
+    public Environment() {
+        this(null);
+    }
+
+    public Environment(Environment enclose) {
+        super(false);
+        this.enclose = enclose;
+    }
+
+
+    public void define(String name, Object value) {
+        // an environment never locks, only its own scope defines names
+        put(name, value, false);
+    }
+
+    public boolean contains(String name) {
+        return slot(name) >= 0;
+    }
+
+    public Object get(Token name) {
+        int slot = slot(name.getLexeme());
+        if (slot >= 0) return read(slot);
+        throw new ExecuteError(name, "variable: " + name.getLexeme() + " is undefined");
+    }
+
+    /**
+     * get variables from distance
+     * @param name variable name
+     * @param distance distance from current environment
+     * @return variable value
+     */
+    public Object get(Token name, int distance) {
+        if (distance == 0) return this.get(name);
+        if (enclose != null) return this.enclose.get(name, distance - 1);
+        return null;
+    }
+
+    public Object get(String name, int distance) {
+        Environment environment = this;
+        for (; distance != 0 && environment != null; environment = environment.enclose, distance--);
+        if (environment == null) return null;
+        int slot = environment.slot(name);
+        return slot >= 0 ? environment.read(slot) : null;
+    }
+
+    public void assign(Token name, Object value) {
+        int slot = slot(name.getLexeme());
+        if (slot >= 0) write(slot, value);
+        else throw new ExecuteError(name, "assign variable: " + name.getLexeme() + " has not been defined");
+    }
+
+    /**
+     * assign variable with distance
+     * @param name variable name
+     * @param value new value
+     * @param distance distance from current environment
+     */
+    public void assign(Token name, Object value, int distance) {
+        if (distance == 0) this.assign(name, value);
+        else if (enclose != null) this.enclose.assign(name, value, distance - 1);
+    }
+
+    /**
+     * assign variable with distance, variable must have been defined (it is found by resolver)
+     * @param name variable name
+     * @param value new value
+     * @param distance distance from current environment
+     */
+    public void assign(String name, Object value, int distance) {
+        Environment environment = this;
+        for (; distance != 0 && environment != null; environment = environment.enclose, distance--);
+        if (environment != null) environment.put(name, value, false);
+    }
+
+    public Environment getEnclose() {
+        return enclose;
+    }
+
+    /**
+     * @return read-only copy of variables defined in this environment (not in enclosing ones)
+     */
+    public Map<String, Object> getValues() {
+        return copy();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.token.Token;
+
+/**
+ * receiver of errors found by Scanner, Parser and Resolver
+ * command line reports to standard error and exits (Lox::errorReport), an embedding collects them, see LoxEngine
+ */
+@FunctionalInterface
+public interface ErrorReporter {
+    /**
+     * report an error
+     * @param line line number of error
+     * @param column column of error
+     * @param message error message
+     */
+    void report(int line, int column, String message);
+
+    /**
+     * report an error at @param: token
+     */
+    default void report(Token token, String message) {
+        report(token.getLocationInfo().getLine(), token.getLocationInfo().getOffset(), message);
+    }
+
+    /**
+     * @return error as command line reports it
+     */
+    static String format(int line, int column, String message) {
+        return "line [" + line + "] column [" + column + "] has Error: " + message;
+    }
+}
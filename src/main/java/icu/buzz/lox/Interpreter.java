@@ -1,369 +1,541 @@
-package icu.buzz.lox;
-
-import icu.buzz.lox.callable.LoxCallable;
-import icu.buzz.lox.callable.LoxFunction;
-import icu.buzz.lox.exceptions.ExecuteError;
-import icu.buzz.lox.exceptions.Return;
-import icu.buzz.lox.expr.Expr;
-import icu.buzz.lox.expr.ExprVisitor;
-import icu.buzz.lox.callable.foreign.Clock;
-import icu.buzz.lox.oop.LoxClass;
-import icu.buzz.lox.oop.LoxInstance;
-import icu.buzz.lox.stmt.Stmt;
-import icu.buzz.lox.stmt.StmtVisitor;
-import icu.buzz.lox.token.Token;
-import icu.buzz.lox.token.TokenType;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class Interpreter implements ExprVisitor<Object>, StmtVisitor<Void> {
-    private final Map<Expr, Integer> depthMap;
-
-    private final Environment global;
-    private Environment environment;
-
-    private final List<Stmt> statements;
-
-    public Interpreter(List<Stmt> statements) {
-        this.depthMap = new HashMap<>();
-        this.global = new Environment();
-        global.define("clock", new Clock());
-        this.environment = global;
-        this.statements = statements;
-    }
-
-    public void interpret() {
-        try {
-            statements.forEach(stmt -> stmt.accept(this));
-        } catch (ExecuteError error) {
-            Lox.errorReport(error.getToken(), error.getMessage());
-        }
-    }
-
-    @Override
-    public Object visitExpr(Expr.Assign expr) {
-        Object value = expr.getValue().accept(this);
-        Integer distance = depthMap.get(expr);
-        if (distance == null) global.assign(expr.getName(), value);
-        else environment.assign(expr.getName(), value, distance);
-        return value;
-    }
-
-    @Override
-    public Object visitExpr(Expr.Set expr) {
-        Object instance = expr.getObject().accept(this);
-        if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(expr.getName(), "field only allowed for instance");
-        Object value = expr.getValue().accept(this);
-        loxInstance.set(expr.getName(), value);
-        return value;
-    }
-
-    @Override
-    public Object visitExpr(Expr.Logical expr) {
-        Token operator = expr.getOperator();
-        Object left = expr.getLeft().accept(this);
-        if (operator.getType() == TokenType.OR) {
-            if (isTruthy(left)) return left;
-        } else {
-            if (!isTruthy(left)) return left;
-        }
-        return expr.getRight().accept(this);
-    }
-
-    @Override
-    public Object visitExpr(Expr.Binary expr) {
-        Object left = expr.getLeft().accept(this);
-        Object right = expr.getRight().accept(this);
-
-        Token token = expr.getOperator();
-        return switch (token.getType()) {
-            case MINUS -> {
-                checkNumber(token, "Operands for '-' should be number", left, right);
-                yield (double)left - (double)right;
-            }
-            case STAR -> {
-                checkNumber(token, "Operands for '*' should be number", left, right);
-                yield (double)left * (double)right;
-            }
-            case SLASH -> {
-                checkNumber(token, "Operands for '/' should be number", left, right);
-                if ((double)right != 0) yield (double)left / (double)right;
-                throw new ExecuteError(token, "Divisor should not be zero");
-            }
-            case PLUS -> {
-                if (isNumber(left, right)) yield (double)left + (double)right;
-                if (isString(left, right)) yield left + (String)right;
-                throw new ExecuteError(token, "Operands for '+' should be number or string");
-            }
-            case GREATER -> {
-                checkNumber(token, "Operands for '>' should be number", left, right);
-                yield (double)left > (double)right;
-            }
-            case GREATER_EQUAL -> {
-                checkNumber(token, "Operands for \">=\" should be number", left, right);
-                yield (double)left >= (double)right;
-            }
-            case LESS -> {
-                checkNumber(token, "Operands for '<' should be number", left, right);
-                yield (double)left < (double)right;
-            }
-            case LESS_EQUAL -> {
-                checkNumber(token, "Operands for \"<=\" should be number", left, right);
-                yield (double)left <= (double)right;
-            }
-            case EQUAL -> isEqual(left, right);
-            case BANG_EQUAL -> !isEqual(left, right);
-            // never reach
-            default -> throw new ExecuteError(token, "Unexpected binary operator");
-        };
-    }
-
-    @Override
-    public Object visitExpr(Expr.Unary expr) {
-        Object right = expr.getRight().accept(this);
-        Token token = expr.getOperator();
-        return switch (token.getType()) {
-            case MINUS -> {
-                checkNumber(token, "Operand for '-' should be number", right);
-                yield -(double)right;
-            }
-            case BANG -> !isTruthy(right);
-            // never reach
-            default -> throw new ExecuteError(token, "Unexpected unary operator");
-        };
-    }
-
-    @Override
-    public Object visitExpr(Expr.Call expr) {
-        Object callee = expr.getCallee().accept(this);
-        List<Expr> argLists = expr.getArguments();
-        int size = Math.min(argLists.size(), Lox.MAX_ARGS);
-        List<Object> arguments = new ArrayList<>(size);
-        for (int i = 0; i < size; i++) arguments.add(argLists.get(i).accept(this));
-
-        if (!(callee instanceof LoxCallable function)) throw new ExecuteError(expr.getParen(), "callee is not callable");
-        if (function.arity() != arguments.size()) throw new ExecuteError(expr.getParen(), "function except:" + function.arity()+ " but got:" + arguments.size());
-
-        return function.call(this, arguments);
-    }
-
-    @Override
-    public Object visitExpr(Expr.Grouping expr) {
-        return expr.getExpression().accept(this);
-    }
-
-    @Override
-    public Object visitExpr(Expr.Literal expr) {
-        return expr.getValue();
-    }
-
-    @Override
-    public Object visitExpr(Expr.Get expr) {
-        Object instance = expr.getObject().accept(this);
-        if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(expr.getName(), "property only allowed for an instance");
-        return loxInstance.get(expr.getName());
-    }
-
-    @Override
-    public Object visitExpr(Expr.Variable expr) {
-        return loopUp(expr, expr.getName());
-    }
-
-    @Override
-    public Object visitExpr(Expr.This expr) {
-        return loopUp(expr, expr.getKeyword());
-    }
-
-    @Override
-    public Object visitExpr(Expr.Super expr) {
-        Integer distance = depthMap.get(expr);
-        LoxClass supClass = (LoxClass) environment.get(expr.getKeyword(), distance);
-        LoxFunction method = supClass.getMethod(expr.getMethod().getLexeme());
-        if (method == null) throw new ExecuteError(expr.getMethod(), "undefined method " + expr.getMethod().getLexeme());
-        LoxInstance instance = (LoxInstance) environment.get("this", distance - 1);
-        return method.bind(instance);
-    }
-
-    private Object loopUp(Expr expr, Token name) {
-        Integer distance = depthMap.get(expr);
-        if (distance == null) return global.get(name);
-        return environment.get(name, distance);
-    }
-
-    /**
-     * all kinds of object can be separated into true or false
-     * @param obj any kinds of object
-     * @return true or false based on Ruby lexical rules
-     */
-    private boolean isTruthy(Object obj) {
-        if (obj == null) return false;
-        if (obj instanceof Boolean) return (boolean)obj;
-        return true;
-    }
-
-    /**
-     * @param obj all kinds of objects
-     * @return true on all objs are number
-     */
-    private boolean isNumber(Object ... obj) {
-        for (Object o : obj) {
-            if (!(o instanceof Double)) return false;
-        }
-        return true;
-    }
-
-    /**
-     * @param obj all kinds of objects
-     * @return true on all objs are number
-     */
-    private boolean isString(Object ... obj) {
-        for (Object o : obj) {
-            if (!(o instanceof String)) return false;
-        }
-        return true;
-    }
-
-    /**
-     * @param arg1 one of the object
-     * @param arg2 the other object
-     * @return if two objects are equal
-     */
-    private boolean isEqual(Object arg1, Object arg2) {
-        if (arg1 == null && arg2 == null) return true;
-        if (arg1 == null) return false;
-        return arg1.equals(arg2);
-    }
-
-    /**
-     * wrapper function for @method: isNumber
-     * @param token raise an exception with token on NAN
-     * @param message raise an exception with message on NAN
-     * @param obj args for @method: isNumber
-     */
-    private void checkNumber(Token token, String message, Object ... obj) {
-        if (!isNumber(obj)) throw new ExecuteError(token, message);
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Expression stmt) {
-        stmt.getExpr().accept(this);
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Print stmt) {
-        System.out.println(stringify(stmt.getExpr().accept(this)));
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Block stmt) {
-        executeBlock(stmt.getStatements(), new Environment(this.environment));
-        return null;
-    }
-
-    public void executeBlock(List<Stmt> statements, Environment environment) {
-        Environment previous = this.environment;
-        this.environment = environment;
-        try {
-            statements.forEach(s -> s.accept(this));
-        } finally {
-            this.environment = previous;
-        }
-    }
-
-    @Override
-    public Void visitStmt(Stmt.If stmt) {
-        if (isTruthy(stmt.getCondition().accept(this))) {
-            stmt.getThenBranch().accept(this);
-        } else if (stmt.getElseBranch() != null) {
-            stmt.getElseBranch().accept(this);
-        }
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.While stmt) {
-        Expr condition = stmt.getCondition();
-        Stmt body = stmt.getBody();
-        while (isTruthy(condition.accept(this))) body.accept(this);
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Return stmt) {
-        Object value = null;
-        if (stmt.getValue() != null) value = stmt.getValue().accept(this);
-        throw new Return(value);
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Var stmt) {
-        Object rst = null;
-
-        Expr initializer = stmt.getInitializer();
-        if (initializer != null) rst = initializer.accept(this);
-
-        environment.define(stmt.getName().getLexeme(), rst);
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Class stmt) {
-        LoxClass supClass = null;
-        if (stmt.getSup() != null) {
-            Object sup = stmt.getSup().accept(this);
-            if (!(sup instanceof LoxClass)) throw new ExecuteError(stmt.getSup().getName(), "superclass of a class must be a class");
-            supClass = (LoxClass) sup;
-        }
-        environment.define(stmt.getName().getLexeme(), null);
-        if (supClass != null) {
-            environment = new Environment(environment);
-            environment.define("super", supClass);
-        }
-        Map<String, LoxFunction> methods = new HashMap<>();
-        for (Stmt.Fun method : stmt.getMethods()) methods.put(method.getName().getLexeme(), new LoxFunction(method, environment, method.getName().getLexeme().equals("init")));
-
-        if (supClass != null) environment = environment.getEnclose();
-
-        LoxClass loxClass = new LoxClass(stmt.getName().getLexeme(), supClass, methods);
-        environment.assign(stmt.getName(), loxClass);
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Fun stmt) {
-        this.environment.define(stmt.getName().getLexeme(), new LoxFunction(stmt, this.environment, false));
-        return null;
-    }
-
-    /**
-     * stringify all kinds of lox object
-     * @param loxObj lox object
-     * @return string
-     */
-    private String stringify(Object loxObj) {
-        if (loxObj == null) return "nil";
-
-        // when lox object is a number, lox should know if this is integer or double
-        if (loxObj instanceof Double) {
-            String rst = loxObj.toString();
-            if (rst.endsWith(".0")) return rst.substring(0, rst.length() - 2);
-            return rst;
-        }
-
-        return loxObj.toString();
-    }
-
-    /**
-     * mark expression with depth
-     * @param expr variable expression
-     * @param depth resolution depth
-     */
-    public void resolve(Expr expr, int depth) {
-        depthMap.put(expr, depth);
-    }
-}
+package icu.buzz.lox;
+
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.LoxFunction;
+import icu.buzz.lox.callable.LoxMethod;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.exceptions.Return;
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.expr.ExprVisitor;
+import icu.buzz.lox.concurrent.TaskGroup;
+import icu.buzz.lox.io.OpenFiles;
+import icu.buzz.lox.callable.foreign.NativeFunction;
+import icu.buzz.lox.callable.foreign.Natives;
+import icu.buzz.lox.collection.Elements;
+import icu.buzz.lox.oop.LoxClass;
+import icu.buzz.lox.oop.LoxInstance;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.stmt.StmtVisitor;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenType;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class Interpreter implements ExprVisitor<Object>, StmtVisitor<Void> {
+    protected final Environment global;
+    protected Environment environment;
+    // print statements write here
+    protected final PrintStream out;
+
+    private final List<Stmt> statements;
+    // files opened by this run and tasks it spawns, shared with them
+    private final OpenFiles files;
+    // tasks of this run, shared with them
+    protected final TaskGroup tasks;
+
+    public Interpreter(List<Stmt> statements) {
+        this(statements, new Environment());
+        Natives.define(global);
+    }
+
+    /**
+     * @param global global environment to start with, e.g. restored from a HeapSnapshot, natives are expected to be defined in it
+     */
+    public Interpreter(List<Stmt> statements, Environment global) {
+        this(statements, global, System.out);
+    }
+
+    /**
+     * @param out output of print statements, e.g. a buffer of a single script run by LoxExecutor
+     */
+    public Interpreter(List<Stmt> statements, Environment global, PrintStream out) {
+        this.global = global;
+        this.environment = global;
+        this.statements = statements;
+        this.out = out;
+        this.files = new OpenFiles();
+        this.tasks = new TaskGroup();
+    }
+
+    /**
+     * interpreter of a task spawned by @param: parent, see fork
+     */
+    protected Interpreter(Interpreter parent) {
+        this.global = parent.global;
+        this.environment = parent.global;
+        this.statements = List.of();
+        this.out = parent.out;
+        this.files = parent.files;
+        this.tasks = parent.tasks;
+    }
+
+    /**
+     * run whole program, then end the run (see endRun)
+     */
+    public void interpret() {
+        try {
+            statements.forEach(this::execute);
+        } catch (ExecuteError error) {
+            Lox.errorReport(error.getToken(), error.getMessage());
+        } finally {
+            endRun();
+        }
+    }
+
+    /**
+     * execute a single top-level statement, statements are fed one by one in streaming mode
+     * @param stmt resolved top-level statement
+     * @return false if a runtime error has been reported
+     */
+    public boolean interpret(Stmt stmt) {
+        try {
+            execute(stmt);
+            return true;
+        } catch (ExecuteError error) {
+            Lox.errorReport(error.getToken(), error.getMessage());
+            return false;
+        }
+    }
+
+    public Environment getGlobal() {
+        return global;
+    }
+
+    public OpenFiles getFiles() {
+        return files;
+    }
+
+    public TaskGroup getTasks() {
+        return tasks;
+    }
+
+    /**
+     * end a program run by command line: cancel tasks still running and wait for them, then flush and close
+     * files the run has left open, a file that can not be flushed is reported like a runtime error without position
+     */
+    public void endRun() {
+        tasks.cancel();
+        try {
+            files.closeAll();
+        } catch (NativeError error) {
+            System.err.println(error.getMessage());
+        }
+    }
+
+    /**
+     * @return interpreter for a task spawned by this one: its own call stack and current environment,
+     * same globals, output, open files and tasks, AST and classes are shared as they are never changed while running
+     */
+    public Interpreter fork() {
+        return new Interpreter(this);
+    }
+
+    /**
+     * evaluate an expression, visitor pattern is the default dispatch
+     * @param expr expression to evaluate
+     * @return value of the expression
+     */
+    protected Object evaluate(Expr expr) {
+        return expr.accept(this);
+    }
+
+    /**
+     * execute a statement, visitor pattern is the default dispatch
+     * @param stmt statement to execute
+     */
+    protected void execute(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    @Override
+    public Object visitExpr(Expr.Assign expr) {
+        Object value = evaluate(expr.getValue());
+        int distance = expr.getDepth();
+        if (distance < 0) global.assign(expr.getName(), value);
+        else environment.assign(expr.getName(), value, distance);
+        return value;
+    }
+
+    @Override
+    public Object visitExpr(Expr.Set expr) {
+        Object instance = evaluate(expr.getObject());
+        if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(expr.getName(), "field only allowed for instance");
+        Object value = evaluate(expr.getValue());
+        loxInstance.set(expr.getName(), value, tasks.isConcurrent());
+        return value;
+    }
+
+    @Override
+    public Object visitExpr(Expr.Logical expr) {
+        Token operator = expr.getOperator();
+        Object left = evaluate(expr.getLeft());
+        if (operator.getType() == TokenType.OR) {
+            if (isTruthy(left)) return left;
+        } else {
+            if (!isTruthy(left)) return left;
+        }
+        return evaluate(expr.getRight());
+    }
+
+    @Override
+    public Object visitExpr(Expr.Binary expr) {
+        Object left = evaluate(expr.getLeft());
+        Object right = evaluate(expr.getRight());
+
+        Token token = expr.getOperator();
+        return switch (token.getType()) {
+            case MINUS -> {
+                checkNumber(token, "Operands for '-' should be number", left, right);
+                yield (double)left - (double)right;
+            }
+            case STAR -> {
+                checkNumber(token, "Operands for '*' should be number", left, right);
+                yield (double)left * (double)right;
+            }
+            case SLASH -> {
+                checkNumber(token, "Operands for '/' should be number", left, right);
+                if ((double)right != 0) yield (double)left / (double)right;
+                throw new ExecuteError(token, "Divisor should not be zero");
+            }
+            case PLUS -> {
+                if (isNumber(left, right)) yield (double)left + (double)right;
+                if (isString(left, right)) yield left + (String)right;
+                throw new ExecuteError(token, "Operands for '+' should be number or string");
+            }
+            case GREATER -> {
+                checkNumber(token, "Operands for '>' should be number", left, right);
+                yield (double)left > (double)right;
+            }
+            case GREATER_EQUAL -> {
+                checkNumber(token, "Operands for \">=\" should be number", left, right);
+                yield (double)left >= (double)right;
+            }
+            case LESS -> {
+                checkNumber(token, "Operands for '<' should be number", left, right);
+                yield (double)left < (double)right;
+            }
+            case LESS_EQUAL -> {
+                checkNumber(token, "Operands for \"<=\" should be number", left, right);
+                yield (double)left <= (double)right;
+            }
+            case EQUAL_EQUAL -> isEqual(left, right);
+            case BANG_EQUAL -> !isEqual(left, right);
+            // never reach
+            default -> throw new ExecuteError(token, "Unexpected binary operator");
+        };
+    }
+
+    @Override
+    public Object visitExpr(Expr.Unary expr) {
+        Object right = evaluate(expr.getRight());
+        Token token = expr.getOperator();
+        return switch (token.getType()) {
+            case MINUS -> {
+                checkNumber(token, "Operand for '-' should be number", right);
+                yield -(double)right;
+            }
+            case BANG -> !isTruthy(right);
+            // never reach
+            default -> throw new ExecuteError(token, "Unexpected unary operator");
+        };
+    }
+
+    @Override
+    public Object visitExpr(Expr.Call expr) {
+        Object callee = evaluate(expr.getCallee());
+        List<Expr> argLists = expr.getArguments();
+        int size = Math.min(argLists.size(), Lox.MAX_ARGS);
+        // linked natives take their arguments as they are, no List
+        if (callee instanceof NativeFunction function && function.arity() == size && size <= NativeFunction.FAST_ARITY) {
+            Object a = size > 0 ? evaluate(argLists.get(0)) : null;
+            Object b = size > 1 ? evaluate(argLists.get(1)) : null;
+            Object c = size > 2 ? evaluate(argLists.get(2)) : null;
+            return callNative(function, a, b, c, expr.getParen());
+        }
+        List<Object> arguments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) arguments.add(evaluate(argLists.get(i)));
+
+        if (!(callee instanceof LoxCallable function)) throw new ExecuteError(expr.getParen(), "callee is not callable");
+        if (function.arity() != arguments.size()) throw new ExecuteError(expr.getParen(), "function except:" + function.arity()+ " but got:" + arguments.size());
+
+        try {
+            return function.call(this, arguments);
+        } catch (NativeError error) {
+            throw new ExecuteError(expr.getParen(), error.getMessage());
+        }
+    }
+
+    @Override
+    public Object visitExpr(Expr.Grouping expr) {
+        return evaluate(expr.getExpression());
+    }
+
+    @Override
+    public Object visitExpr(Expr.Literal expr) {
+        return expr.getValue();
+    }
+
+    @Override
+    public Object visitExpr(Expr.Get expr) {
+        Object instance = evaluate(expr.getObject());
+        if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(expr.getName(), "property only allowed for an instance");
+        return loxInstance.get(expr.getName());
+    }
+
+    @Override
+    public Object visitExpr(Expr.Index expr) {
+        Object object = evaluate(expr.getObject());
+        return index(object, evaluate(expr.getIndex()), expr.getBracket());
+    }
+
+    @Override
+    public Object visitExpr(Expr.IndexSet expr) {
+        Object object = evaluate(expr.getObject());
+        Object index = evaluate(expr.getIndex());
+        Object value = evaluate(expr.getValue());
+        indexSet(object, index, value, expr.getBracket());
+        return value;
+    }
+
+    @Override
+    public Object visitExpr(Expr.Variable expr) {
+        return loopUp(expr, expr.getName());
+    }
+
+    @Override
+    public Object visitExpr(Expr.This expr) {
+        return loopUp(expr, expr.getKeyword());
+    }
+
+    @Override
+    public Object visitExpr(Expr.Super expr) {
+        int distance = expr.getDepth();
+        LoxClass supClass = (LoxClass) environment.get(expr.getKeyword(), distance);
+        LoxMethod method = supClass.getMethod(expr.getMethod().getLexeme());
+        if (method == null) throw new ExecuteError(expr.getMethod(), "undefined method " + expr.getMethod().getLexeme());
+        LoxInstance instance = (LoxInstance) environment.get("this", distance - 1);
+        return method.bind(instance);
+    }
+
+    private Object loopUp(Expr expr, Token name) {
+        int distance = expr.getDepth();
+        if (distance < 0) return global.get(name);
+        return environment.get(name, distance);
+    }
+
+    /**
+     * all kinds of object can be separated into true or false
+     * @param obj any kinds of object
+     * @return true or false based on Ruby lexical rules
+     */
+    protected boolean isTruthy(Object obj) {
+        if (obj == null) return false;
+        if (obj instanceof Boolean) return (boolean)obj;
+        return true;
+    }
+
+    /**
+     * @param obj all kinds of objects
+     * @return true on all objs are number
+     */
+    protected boolean isNumber(Object ... obj) {
+        for (Object o : obj) {
+            if (!(o instanceof Double)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param obj all kinds of objects
+     * @return true on all objs are number
+     */
+    protected boolean isString(Object ... obj) {
+        for (Object o : obj) {
+            if (!(o instanceof String)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * persistent vectors and maps are equal by value (their equals), other objects by identity
+     * @param arg1 one of the object
+     * @param arg2 the other object
+     * @return if two objects are equal
+     */
+    protected boolean isEqual(Object arg1, Object arg2) {
+        if (arg1 == null && arg2 == null) return true;
+        if (arg1 == null) return false;
+        return arg1.equals(arg2);
+    }
+
+    /**
+     * call linked native @param: function of arity up to 3 with the first arity of @param: a, @param: b, @param: c
+     * @throws ExecuteError at @param: paren if native fails
+     */
+    protected Object callNative(NativeFunction function, Object a, Object b, Object c, Token paren) {
+        try {
+            return switch (function.arity()) {
+                case 0 -> function.call();
+                case 1 -> function.call(a);
+                case 2 -> function.call(a, b);
+                default -> function.call(a, b, c);
+            };
+        } catch (NativeError error) {
+            throw new ExecuteError(paren, error.getMessage());
+        }
+    }
+
+    /**
+     * @return element of collection @param: object at @param: index
+     * @throws ExecuteError at @param: bracket if object can not be indexed, or index is not in it
+     */
+    protected Object index(Object object, Object index, Token bracket) {
+        try {
+            return Elements.get(object, index);
+        } catch (NativeError error) {
+            throw new ExecuteError(bracket, error.getMessage());
+        }
+    }
+
+    /**
+     * store @param: value in collection @param: object at @param: index, checked after value is evaluated like java does
+     * @throws ExecuteError at @param: bracket if object can not be changed, or index is not in it
+     */
+    protected void indexSet(Object object, Object index, Object value, Token bracket) {
+        try {
+            Elements.set(object, index, value);
+        } catch (NativeError error) {
+            throw new ExecuteError(bracket, error.getMessage());
+        }
+    }
+
+    /**
+     * wrapper function for @method: isNumber
+     * @param token raise an exception with token on NAN
+     * @param message raise an exception with message on NAN
+     * @param obj args for @method: isNumber
+     */
+    protected void checkNumber(Token token, String message, Object ... obj) {
+        if (!isNumber(obj)) throw new ExecuteError(token, message);
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Expression stmt) {
+        evaluate(stmt.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Print stmt) {
+        out.println(stringify(evaluate(stmt.getExpr())));
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Block stmt) {
+        executeBlock(stmt.getStatements(), new Environment(this.environment));
+        return null;
+    }
+
+    public void executeBlock(List<Stmt> statements, Environment environment) {
+        Environment previous = this.environment;
+        this.environment = environment;
+        try {
+            statements.forEach(this::execute);
+        } finally {
+            this.environment = previous;
+        }
+    }
+
+    @Override
+    public Void visitStmt(Stmt.If stmt) {
+        if (isTruthy(evaluate(stmt.getCondition()))) {
+            execute(stmt.getThenBranch());
+        } else if (stmt.getElseBranch() != null) {
+            execute(stmt.getElseBranch());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.While stmt) {
+        Expr condition = stmt.getCondition();
+        Stmt body = stmt.getBody();
+        while (isTruthy(evaluate(condition))) {
+            // a task left running when its run ends stops here
+            tasks.checkCancelled();
+            execute(body);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Return stmt) {
+        Object value = null;
+        if (stmt.getValue() != null) value = evaluate(stmt.getValue());
+        throw new Return(value);
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Var stmt) {
+        Object rst = null;
+
+        Expr initializer = stmt.getInitializer();
+        if (initializer != null) rst = evaluate(initializer);
+
+        environment.define(stmt.getName().getLexeme(), rst);
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Class stmt) {
+        LoxClass supClass = null;
+        if (stmt.getSup() != null) {
+            Object sup = evaluate(stmt.getSup());
+            if (!(sup instanceof LoxClass)) throw new ExecuteError(stmt.getSup().getName(), "superclass of a class must be a class");
+            supClass = (LoxClass) sup;
+        }
+        environment.define(stmt.getName().getLexeme(), null);
+        if (supClass != null) {
+            environment = new Environment(environment);
+            environment.define("super", supClass);
+        }
+        Map<String, LoxMethod> methods = new HashMap<>();
+        for (Stmt.Fun method : stmt.getMethods()) methods.put(method.getName().getLexeme(), new LoxFunction(method, environment, method.getName().getLexeme().equals("init")));
+
+        if (supClass != null) environment = environment.getEnclose();
+
+        LoxClass loxClass = new LoxClass(stmt.getName().getLexeme(), supClass, methods);
+        environment.assign(stmt.getName(), loxClass);
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Fun stmt) {
+        this.environment.define(stmt.getName().getLexeme(), new LoxFunction(stmt, this.environment, false));
+        return null;
+    }
+
+    /**
+     * stringify all kinds of lox object
+     * @param loxObj lox object
+     * @return string
+     */
+    public static String stringify(Object loxObj) {
+        if (loxObj == null) return "nil";
+
+        // when lox object is a number, lox should know if this is integer or double
+        if (loxObj instanceof Double) {
+            String rst = loxObj.toString();
+            if (rst.endsWith(".0")) return rst.substring(0, rst.length() - 2);
+            return rst;
+        }
+
+        return loxObj.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenSource;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * body of a function pre-parsed in lazy mode: Parser only checks braces are balanced and keeps where the body starts,
+ * statements are parsed and resolved on first access (usually the first call), so startup cost scales with code that runs
+ * resolution errors of a body are found when its declaration is resolved, Resolver checks its tokens (see Resolver.BodyCheck),
+ * syntax errors are reported on first access to the reporter of the parser that pre-parsed it, and the call fails with an ExecuteError
+ */
+public class LazyBody extends AbstractList<Stmt> {
+    private final TokenSource tokens;
+    // first token of body, right after '{'
+    private final int from;
+    private final Token name;
+    private final ErrorReporter reporter;
+    // resolver in the scopes function is declared in, set by Resolver, dropped once body is resolved
+    private Resolver resolver;
+    private List<Token> parameters;
+    private volatile List<Stmt> statements;
+
+    LazyBody(TokenSource tokens, int from, Token name, ErrorReporter reporter) {
+        this.tokens = tokens;
+        this.from = from;
+        this.name = name;
+        this.reporter = reporter;
+    }
+
+    /**
+     * body saved unparsed, e.g. in a snapshot, it stays unparsed until first access
+     * @param tokens body from the token after '{' to the closing '}'
+     * @param resolver resolver to resolve body with, null if body is not to be resolved
+     * @param parameters function parameters
+     */
+    public static LazyBody restore(List<Token> tokens, Token name, Resolver resolver, List<Token> parameters) {
+        List<Token> source = new ArrayList<>(tokens.size() + 1);
+        source.addAll(tokens);
+        Token last = tokens.isEmpty() ? name : tokens.get(tokens.size() - 1);
+        source.add(new Token("", TokenType.EOF, null, last.getLocationInfo().getLine(), last.getLocationInfo().getOffset()));
+        // snapshots are restored by command line only
+        LazyBody body = new LazyBody(TokenSource.of(source), 0, name, Lox::errorReport);
+        if (resolver != null) body.defer(resolver, parameters);
+        return body;
+    }
+
+    /**
+     * resolve body with @param: resolver once it is parsed
+     * @param resolver resolver holds a copy of scopes function is declared in
+     * @param parameters function parameters
+     */
+    void defer(Resolver resolver, List<Token> parameters) {
+        this.resolver = resolver;
+        this.parameters = parameters;
+    }
+
+    TokenSource source() {
+        return tokens;
+    }
+
+    int from() {
+        return from;
+    }
+
+    /**
+     * @return true if body has been parsed
+     */
+    public boolean isParsed() {
+        return statements != null;
+    }
+
+    /**
+     * @return tokens of body not parsed yet, from the token after '{' to the closing '}'
+     */
+    public List<Token> tokens() {
+        List<Token> body = new ArrayList<>();
+        int depth = 1;
+        for (int i = from; tokens.type(i) != TokenType.EOF; i++) {
+            TokenType type = tokens.type(i);
+            body.add(tokens.token(i));
+            if (type == TokenType.LEFT_BRACE) depth++;
+            else if (type == TokenType.RIGHT_BRACE && --depth == 0) break;
+        }
+        return body;
+    }
+
+    /**
+     * @return resolver body will be resolved with once it is parsed, null if it is parsed or not resolved at all
+     */
+    public Resolver resolver() {
+        return resolver;
+    }
+
+    @Override
+    public Stmt get(int index) {
+        return statements().get(index);
+    }
+
+    @Override
+    public int size() {
+        return statements().size();
+    }
+
+    @Override
+    public Iterator<Stmt> iterator() {
+        return statements().iterator();
+    }
+
+    private List<Stmt> statements() {
+        List<Stmt> body = statements;
+        if (body != null) return body;
+        // functions may be called from several threads, a body is parsed and resolved once
+        synchronized (this) {
+            if (statements == null) statements = parse();
+            return statements;
+        }
+    }
+
+    private List<Stmt> parse() {
+        List<Stmt> body = new Parser(tokens, from, reporter).body();
+        if (body == null) throw new ExecuteError(name, "function " + name.getLexeme() + " has syntax error");
+        if (resolver != null) {
+            if (!resolver.resolveBody(parameters, body)) throw new ExecuteError(name, "function " + name.getLexeme() + " can not be resolved");
+            resolver = null;
+            parameters = null;
+        }
+        return body;
+    }
+}
@@ -1,12 +1,24 @@
 package icu.buzz.lox;
 
+import icu.buzz.lox.arena.ArenaBuilder;
+import icu.buzz.lox.arena.ArenaInterpreter;
+import icu.buzz.lox.arena.ArenaResolver;
+import icu.buzz.lox.arena.AstArena;
+import icu.buzz.lox.cache.AstCache;
+import icu.buzz.lox.cache.HeapSnapshot;
+import icu.buzz.lox.exceptions.ScannerError;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.source.Utf8Source;
 import icu.buzz.lox.stmt.Stmt;
 import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenBuffer;
+import icu.buzz.lox.token.TokenSource;
+import icu.buzz.lox.token.TokenStream;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Lox {
@@ -14,13 +26,78 @@ public class Lox {
 
     public static final int MAX_ARGS = 255;
 
+    // run with flat AST (AstArena) instead of object tree, option: --arena
+    private static boolean arena = false;
+
+    // parse, resolve and execute top-level declarations one by one, option: --stream
+    private static boolean stream = false;
+
+    // function bodies are parsed and resolved on first call, option: --lazy
+    private static boolean lazy = false;
+
+    // resolved program of a script file is kept in an AstCache between runs, option: --cache
+    private static boolean cache = false;
+
+    // global environment of a prelude saved after the script runs, option: --snapshot file
+    private static Path snapshot = null;
+
+    // global environment the script starts with, restored from a snapshot, option: --restore file
+    private static Environment restored = null;
+
     /**
      * parse lox source file from path @param: path
      */
     private static void parseFile(String path) throws IOException {
-        byte[] buffer = Files.readAllBytes(Path.of(path));
-        // source file will be considered as coded in UTF-8
-        runLox(new String(buffer, StandardCharsets.UTF_8));
+        // source file will be considered as coded in UTF-8, it is mapped into memory instead of decoded into a string
+        Utf8Source source = Source.map(Path.of(path));
+        if (stream) runTokens(new TokenStream(new Scanner(source)));
+        else if (arena || lazy || !cache) runLox(source);
+        else runCached(source);
+    }
+
+    /**
+     * an unchanged script (same bytes, same interpreter version) is loaded from AstCache, scanner, parser and resolver are skipped,
+     * otherwise the program is built as usual and stored once it is resolved without error
+     */
+    private static void runCached(Utf8Source source) {
+        AstCache astCache = AstCache.standard();
+        // key is hashed from the mapped script, the file is not read again
+        byte[] key = AstCache.key(source.bytes());
+        List<Stmt> statements = astCache.load(key);
+        if (statements != null) {
+            execute(interpreter(statements));
+            return;
+        }
+        TokenBuffer tokens = new ParallelScanner(source).scan();
+        if (hasError) System.exit(65);
+        statements = new Parser(tokens).parse();
+        if (hasError) System.exit(65);
+        Interpreter interpreter = interpreter(statements);
+        new Resolver().resolveSource(statements);
+        if (hasError) System.exit(65);
+        astCache.store(key, statements);
+        execute(interpreter);
+    }
+
+    /**
+     * parse lox script read from standard input (e.g. a pipe), script is scanned while parser pulls tokens,
+     * so its size does not need to be known in advance
+     */
+    private static void parseStream() {
+        Reader reader = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        runTokens(new TokenStream(new Scanner(Source.stream(reader))));
+    }
+
+    /**
+     * run @param: tokens pulled while parsing, a scan error stops the script as it stops a scanned source
+     */
+    private static void runTokens(TokenStream tokens) {
+        try {
+            if (stream) runStream(tokens);
+            else runLox(tokens);
+        } catch (ScannerError error) {
+            System.exit(65);
+        }
     }
 
     /**
@@ -34,32 +111,145 @@ public class Lox {
             String script = reader.readLine();
             // user types Ctrl + D => EOF, command line terminates
             if (script == null) break;
-            runLox(script);
+            runLox(Source.of(script));
         }
     }
 
     /**
      * source will be considered as lox source file to execute
      */
-    private static void runLox(String source) {
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
+    private static void runLox(Source source) {
+        // large sources are scanned in parallel, small ones (e.g. a prompt line) sequentially
+        TokenBuffer tokens = new ParallelScanner(source).scan();
         if (hasError) System.exit(65);
-        Parser parser = new Parser(tokens);
+        runLox(tokens);
+    }
+
+    /**
+     * parse, resolve and execute @param: tokens, a token stream throws ScannerError at a scan error
+     */
+    private static void runLox(TokenSource tokens) {
+        if (arena) {
+            runArena(tokens);
+            return;
+        }
+        Parser parser = new Parser(tokens, lazy);
         List<Stmt> statements = parser.parse();
         if (hasError) System.exit(65);
-        Interpreter interpreter = new Interpreter(statements);
-        Resolver resolver = new Resolver(interpreter);
+        Interpreter interpreter = interpreter(statements);
+        Resolver resolver = new Resolver();
         resolver.resolveSource(statements);
         if (hasError) System.exit(65);
+        execute(interpreter);
+    }
+
+    /**
+     * interpreter starts with the restored global environment if there is one
+     */
+    private static Interpreter interpreter(List<Stmt> statements) {
+        return restored == null ? new Interpreter(statements) : new Interpreter(statements, restored);
+    }
+
+    /**
+     * run whole program, global environment is saved as snapshot if it is asked for and the program has no error
+     */
+    private static void execute(Interpreter interpreter) {
         interpreter.interpret();
+        if (snapshot != null) saveSnapshot(interpreter);
+    }
+
+    private static void saveSnapshot(Interpreter interpreter) {
+        if (hasError) return;
+        try {
+            HeapSnapshot.save(interpreter.getGlobal(), snapshot);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("snapshot " + snapshot + " can not be saved: " + e.getMessage());
+            System.exit(74);
+        }
+    }
+
+    /**
+     * source is flattened into an AstArena, resolved and executed on arena
+     */
+    private static void runArena(TokenSource tokens) {
+        Parser parser = new Parser(tokens);
+        AstArena ast = new AstArena();
+        ArenaBuilder builder = new ArenaBuilder(ast);
+        // object tree of a declaration becomes garbage as soon as it is flattened
+        for (Stmt stmt = parser.next(); stmt != null; stmt = parser.next()) builder.add(stmt);
+        if (hasError) System.exit(65);
+        ast.trim();
+        new ArenaResolver(ast).resolveSource();
+        if (hasError) System.exit(65);
+        new ArenaInterpreter(ast).interpret();
+    }
+
+    /**
+     * each top-level declaration is executed as soon as it is parsed and resolved,
+     * its AST becomes garbage afterwards unless a function or class declared by it is still reachable,
+     * so first output and peak memory do not depend on script length
+     * an error stops the script, declarations before it have already been executed
+     */
+    private static void runStream(TokenSource tokens) {
+        Parser parser = new Parser(tokens);
+        Interpreter interpreter = interpreter(List.of());
+        Resolver resolver = new Resolver();
+        boolean failed = false;
+        try {
+            for (Stmt stmt = parser.next(); stmt != null && !hasError; stmt = parser.next()) {
+                resolver.resolveSource(List.of(stmt));
+                if (hasError) break;
+                if (!interpreter.interpret(stmt)) {
+                    failed = true;
+                    break;
+                }
+            }
+        } finally {
+            // declarations already executed may have spawned tasks or written files, also when a later one has a scan error
+            interpreter.endRun();
+        }
+        if (failed) return;
+        if (hasError) System.exit(65);
+        if (snapshot != null) saveSnapshot(interpreter);
     }
 
     public static void main(String[] args) throws IOException {
-        if (args.length > 1) {
-            System.err.println("Usage: java Lox [script file]");
+        List<String> files = new ArrayList<>();
+        Path restore = null;
+        boolean usage = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--snapshot") || arg.equals("--restore")) {
+                if (i + 1 == args.length) usage = true;
+                else if (arg.equals("--snapshot")) snapshot = Path.of(args[++i]);
+                else restore = Path.of(args[++i]);
+            }
+            else if (arg.equals("--arena")) arena = true;
+            else if (arg.equals("--stream")) stream = true;
+            else if (arg.equals("--lazy")) lazy = true;
+            else if (arg.equals("--cache")) cache = true;
+            // "-" reads the script from standard input
+            else files.add(arg);
+        }
+        // an arena keeps every declaration, it can not be streamed
+        // lazy bodies are parsed from tokens kept in memory, tokens of a stream are dropped
+        boolean modes = (arena ? 1 : 0) + (stream ? 1 : 0) + (lazy ? 1 : 0) > 1 || lazy && files.contains("-");
+        // functions of an arena are not the object model a snapshot holds
+        if (arena && (snapshot != null || restore != null)) usage = true;
+        if (usage || files.size() > 1 || files.stream().anyMatch(file -> file.startsWith("--")) || modes) {
+            System.err.println("Usage: java Lox [--arena | --stream | --lazy] [--cache] [--restore snapshot] [--snapshot snapshot] [script file | -]");
             System.exit(64);
-        } else if (args.length == 1) parseFile(args[0]);
+        }
+        if (restore != null) {
+            try {
+                restored = HeapSnapshot.load(restore);
+            } catch (IOException e) {
+                System.err.println("snapshot " + restore + " can not be restored: " + e.getMessage());
+                System.exit(66);
+            }
+        }
+        if (files.size() == 1 && files.get(0).equals("-")) parseStream();
+        else if (files.size() == 1) parseFile(files.get(0));
         else parsePrompt();
     }
 
@@ -79,7 +269,7 @@ public class Lox {
      * @param message error message
      */
     public static void errorReport(int line, int column, String message) {
-        System.err.println("line [" + line + "] column [" + column + "] has Error: " + message);
+        System.err.println(ErrorReporter.format(line, column, message));
         hasError = true;
     }
 }
\ No newline at end of file
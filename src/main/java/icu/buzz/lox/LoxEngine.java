@@ -0,0 +1,45 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.exceptions.CompileError;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.token.TokenBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * entry point for embedding lox in a java program
+ * a script is compiled (scanned, parsed and resolved) once into a LoxScript, which can be executed any number of times,
+ * from any number of threads, nothing is reported to standard error and the jvm never exits
+ */
+public final class LoxEngine {
+    private LoxEngine() {}
+
+    /**
+     * @param source lox script
+     * @return compiled script
+     * @throws CompileError if script has scan, syntax or resolution errors, all of them are in the exception
+     */
+    public static LoxScript compile(String source) {
+        return compile(Source.of(source));
+    }
+
+    /**
+     * @param source lox script, e.g. a mapped file (Source.map)
+     * @return compiled script
+     * @throws CompileError if script has scan, syntax or resolution errors, all of them are in the exception
+     */
+    public static LoxScript compile(Source source) {
+        List<String> errors = new ArrayList<>();
+        ErrorReporter reporter = (line, column, message) -> errors.add(ErrorReporter.format(line, column, message));
+        TokenBuffer tokens = new Scanner(source, reporter).scan();
+        // like command line, each stage only runs if the ones before it found no error
+        if (!errors.isEmpty()) throw new CompileError(errors);
+        List<Stmt> statements = new Parser(tokens, false, reporter).parse();
+        if (!errors.isEmpty()) throw new CompileError(errors);
+        new Resolver(reporter).resolveSource(statements);
+        if (!errors.isEmpty()) throw new CompileError(errors);
+        return new LoxScript(statements);
+    }
+}
@@ -0,0 +1,123 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.exceptions.CompileError;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * run many independent scripts at once in one jvm, each in an isolated context:
+ * its own interpreter and globals, its own output buffer and error list, nothing goes to standard streams or exits the jvm
+ * by default every script gets a virtual thread when the runtime has them (java 21+, found reflectively, the build targets 17),
+ * otherwise scripts share a pool of platform threads sized to the cores
+ * interpreter holds no monitor while a script runs (print writes to its own buffer, clock only reads the time,
+ * channels block on java.util.concurrent locks), so a script never pins the carrier thread of its virtual thread
+ * tasks a script spawns write to the buffer of the script, tasks not awaited are cancelled when the script ends (see TaskGroup)
+ */
+public class LoxExecutor implements AutoCloseable {
+    private final ExecutorService executor;
+
+    public LoxExecutor() {
+        this(standardExecutor());
+    }
+
+    /**
+     * @param executor executor scripts run on, it is shut down by close
+     */
+    public LoxExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return a thread per task executor of virtual threads if runtime supports them, otherwise a pool of a thread per core
+     */
+    public static ExecutorService standardExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // a blocked script holds a platform thread, but most scripts are cpu bound, more threads than cores only add switching
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * @return true if scripts of the standard executor run on virtual threads
+     */
+    public static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * compile and run @param: source, compilation runs on the executor as well
+     */
+    public Future<LoxResult> submit(String source, Map<String, ?> bindings) {
+        return executor.submit(() -> {
+            LoxScript script;
+            try {
+                script = LoxEngine.compile(source);
+            } catch (CompileError error) {
+                return new LoxResult("", error.getErrors(), Map.of());
+            }
+            return run(script, bindings);
+        });
+    }
+
+    /**
+     * run compiled @param: script with @param: bindings
+     */
+    public Future<LoxResult> submit(LoxScript script, Map<String, ?> bindings) {
+        return executor.submit(() -> run(script, bindings));
+    }
+
+    private static LoxResult run(LoxScript script, Map<String, ?> bindings) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+        List<String> errors = List.of();
+        Map<String, Object> globals = Map.of();
+        try {
+            globals = script.execute(bindings, out);
+        } catch (ExecuteError error) {
+            errors = new ArrayList<>();
+            errors.add(ErrorReporter.format(error.getToken().getLocationInfo().getLine(), error.getToken().getLocationInfo().getOffset(), error.getMessage()));
+            // a file left open that could not be flushed after the error
+            for (Throwable suppressed : error.getSuppressed()) errors.add(suppressed.getMessage());
+        } catch (NativeError error) {
+            // a file left open could not be flushed when the script ended
+            errors = List.of(error.getMessage());
+        } catch (StackOverflowError error) {
+            // a runaway recursion only stops its own script
+            errors = List.of("stack overflow");
+        }
+        out.flush();
+        return new LoxResult(buffer.toString(StandardCharsets.UTF_8), List.copyOf(errors), globals);
+    }
+
+    /**
+     * stop accepting scripts, wait for submitted ones to finish
+     * an interrupt stops waiting, scripts still running go on, the interrupt flag is set again for the caller
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
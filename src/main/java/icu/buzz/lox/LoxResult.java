@@ -0,0 +1,19 @@
+package icu.buzz.lox;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * outcome of a script run by LoxExecutor
+ * @param output everything the script printed
+ * @param errors compile errors, or the runtime error that stopped the script, in the form of command line reports
+ * @param globals global variables after the run, empty if script could not be compiled or stopped on an error
+ */
+public record LoxResult(String output, List<String> errors, Map<String, Object> globals) {
+    /**
+     * @return true if script compiled and ran without error
+     */
+    public boolean ok() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.callable.foreign.Natives;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.stmt.Stmt;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * a compiled script, see LoxEngine
+ * it only holds the resolved AST, which is never changed while a script runs, so a script can be shared between threads
+ * every execution gets a fresh interpreter and global environment, executions do not see each other's variables
+ */
+public final class LoxScript {
+    private final List<Stmt> statements;
+
+    LoxScript(List<Stmt> statements) {
+        this.statements = List.copyOf(statements);
+    }
+
+    /**
+     * run script with no bindings
+     * @return global variables after the run
+     */
+    public Map<String, Object> execute() {
+        return execute(Map.of());
+    }
+
+    /**
+     * run script, @param: bindings are defined as global variables before the first statement
+     * binding values are lox values: null (nil), Boolean, Double, String or objects of an earlier run,
+     * other java numbers are converted to Double
+     * @return global variables after the run
+     * @throws ExecuteError on runtime error, its token tells where the error is
+     */
+    public Map<String, Object> execute(Map<String, ?> bindings) {
+        return execute(bindings, System.out);
+    }
+
+    /**
+     * run script like execute(@param: bindings), print statements write to @param: out
+     * when it ends, also on a runtime error, tasks it leaves running are cancelled and waited for,
+     * then files it leaves open are flushed and closed
+     * @throws NativeError if such a file can not be flushed
+     */
+    public Map<String, Object> execute(Map<String, ?> bindings, PrintStream out) {
+        Environment global = new Environment();
+        Natives.define(global);
+        Interpreter interpreter = new Interpreter(statements, global, out);
+        for (Map.Entry<String, ?> binding : bindings.entrySet()) {
+            Object value = value(binding.getValue());
+            // an object of another run may be used by a concurrent execution as well
+            if (value != null && !(value instanceof Boolean) && !(value instanceof Double) && !(value instanceof String)) interpreter.getTasks().share();
+            global.define(binding.getKey(), value);
+        }
+        try {
+            for (Stmt stmt : statements) interpreter.execute(stmt);
+        } catch (Throwable error) {
+            interpreter.getTasks().cancel();
+            try {
+                interpreter.getFiles().closeAll();
+            } catch (NativeError closeError) {
+                error.addSuppressed(closeError);
+            }
+            throw error;
+        }
+        interpreter.getTasks().cancel();
+        interpreter.getFiles().closeAll();
+        return global.getValues();
+    }
+
+    private static Object value(Object value) {
+        if (value instanceof Number number && !(value instanceof Double)) return number.doubleValue();
+        return value;
+    }
+}
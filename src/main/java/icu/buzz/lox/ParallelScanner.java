@@ -0,0 +1,164 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.token.TokenBuffer;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * scan a large source on a ForkJoinPool, tokens and errors are the same as Scanner.scan()
+ * source is split into chunks on line boundaries, every chunk is scanned as if it starts a line outside any string or comment,
+ * then a sequential fix-up walks chunks in order: when a string or comment of the previous chunk runs into a chunk,
+ * the chunk is rescanned from where the previous one really stops, until the rescan meets a token of the speculative scan
+ * lines of a chunk are counted from 1 and shifted by the fix-up, errors are reported after the fix-up in position order
+ * source must be fully available (string or mapped file), a stream source can not be split
+ */
+public class ParallelScanner {
+    // smaller chunks are not worth a task
+    private static final int MIN_CHUNK = 1 << 20;
+
+    private final Source source;
+    private final ForkJoinPool pool;
+    private final int chunks;
+    private final ErrorReporter reporter;
+
+    public ParallelScanner(Source source) {
+        this(source, Lox::errorReport);
+    }
+
+    /**
+     * @param reporter receiver of scan errors
+     */
+    public ParallelScanner(Source source, ErrorReporter reporter) {
+        this(source, ForkJoinPool.commonPool(), reporter);
+    }
+
+    public ParallelScanner(Source source, ForkJoinPool pool) {
+        this(source, pool, Lox::errorReport);
+    }
+
+    public ParallelScanner(Source source, ForkJoinPool pool, ErrorReporter reporter) {
+        // with a single worker, splitting only adds the cost of merging
+        this(source, pool, pool.getParallelism() < 2 ? 1 : Math.min(pool.getParallelism() * 4, source.length() / MIN_CHUNK), reporter);
+    }
+
+    /**
+     * @param chunks number of chunks, source is scanned sequentially if it is less than 2
+     */
+    public ParallelScanner(Source source, ForkJoinPool pool, int chunks) {
+        this(source, pool, chunks, Lox::errorReport);
+    }
+
+    public ParallelScanner(Source source, ForkJoinPool pool, int chunks, ErrorReporter reporter) {
+        this.source = source;
+        this.pool = pool;
+        this.chunks = chunks;
+        this.reporter = reporter;
+    }
+
+    /**
+     * scan the whole source
+     * @return token buffer ends with EOF
+     */
+    public TokenBuffer scan() {
+        if (chunks < 2) return new Scanner(source, reporter).scan();
+        int[] bounds = bounds();
+        List<Callable<Scanner>> tasks = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            // a line starts at column 0 after a newline outside strings and comments, only the first line starts at 1
+            int column = i == 0 ? 1 : 0;
+            tasks.add(() -> {
+                Scanner scanner = new Scanner(source, from, 1, column, (to - from) / 16 + 16);
+                scanner.scanChunk(to, null);
+                return scanner;
+            });
+        }
+        Scanner[] scanned = new Scanner[chunks];
+        int count = 1;
+        List<Future<Scanner>> futures = pool.invokeAll(tasks);
+        for (int i = 0; i < chunks; i++) {
+            scanned[i] = join(futures.get(i));
+            count += scanned[i].tokens().size();
+        }
+        return fixUp(bounds, scanned, count);
+    }
+
+    /**
+     * chunk i is [bounds[i], bounds[i + 1]), every bound except 0 and length is right after a newline
+     */
+    private int[] bounds() {
+        int length = source.length();
+        int[] bounds = new int[chunks + 1];
+        for (int i = 1; i < chunks; i++) {
+            int target = (int) ((long) length * i / chunks);
+            int bound = Math.min(source.indexOf('\n', target) + 1, length);
+            bounds[i] = Math.max(bound, bounds[i - 1]);
+        }
+        bounds[chunks] = length;
+        return bounds;
+    }
+
+    private TokenBuffer fixUp(int[] bounds, Scanner[] scanned, int count) {
+        TokenBuffer tokens = new TokenBuffer(source, count);
+        List<Scanner.ScanError> errors = new ArrayList<>();
+        // where scanning really stops so far, and line and column there
+        int position = 0;
+        int line = 1;
+        int column = 1;
+        for (int i = 0; i < chunks; i++) {
+            int from = bounds[i];
+            int to = bounds[i + 1];
+            // the whole chunk is inside a string or comment of an earlier chunk
+            if (position >= to) continue;
+            Scanner chunk = scanned[i];
+            TokenBuffer speculative = chunk.tokens();
+            int synced = 0;
+            int syncedStart = from;
+            int shift = line - 1;
+            if (position != from || column != (i == 0 ? 1 : 0)) {
+                Scanner rescan = new Scanner(source, position, line, column, 16);
+                synced = rescan.scanChunk(to, speculative);
+                tokens.append(rescan.tokens(), 0, 0);
+                errors.addAll(rescan.errors());
+                if (synced == speculative.size()) {
+                    position = rescan.position();
+                    line = rescan.line();
+                    column = rescan.column();
+                    continue;
+                }
+                syncedStart = speculative.start(synced);
+                shift = rescan.line() - speculative.line(synced);
+            }
+            tokens.append(speculative, synced, shift);
+            for (Scanner.ScanError error : chunk.errors()) {
+                if (error.position >= syncedStart) errors.add(new Scanner.ScanError(error.position, error.line + shift, error.column, error.message));
+            }
+            position = chunk.position();
+            line = chunk.line() + shift;
+            column = chunk.column();
+        }
+        tokens.add(TokenType.EOF, position, 0, line, column);
+        for (Scanner.ScanError error : errors) reporter.report(error.line, error.column, error.message);
+        return tokens;
+    }
+
+    private static Scanner join(Future<Scanner> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
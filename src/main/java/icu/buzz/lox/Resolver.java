@@ -1,281 +1,577 @@
-package icu.buzz.lox;
-
-import icu.buzz.lox.exceptions.ResolverError;
-import icu.buzz.lox.expr.Expr;
-import icu.buzz.lox.expr.ExprVisitor;
-import icu.buzz.lox.stmt.Stmt;
-import icu.buzz.lox.stmt.StmtVisitor;
-import icu.buzz.lox.token.Token;
-
-import java.util.*;
-
-public class Resolver implements ExprVisitor<Void>, StmtVisitor<Void> {
-    private enum FunctionType {
-        NONE,
-        FUNCTION,
-        METHOD,
-        INITIALIZER,
-    }
-
-    private enum ClassType {
-        NONE,
-        CLASS,
-        SUBCLASS,
-    }
-
-    private FunctionType currentFunc;
-    private ClassType currentClass;
-    private final List<Map<String, Boolean>> scopes;
-
-    private final Interpreter interpreter;
-
-    public Resolver(Interpreter interpreter) {
-        this.currentFunc = FunctionType.NONE;
-        this.currentClass = ClassType.NONE;
-        this.scopes = new ArrayList<>();
-        this.interpreter = interpreter;
-    }
-
-    public void resolveSource(List<Stmt> stmts) {
-        try {
-            resolve(stmts);
-        } catch (ResolverError error) {
-            Lox.errorReport(error.getToken(), error.getMessage());
-        }
-    }
-
-    private void resolve(Expr expr) {
-        expr.accept(this);
-    }
-
-    private void resolve(Stmt stmt) {
-        stmt.accept(this);
-    }
-
-    private void resolve(List<Stmt> stmts) {
-        stmts.forEach(stmt -> stmt.accept(this));
-    }
-
-    @Override
-    public Void visitExpr(Expr.Assign expr) {
-        resolve(expr.getValue());
-        resolveLocal(expr, expr.getName());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Set expr) {
-        resolve(expr.getObject());
-        resolve(expr.getValue());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Logical expr) {
-        resolve(expr.getLeft());
-        resolve(expr.getRight());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Binary expr) {
-        resolve(expr.getLeft());
-        resolve(expr.getRight());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Unary expr) {
-        resolve(expr.getRight());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Call expr) {
-        resolve(expr.getCallee());
-        expr.getArguments().forEach(this::resolve);
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Grouping expr) {
-        resolve(expr.getExpression());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Literal expr) {
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Get expr) {
-        resolve(expr.getObject());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Variable expr) {
-        if (!scopes.isEmpty()) {
-            Map<String, Boolean> scope = scopes.get(scopes.size() - 1);
-            if (scope.containsKey(expr.getName().getLexeme()) && scope.get(expr.getName().getLexeme()) == Boolean.FALSE) {
-                throw new ResolverError(expr.getName(), "cannot read variable from its initializer");
-            }
-        }
-        resolveLocal(expr, expr.getName());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.This expr) {
-        if (currentClass == ClassType.NONE) throw new ResolverError(expr.getKeyword(), "can not use 'this' outside a class");
-        resolveLocal(expr, expr.getKeyword());
-        return null;
-    }
-
-    @Override
-    public Void visitExpr(Expr.Super expr) {
-        return switch (currentClass) {
-            case NONE -> throw new ResolverError(expr.getMethod(), "can not use 'super' outside a class");
-            case CLASS -> throw new ResolverError(expr.getMethod(), "can not use 'super' inside a class without parent");
-            default -> {
-                resolveLocal(expr, expr.getKeyword());
-                yield null;
-            }
-        };
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Expression stmt) {
-        resolve(stmt.getExpr());
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Print stmt) {
-        resolve(stmt.getExpr());
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Block stmt) {
-        beginScope();
-        resolve(stmt.getStatements());
-        endScope();
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.If stmt) {
-        resolve(stmt.getCondition());
-        resolve(stmt.getThenBranch());
-        if (stmt.getElseBranch() != null) resolve(stmt.getElseBranch());
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Var stmt) {
-        declare(stmt.getName());
-        Expr initializer = stmt.getInitializer();
-        if (initializer != null) resolve(initializer);
-        define(stmt.getName());
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Class stmt) {
-        ClassType encloseType = this.currentClass;
-        this.currentClass = ClassType.CLASS;
-        declare(stmt.getName());
-        define(stmt.getName());
-        Expr.Variable sup = stmt.getSup();
-        if (sup != null) {
-            this.currentClass = ClassType.SUBCLASS;
-            if (sup.getName().getLexeme().equals(stmt.getName().getLexeme())) throw new ResolverError(sup.getName(), "a class can not inherit itself");
-            resolve(stmt.getSup());
-            beginScope();
-            scopes.get(scopes.size() - 1).put("super", true);
-        }
-        beginScope();
-        scopes.get(scopes.size() - 1).put("this", true);
-        stmt.getMethods().forEach(method -> resolveFunc(method, method.getName().getLexeme().equals("init") ? FunctionType.INITIALIZER : FunctionType.METHOD));
-        endScope();
-        if (sup != null) endScope();
-        this.currentClass = encloseType;
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Fun stmt) {
-        declare(stmt.getName());
-        define(stmt.getName());
-        resolveFunc(stmt, FunctionType.FUNCTION);
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.While stmt) {
-        resolve(stmt.getCondition());
-        resolve(stmt.getBody());
-        return null;
-    }
-
-    @Override
-    public Void visitStmt(Stmt.Return stmt) {
-        if (currentFunc == FunctionType.NONE) throw new ResolverError(stmt.getKeyword(), "can not return from top-level");
-        if (stmt.getValue() != null) {
-            if (currentFunc == FunctionType.INITIALIZER) throw new ResolverError(stmt.getKeyword(), "can not return value from initializer");
-            resolve(stmt.getValue());
-        }
-        return null;
-    }
-
-    /**
-     * offer a new scope
-     */
-    private void beginScope() {
-        scopes.add(new HashMap<>());
-    }
-
-    /**
-     * delete a scope
-     */
-    private void endScope() {
-        scopes.remove(scopes.size() - 1);
-    }
-
-    private void declare(Token name) {
-        if (this.scopes.isEmpty()) return;
-        Map<String, Boolean> scope = this.scopes.get(scopes.size() - 1);
-        if (scope.containsKey(name.getLexeme())) throw new ResolverError(name, "variable " + name.getLexeme() + " has already defined");
-        scope.put(name.getLexeme(), false);
-    }
-
-    private void define(Token name) {
-        if (this.scopes.isEmpty()) return;
-        this.scopes.get(scopes.size() - 1).put(name.getLexeme(), true);
-    }
-
-    private void resolveFunc(Stmt.Fun stmt, FunctionType type) {
-        FunctionType encloseType = this.currentFunc;
-        this.currentFunc = type;
-        beginScope();
-        for (Token parameter : stmt.getParameters()) {
-            declare(parameter);
-            define(parameter);
-        }
-        resolve(stmt.getBody());
-        endScope();
-        this.currentFunc = encloseType;
-    }
-
-    private void resolveLocal(Expr expr, Token name) {
-        for (int i = scopes.size() - 1; i >= 0; i--) {
-            Map<String, Boolean> scope = scopes.get(i);
-            if (scope.containsKey(name.getLexeme())) {
-                interpreter.resolve(expr, scopes.size() - 1 - i);
-                return;
-            }
-        }
-    }
-}
+package icu.buzz.lox;
+
+import icu.buzz.lox.exceptions.ResolverError;
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.expr.ExprVisitor;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.stmt.StmtVisitor;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenSource;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.*;
+
+public class Resolver implements ExprVisitor<Void>, StmtVisitor<Void> {
+    private enum FunctionType {
+        NONE,
+        FUNCTION,
+        METHOD,
+        INITIALIZER,
+    }
+
+    private enum ClassType {
+        NONE,
+        CLASS,
+        SUBCLASS,
+    }
+
+    private FunctionType currentFunc;
+    private ClassType currentClass;
+    private final List<Map<String, Boolean>> scopes;
+
+    private final ErrorReporter reporter;
+    // lazy bodies met by this resolver are checked already, it resolves a body that was checked with its enclosing one
+    private final boolean checked;
+
+    /**
+     * resolution depth is set on expressions themselves, so a resolved program can be run by any interpreter
+     */
+    public Resolver() {
+        this(Lox::errorReport);
+    }
+
+    /**
+     * @param reporter receiver of resolution errors
+     */
+    public Resolver(ErrorReporter reporter) {
+        this.currentFunc = FunctionType.NONE;
+        this.currentClass = ClassType.NONE;
+        this.scopes = new ArrayList<>();
+        this.reporter = reporter;
+        this.checked = false;
+    }
+
+    /**
+     * resolver of a lazy function body restored from a snapshot, body was checked by the run that saved it
+     */
+    private Resolver(ErrorReporter reporter, boolean checked) {
+        this.currentFunc = FunctionType.NONE;
+        this.currentClass = ClassType.NONE;
+        this.scopes = new ArrayList<>();
+        this.reporter = reporter;
+        this.checked = checked;
+    }
+
+    /**
+     * resolver of a lazy function body, scopes are copied, so names declared after the function stay invisible
+     * @param enclosing resolver at the function declaration
+     * @param type function type
+     */
+    private Resolver(Resolver enclosing, FunctionType type) {
+        this.currentFunc = type;
+        this.currentClass = enclosing.currentClass;
+        this.scopes = new ArrayList<>(enclosing.scopes.size());
+        for (Map<String, Boolean> scope : enclosing.scopes) scopes.add(new HashMap<>(scope));
+        this.reporter = enclosing.reporter;
+        this.checked = true;
+    }
+
+    /**
+     * resolver of a lazy function body restored from a snapshot, in the state functionType, classType and scopes saved
+     * @throws IllegalArgumentException if a type is not one of a resolver
+     */
+    public static Resolver deferred(int functionType, int classType, List<Map<String, Boolean>> scopes) {
+        FunctionType[] functionTypes = FunctionType.values();
+        ClassType[] classTypes = ClassType.values();
+        if (functionType < 0 || functionType >= functionTypes.length || classType < 0 || classType >= classTypes.length) {
+            throw new IllegalArgumentException("unknown resolver state " + functionType + ", " + classType);
+        }
+        Resolver resolver = new Resolver(Lox::errorReport, true);
+        resolver.currentFunc = functionTypes[functionType];
+        resolver.currentClass = classTypes[classType];
+        for (Map<String, Boolean> scope : scopes) resolver.scopes.add(new HashMap<>(scope));
+        return resolver;
+    }
+
+    /**
+     * @return kind of function being resolved, as an ordinal for deferred
+     */
+    public int functionType() {
+        return currentFunc.ordinal();
+    }
+
+    /**
+     * @return kind of class being resolved, as an ordinal for deferred
+     */
+    public int classType() {
+        return currentClass.ordinal();
+    }
+
+    /**
+     * @return names of every local scope, innermost last, and whether each name is defined yet
+     */
+    public List<Map<String, Boolean>> scopes() {
+        return Collections.unmodifiableList(scopes);
+    }
+
+    public void resolveSource(List<Stmt> stmts) {
+        try {
+            resolve(stmts);
+        } catch (ResolverError error) {
+            reporter.report(error.getToken(), error.getMessage());
+        }
+    }
+
+    private void resolve(Expr expr) {
+        expr.accept(this);
+    }
+
+    private void resolve(Stmt stmt) {
+        stmt.accept(this);
+    }
+
+    private void resolve(List<Stmt> stmts) {
+        stmts.forEach(stmt -> stmt.accept(this));
+    }
+
+    @Override
+    public Void visitExpr(Expr.Assign expr) {
+        resolve(expr.getValue());
+        resolveLocal(expr, expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Set expr) {
+        resolve(expr.getObject());
+        resolve(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Logical expr) {
+        resolve(expr.getLeft());
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Binary expr) {
+        resolve(expr.getLeft());
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Unary expr) {
+        resolve(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Call expr) {
+        resolve(expr.getCallee());
+        expr.getArguments().forEach(this::resolve);
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Grouping expr) {
+        resolve(expr.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Get expr) {
+        resolve(expr.getObject());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Index expr) {
+        resolve(expr.getObject());
+        resolve(expr.getIndex());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.IndexSet expr) {
+        resolve(expr.getObject());
+        resolve(expr.getIndex());
+        resolve(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Variable expr) {
+        if (!scopes.isEmpty()) {
+            Map<String, Boolean> scope = scopes.get(scopes.size() - 1);
+            if (scope.containsKey(expr.getName().getLexeme()) && scope.get(expr.getName().getLexeme()) == Boolean.FALSE) {
+                throw new ResolverError(expr.getName(), "cannot read variable from its initializer");
+            }
+        }
+        resolveLocal(expr, expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.This expr) {
+        if (currentClass == ClassType.NONE) throw new ResolverError(expr.getKeyword(), "can not use 'this' outside a class");
+        resolveLocal(expr, expr.getKeyword());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(Expr.Super expr) {
+        return switch (currentClass) {
+            case NONE -> throw new ResolverError(expr.getMethod(), "can not use 'super' outside a class");
+            case CLASS -> throw new ResolverError(expr.getMethod(), "can not use 'super' inside a class without parent");
+            default -> {
+                resolveLocal(expr, expr.getKeyword());
+                yield null;
+            }
+        };
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Expression stmt) {
+        resolve(stmt.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Print stmt) {
+        resolve(stmt.getExpr());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Block stmt) {
+        beginScope();
+        resolve(stmt.getStatements());
+        endScope();
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.If stmt) {
+        resolve(stmt.getCondition());
+        resolve(stmt.getThenBranch());
+        if (stmt.getElseBranch() != null) resolve(stmt.getElseBranch());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Var stmt) {
+        declare(stmt.getName());
+        Expr initializer = stmt.getInitializer();
+        if (initializer != null) resolve(initializer);
+        define(stmt.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Class stmt) {
+        ClassType encloseType = this.currentClass;
+        this.currentClass = ClassType.CLASS;
+        declare(stmt.getName());
+        define(stmt.getName());
+        Expr.Variable sup = stmt.getSup();
+        if (sup != null) {
+            this.currentClass = ClassType.SUBCLASS;
+            if (sup.getName().getLexeme().equals(stmt.getName().getLexeme())) throw new ResolverError(sup.getName(), "a class can not inherit itself");
+            resolve(stmt.getSup());
+            beginScope();
+            scopes.get(scopes.size() - 1).put("super", true);
+        }
+        beginScope();
+        scopes.get(scopes.size() - 1).put("this", true);
+        stmt.getMethods().forEach(method -> resolveFunc(method, method.getName().getLexeme().equals("init") ? FunctionType.INITIALIZER : FunctionType.METHOD));
+        endScope();
+        if (sup != null) endScope();
+        this.currentClass = encloseType;
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Fun stmt) {
+        declare(stmt.getName());
+        define(stmt.getName());
+        resolveFunc(stmt, FunctionType.FUNCTION);
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.While stmt) {
+        resolve(stmt.getCondition());
+        resolve(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitStmt(Stmt.Return stmt) {
+        if (currentFunc == FunctionType.NONE) throw new ResolverError(stmt.getKeyword(), "can not return from top-level");
+        if (stmt.getValue() != null) {
+            if (currentFunc == FunctionType.INITIALIZER) throw new ResolverError(stmt.getKeyword(), "can not return value from initializer");
+            resolve(stmt.getValue());
+        }
+        return null;
+    }
+
+    /**
+     * offer a new scope
+     */
+    private void beginScope() {
+        scopes.add(new HashMap<>());
+    }
+
+    /**
+     * delete a scope
+     */
+    private void endScope() {
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void declare(Token name) {
+        if (this.scopes.isEmpty()) return;
+        Map<String, Boolean> scope = this.scopes.get(scopes.size() - 1);
+        if (scope.containsKey(name.getLexeme())) throw new ResolverError(name, "variable " + name.getLexeme() + " has already defined");
+        scope.put(name.getLexeme(), false);
+    }
+
+    private void define(Token name) {
+        if (this.scopes.isEmpty()) return;
+        this.scopes.get(scopes.size() - 1).put(name.getLexeme(), true);
+    }
+
+    /**
+     * resolve a lazy function body once it is parsed
+     * @param parameters function parameters
+     * @param body statements of body
+     * @return false if an error has been reported
+     */
+    boolean resolveBody(List<Token> parameters, List<Stmt> body) {
+        try {
+            beginScope();
+            for (Token parameter : parameters) {
+                declare(parameter);
+                define(parameter);
+            }
+            resolve(body);
+            endScope();
+            return true;
+        } catch (ResolverError error) {
+            reporter.report(error.getToken(), error.getMessage());
+            return false;
+        }
+    }
+
+    private void resolveFunc(Stmt.Fun stmt, FunctionType type) {
+        if (stmt.getBody() instanceof LazyBody body) {
+            // errors are found now, like for a parsed body, so a program that can not be resolved never runs
+            if (!checked) new BodyCheck(body.source(), currentClass).function(stmt.getParameters(), body.from(), type);
+            // resolved when body is parsed, in the scopes as they are now
+            body.defer(new Resolver(this, type), stmt.getParameters());
+            return;
+        }
+        FunctionType encloseType = this.currentFunc;
+        this.currentFunc = type;
+        beginScope();
+        for (Token parameter : stmt.getParameters()) {
+            declare(parameter);
+            define(parameter);
+        }
+        resolve(stmt.getBody());
+        endScope();
+        this.currentFunc = encloseType;
+    }
+
+    private void resolveLocal(Expr expr, Token name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            Map<String, Boolean> scope = scopes.get(i);
+            if (scope.containsKey(name.getLexeme())) {
+                expr.setDepth(scopes.size() - 1 - i);
+                return;
+            }
+        }
+    }
+
+    /**
+     * finds in the tokens of a lazy function body the resolution errors that resolving its statements would find,
+     * without building them: a name declared twice in a scope, a variable read in its own initializer, this and super
+     * outside a class, a value returned from an initializer, a class inheriting itself
+     * a body with a syntax error is walked as far as it goes, the syntax error is reported when the body is parsed
+     */
+    private static final class BodyCheck {
+        private final TokenSource tokens;
+        // names declared in each scope, innermost last
+        private final List<Set<String>> scopes = new ArrayList<>();
+        private ClassType currentClass;
+        private int current;
+
+        private BodyCheck(TokenSource tokens, ClassType currentClass) {
+            this.tokens = tokens;
+            this.currentClass = currentClass;
+        }
+
+        /**
+         * check body of a function declared with @param: parameters, @param: from is the first token after '{'
+         */
+        private void function(List<Token> parameters, int from, FunctionType type) {
+            scopes.add(new HashSet<>());
+            for (Token parameter : parameters) {
+                if (!scopes.get(0).add(parameter.getLexeme())) throw new ResolverError(parameter, "variable " + parameter.getLexeme() + " has already defined");
+            }
+            current = from;
+            block(type);
+        }
+
+        /**
+         * walk statements of the innermost scope up to its '}' and close it
+         */
+        private void block(FunctionType type) {
+            for (;;) {
+                switch (tokens.type(current)) {
+                    case EOF -> {
+                        return;
+                    }
+                    case RIGHT_BRACE -> {
+                        current++;
+                        // a '}' of a class whose methods have a syntax error closes no scope of its own
+                        if (!scopes.isEmpty()) scopes.remove(scopes.size() - 1);
+                        return;
+                    }
+                    case LEFT_BRACE -> {
+                        current++;
+                        scopes.add(new HashSet<>());
+                        block(type);
+                    }
+                    case FOR -> {
+                        current++;
+                        // variable of a for loop is in a scope of its own around the loop
+                        if (tokens.type(current) == TokenType.LEFT_PAREN && tokens.type(current + 1) == TokenType.VAR) {
+                            current += 2;
+                            scopes.add(new HashSet<>());
+                            variable();
+                            scopes.remove(scopes.size() - 1);
+                        }
+                    }
+                    case VAR -> {
+                        current++;
+                        variable();
+                    }
+                    case FUN -> {
+                        current++;
+                        if (tokens.type(current) != TokenType.IDENTIFIER) continue;
+                        declare(current);
+                        current++;
+                        nested(FunctionType.FUNCTION);
+                    }
+                    case CLASS -> {
+                        current++;
+                        klass();
+                    }
+                    case RETURN -> {
+                        if (type == FunctionType.INITIALIZER && tokens.type(current + 1) != TokenType.SEMICOLON) {
+                            throw new ResolverError(tokens.token(current), "can not return value from initializer");
+                        }
+                        current++;
+                    }
+                    default -> {
+                        keyword();
+                        current++;
+                    }
+                }
+            }
+        }
+
+        /**
+         * current is the name after 'var', walk its initializer up to ';', an expression never holds one
+         */
+        private void variable() {
+            if (tokens.type(current) != TokenType.IDENTIFIER) return;
+            String name = declare(current);
+            current++;
+            if (tokens.type(current) != TokenType.EQUAL) return;
+            for (current++; tokens.type(current) != TokenType.SEMICOLON && tokens.type(current) != TokenType.EOF; current++) {
+                keyword();
+                // a name after '.' is a property, a name before '=' is assigned, neither reads the variable
+                if (tokens.type(current) == TokenType.IDENTIFIER && tokens.type(current - 1) != TokenType.DOT
+                        && tokens.type(current + 1) != TokenType.EQUAL && tokens.lexeme(current).equals(name)) {
+                    throw new ResolverError(tokens.token(current), "cannot read variable from its initializer");
+                }
+            }
+        }
+
+        /**
+         * check 'this' or 'super' at current
+         */
+        private void keyword() {
+            TokenType type = tokens.type(current);
+            if (type == TokenType.THIS && currentClass == ClassType.NONE) throw new ResolverError(tokens.token(current), "can not use 'this' outside a class");
+            if (type != TokenType.SUPER || currentClass == ClassType.SUBCLASS) return;
+            // reported at the method name, like Resolver does
+            Token method = tokens.token(tokens.type(current + 1) == TokenType.DOT && tokens.type(current + 2) == TokenType.IDENTIFIER ? current + 2 : current);
+            if (currentClass == ClassType.NONE) throw new ResolverError(method, "can not use 'super' outside a class");
+            throw new ResolverError(method, "can not use 'super' inside a class without parent");
+        }
+
+        /**
+         * current is the '(' after the name of a function or method, walk its parameters and body
+         */
+        private void nested(FunctionType type) {
+            if (tokens.type(current) != TokenType.LEFT_PAREN) return;
+            current++;
+            scopes.add(new HashSet<>());
+            for (; tokens.type(current) != TokenType.RIGHT_PAREN && tokens.type(current) != TokenType.EOF; current++) {
+                if (tokens.type(current) == TokenType.IDENTIFIER) declare(current);
+            }
+            if (tokens.type(current) == TokenType.RIGHT_PAREN && tokens.type(current + 1) == TokenType.LEFT_BRACE) {
+                current += 2;
+                block(type);
+            } else scopes.remove(scopes.size() - 1);
+        }
+
+        /**
+         * current is the name after 'class', walk its methods up to the '}' of the class
+         */
+        private void klass() {
+            if (tokens.type(current) != TokenType.IDENTIFIER) return;
+            String name = declare(current);
+            current++;
+            ClassType enclosing = currentClass;
+            currentClass = ClassType.CLASS;
+            if (tokens.type(current) == TokenType.LESS && tokens.type(current + 1) == TokenType.IDENTIFIER) {
+                if (tokens.lexeme(current + 1).equals(name)) throw new ResolverError(tokens.token(current + 1), "a class can not inherit itself");
+                currentClass = ClassType.SUBCLASS;
+                current += 2;
+            }
+            if (tokens.type(current) == TokenType.LEFT_BRACE) {
+                current++;
+                while (tokens.type(current) == TokenType.IDENTIFIER) {
+                    FunctionType type = tokens.lexeme(current).equals("init") ? FunctionType.INITIALIZER : FunctionType.METHOD;
+                    current++;
+                    nested(type);
+                }
+                if (tokens.type(current) == TokenType.RIGHT_BRACE) current++;
+            }
+            currentClass = enclosing;
+        }
+
+        /**
+         * declare name at @param: index in the innermost scope
+         * @return name
+         */
+        private String declare(int index) {
+            String name = tokens.lexeme(index);
+            if (scopes.isEmpty()) scopes.add(new HashSet<>());
+            if (!scopes.get(scopes.size() - 1).add(name)) throw new ResolverError(tokens.token(index), "variable " + name + " has already defined");
+            return name;
+        }
+    }
+}
@@ -1,282 +1,471 @@
-package icu.buzz.lox;
-
-import icu.buzz.lox.token.Token;
-import icu.buzz.lox.token.TokenType;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-public class Scanner {
-    private static final Map<String, TokenType> keywords;
-    private final String source;
-    private final List<Token> tokenList;
-    // start position of a token
-    private int start;
-    // current position while scanning
-    private int current;
-    // current line while scanning
-    private int line;
-    // valid column starts from 1
-    // start column of a token
-    private int column;
-    // current column while scanning
-    private int cur_column;
-
-    static {
-        // "while" is the last keyword token, "and" is the first keyword token
-        keywords = new HashMap<>(TokenType.WHILE.ordinal() - TokenType.AND.ordinal() + 1);
-        keywords.put("and", TokenType.AND);
-        keywords.put("class", TokenType.CLASS);
-        keywords.put("else", TokenType.ELSE);
-        keywords.put("false", TokenType.FALSE);
-        keywords.put("fun", TokenType.FUN);
-        keywords.put("for", TokenType.FOR);
-        keywords.put("if", TokenType.IF);
-        keywords.put("nil", TokenType.NIL);
-        keywords.put("or", TokenType.OR);
-        keywords.put("print", TokenType.PRINT);
-        keywords.put("return", TokenType.RETURN);
-        keywords.put("super", TokenType.SUPER);
-        keywords.put("this", TokenType.THIS);
-        keywords.put("true", TokenType.TRUE);
-        keywords.put("var", TokenType.VAR);
-        keywords.put("while", TokenType.WHILE);
-    }
-
-    public Scanner(String source) {
-        this.source = source;
-        tokenList = new ArrayList<>();
-        this.start = 0;
-        this.current = 0;
-        this.line = 1;
-        this.column = 1;
-        this.cur_column = 1;
-    }
-
-    public List<Token> scanTokens() {
-        for (; notEnd(); start = current, column = cur_column) scanToken();
-        tokenList.add(new Token("", TokenType.EOF, null, line, column));
-        return tokenList;
-    }
-
-    private void scanToken() {
-        char c = advance();
-        switch (c) {
-            // these cases are used for single character (except for '/')
-            case '(' -> addToken(TokenType.LEFT_PAREN);
-            case ')' -> addToken(TokenType.RIGHT_PAREN);
-            case '{' -> addToken(TokenType.LEFT_BRACE);
-            case '}' -> addToken(TokenType.RIGHT_BRACE);
-            case ',' -> addToken(TokenType.COMMA);
-            case '.' -> addToken(TokenType.DOT);
-            case '-' -> addToken(TokenType.MINUS);
-            case '+' -> addToken(TokenType.PLUS);
-            case ';' -> addToken(TokenType.SEMICOLON);
-            case '*' -> addToken(TokenType.STAR);
-
-            // these cases are used for single or double characters
-            case '!' -> {
-                if (match('=')) addToken(TokenType.BANG_EQUAL);
-                else addToken(TokenType.BANG);
-            }
-            case '=' -> {
-                if (match('=')) addToken(TokenType.EQUAL_EQUAL);
-                else addToken(TokenType.EQUAL);
-            }
-            case '>' -> {
-                if (match('=')) addToken(TokenType.GREATER_EQUAL);
-                else addToken(TokenType.GREATER);
-            }
-            case '<' -> {
-                if (match('=')) addToken(TokenType.LESS_EQUAL);
-                else addToken(TokenType.LESS);
-            }
-
-            // case for slash symbol, slash may construct a comment
-            case '/' -> scanSlash();
-
-            // blank character
-            case ' ', '\r', '\t' -> {}
-            // newline character
-            case '\n' -> {
-                line++;
-                cur_column = 0;
-            }
-
-            // string literal
-            case '"' -> scanString();
-
-            default -> {
-                // number literal
-                if (isDigit(c)) scanNumber();
-                else if (isAlpha(c)) scanIdentifier();
-
-                else Lox.errorReport(line, column, "Unexpected character");
-            }
-        }
-
-    }
-
-    private void scanString() {
-        char next_char;
-        while ((next_char = peek(0)) != '\0' && next_char != '"')  {
-            if (next_char == '\n') {
-                line++;
-                cur_column = 0;
-            }
-            advance();
-        }
-        // error report
-        if (next_char == '\0') {
-            Lox.errorReport(line, column, "Unterminated string");
-            return;
-        }
-        advance();
-        // trim the source without ""
-        addToken(TokenType.STRING, source.substring(start + 1, current - 1));
-    }
-
-    private void scanNumber() {
-        char next_char;
-        while (isDigit(next_char = peek(0))) advance();
-
-        if (next_char == '.') {
-            if (isDigit(peek(1))) {
-                advance();
-                while (isDigit(peek(0))) advance();
-            }
-            else {
-                Lox.errorReport(line, column, "Unexpected symbol '.' without tailing digital number");
-                return;
-            }
-        }
-        // parse all number token into double value
-        addToken(TokenType.NUMBER, Double.parseDouble(source.substring(start, current)));
-    }
-
-    private void scanSlash() {
-        if (match('/')) {
-            // single line comment
-            while (notEnd() && peek(0) != '\n') advance();
-            if (notEnd()) advance();
-            line++;
-            cur_column = 0;
-        } else if (match('*')) {
-            // multiple line comment
-            int flag = 0;
-            for (char next_char = peek(0), next_next_char = peek(1);
-                 next_char != '\0' && next_next_char != '\0';
-                 advance(), next_char = peek(0), next_next_char = peek(1)) {
-                if (next_char == '*' && next_next_char == '/') {
-                    flag = 1;
-                    break;
-                }
-                if (next_char == '\n') {
-                    line++;
-                    cur_column = 0;
-                }
-            }
-            if (flag == 1) {
-                // flip to next_char => '*'
-                advance();
-                // flip to next_next_char => '/'
-                advance();
-            } else Lox.errorReport(line, column, "Unterminated comment");
-        } else addToken(TokenType.SLASH);
-    }
-
-    private void scanIdentifier() {
-        while (isAlphaNumeric(peek(0))) advance();
-
-        String value = source.substring(start, current);
-        addToken(keywords.getOrDefault(value, TokenType.IDENTIFIER));
-    }
-
-    /**
-     * find if @param: c is digit number
-     * @param c target character
-     * @return comparison result
-     */
-    private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
-    }
-
-    /**
-     * find if @param: c is an alpha => letter or underscore
-     * @param c target character
-     * @return comparison result
-     */
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') ||
-                (c >= 'A' && c <= 'Z') ||
-                c == '_';
-    }
-
-    /**
-     * find if @param: c is an alpha or number
-     * @param c target character
-     * @return comparison result
-     */
-    private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
-    }
-
-    /**
-     * find if current has reach the end
-     * @return comparison result
-     */
-    private boolean notEnd() {
-        return current != source.length();
-    }
-
-    /**
-     * find if current character is the same as @param: target
-     * @param target target character
-     * @return comparison result
-     */
-    private boolean match(char target) {
-        if (current == source.length()) return false;
-        if (source.charAt(current) != target) return false;
-        current++;
-        cur_column++;
-        return true;
-    }
-
-    /**
-     * peek next with bias
-     * @param offset offset from current
-     * @return peek the character at current + @param: offset
-     */
-    private char peek(int offset) {
-        return current + offset >= source.length() ? '\0' : source.charAt(current + offset);
-    }
-
-    /**
-     * fetch character and flip current
-     * @return character at current
-     */
-    private char advance() {
-        cur_column++;
-        return source.charAt(current++);
-    }
-
-    /**
-     * add a token to token list with @param: type
-     * @param type token type
-     */
-    private void addToken(TokenType type) {
-        addToken(type, null);
-    }
-
-    /**
-     * add a token to token list with @param: type, @param: literal
-     * @param type token type
-     * @param literal token literal => generally literal is null, except for literal-type token
-     */
-    private void addToken(TokenType type, Object literal) {
-        String lexeme = source.substring(start, current);
-        tokenList.add(new Token(lexeme, type, literal, line, column));
-    }
-}
+package icu.buzz.lox;
+
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenBuffer;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Scanner {
+    private final Source source;
+    // batch mode only, tokens pulled one by one (nextToken) are never buffered
+    private TokenBuffer tokens;
+    // token produced by the last scanToken in pull mode
+    private Token scanned;
+    // start position of a token
+    private int start;
+    // current position while scanning
+    private int current;
+    // current line while scanning
+    private int line;
+    // valid column starts from 1
+    // start column of a token
+    private int column;
+    // current column while scanning
+    private int cur_column;
+    // chunk mode only, errors are kept until ParallelScanner knows the chunk is scanned from the right state
+    private List<ScanError> errors;
+    private final ErrorReporter reporter;
+    // an error has been reported (chunk mode keeps its errors instead)
+    private boolean hasError;
+
+    /**
+     * an error found while scanning a chunk
+     */
+    static final class ScanError {
+        // start position of the code being scanned, errors are reported in position order
+        final int position;
+        final int line;
+        final int column;
+        final String message;
+
+        ScanError(int position, int line, int column, String message) {
+            this.position = position;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+    }
+
+    public Scanner(String source) {
+        this(Source.of(source));
+    }
+
+    public Scanner(Source source) {
+        this(source, Lox::errorReport);
+    }
+
+    /**
+     * @param reporter receiver of scan errors
+     */
+    public Scanner(Source source, ErrorReporter reporter) {
+        this.source = source;
+        this.reporter = reporter;
+        this.start = 0;
+        this.current = 0;
+        this.line = 1;
+        this.column = 1;
+        this.cur_column = 1;
+    }
+
+    /**
+     * scanner for a chunk of source starting at @param: from, see ParallelScanner
+     * @param from start position of the chunk
+     * @param line line number at @param: from
+     * @param column column at @param: from
+     * @param capacity initial capacity of token buffer
+     */
+    Scanner(Source source, int from, int line, int column, int capacity) {
+        this(source);
+        this.start = from;
+        this.current = from;
+        this.line = line;
+        this.column = column;
+        this.cur_column = column;
+        this.tokens = new TokenBuffer(source, capacity);
+        this.errors = new ArrayList<>();
+    }
+
+    public List<Token> scanTokens() {
+        return scan().toList();
+    }
+
+    /**
+     * scan the whole source into a token buffer, lexemes and literals are not built while scanning
+     * @return token buffer ends with EOF
+     */
+    public TokenBuffer scan() {
+        tokens = new TokenBuffer(source);
+        for (; notEnd(); start = current, column = cur_column) scanToken();
+        tokens.add(TokenType.EOF, current, 0, line, column);
+        return tokens;
+    }
+
+    /**
+     * pull the next token, source before the token is released once it is built
+     * a stream source therefore only holds the token being scanned
+     * @return next token, EOF (again and again) at the end of source
+     */
+    public Token nextToken() {
+        scanned = null;
+        for (; scanned == null && notEnd(); start = current, column = cur_column) {
+            source.release(start);
+            scanToken();
+        }
+        if (scanned != null) return scanned;
+        source.release(current);
+        return TokenBuffer.token(source, TokenType.EOF, current, 0, line, column);
+    }
+
+    /**
+     * scan every token starts in [current, @param: to), the last one may end after @param: to
+     * when @param: scanned (a speculative scan of the same chunk) is given, scanning stops at its first token (except strings)
+     * that starts where this scan starts a token at the same column, from there both scans produce the same tokens
+     * @param to end of chunk
+     * @param scanned speculative tokens of the chunk, or null
+     * @return index of the token in @param: scanned where scanning stops, size of @param: scanned if scanning never meets it
+     */
+    int scanChunk(int to, TokenBuffer scanned) {
+        int next = 0;
+        for (; current < to && notEnd(); start = current, column = cur_column) {
+            if (scanned != null) {
+                while (next < scanned.size() && scanned.start(next) < start) next++;
+                // line of a string token is where it ends, only other tokens tell the line at their start
+                if (next < scanned.size() && scanned.start(next) == start && scanned.column(next) == column
+                        && scanned.type(next) != TokenType.STRING) return next;
+            }
+            scanToken();
+        }
+        return scanned == null ? 0 : scanned.size();
+    }
+
+    TokenBuffer tokens() {
+        return tokens;
+    }
+
+    List<ScanError> errors() {
+        return errors;
+    }
+
+    /**
+     * @return position where scanning stops
+     */
+    int position() {
+        return current;
+    }
+
+    int line() {
+        return line;
+    }
+
+    int column() {
+        return column;
+    }
+
+    private void scanToken() {
+        char c = advance();
+        switch (c) {
+            // these cases are used for single character (except for '/')
+            case '(' -> addToken(TokenType.LEFT_PAREN);
+            case ')' -> addToken(TokenType.RIGHT_PAREN);
+            case '{' -> addToken(TokenType.LEFT_BRACE);
+            case '}' -> addToken(TokenType.RIGHT_BRACE);
+            case '[' -> addToken(TokenType.LEFT_BRACKET);
+            case ']' -> addToken(TokenType.RIGHT_BRACKET);
+            case ',' -> addToken(TokenType.COMMA);
+            case '.' -> addToken(TokenType.DOT);
+            case '-' -> addToken(TokenType.MINUS);
+            case '+' -> addToken(TokenType.PLUS);
+            case ';' -> addToken(TokenType.SEMICOLON);
+            case '*' -> addToken(TokenType.STAR);
+
+            // these cases are used for single or double characters
+            case '!' -> {
+                if (match('=')) addToken(TokenType.BANG_EQUAL);
+                else addToken(TokenType.BANG);
+            }
+            case '=' -> {
+                if (match('=')) addToken(TokenType.EQUAL_EQUAL);
+                else addToken(TokenType.EQUAL);
+            }
+            case '>' -> {
+                if (match('=')) addToken(TokenType.GREATER_EQUAL);
+                else addToken(TokenType.GREATER);
+            }
+            case '<' -> {
+                if (match('=')) addToken(TokenType.LESS_EQUAL);
+                else addToken(TokenType.LESS);
+            }
+
+            // case for slash symbol, slash may construct a comment
+            case '/' -> scanSlash();
+
+            // blank character
+            case ' ', '\r', '\t' -> {
+                // blank characters are ASCII, one column each
+                int end = source.skipBlank(current);
+                cur_column += end - current;
+                current = end;
+            }
+            // newline character
+            case '\n' -> {
+                line++;
+                cur_column = 0;
+            }
+
+            // string literal
+            case '"' -> scanString();
+
+            default -> {
+                // number literal
+                if (isDigit(c)) scanNumber();
+                else if (isAlpha(c)) scanIdentifier();
+
+                else {
+                    // a non-ASCII character takes several code units in UTF-8 source, report it once
+                    while (notEnd() && source.width(current) == 0) advance();
+                    error("Unexpected character");
+                }
+            }
+        }
+
+    }
+
+    private void scanString() {
+        // string content is skipped in bulk, see skipTo
+        skipTo(source.indexOf('"', current));
+        // error report
+        if (!notEnd()) {
+            error("Unterminated string");
+            return;
+        }
+        advance();
+        // literal value (source without "") is built by token buffer
+        addToken(TokenType.STRING);
+    }
+
+    private void scanNumber() {
+        char next_char;
+        while (isDigit(next_char = peek(0))) advance();
+
+        if (next_char == '.') {
+            if (isDigit(peek(1))) {
+                advance();
+                while (isDigit(peek(0))) advance();
+            }
+            else {
+                error("Unexpected symbol '.' without tailing digital number");
+                return;
+            }
+        }
+        // all number token will be parsed into double value by token buffer
+        addToken(TokenType.NUMBER);
+    }
+
+    private void scanSlash() {
+        if (match('/')) {
+            // single line comment
+            current = source.indexOf('\n', current);
+            if (notEnd()) advance();
+            line++;
+            cur_column = 0;
+        } else if (match('*')) {
+            // multiple line comment, jump from '*' to '*' until "*/"
+            for (;;) {
+                int star = source.indexOf('*', current);
+                if (!source.has(star + 1)) {
+                    // unterminated, the last code unit is left to scanToken
+                    skipTo(source.has(star) ? star : Math.max(current, star - 1));
+                    error("Unterminated comment");
+                    return;
+                }
+                skipTo(star);
+                // comment text is never read again, a long comment does not pile up in a stream source
+                if (tokens == null) source.release(current);
+                advance();
+                if (match('/')) return;
+            }
+        } else addToken(TokenType.SLASH);
+    }
+
+    private void scanIdentifier() {
+        while (isAlphaNumeric(peek(0))) advance();
+        addToken(identifierType());
+    }
+
+    /**
+     * find keyword type of the identifier in [start, current) without building its lexeme
+     * @return keyword type, or IDENTIFIER
+     */
+    private TokenType identifierType() {
+        int length = current - start;
+        return switch (source.charAt(start)) {
+            case 'a' -> keyword(1, "nd", TokenType.AND);
+            case 'c' -> keyword(1, "lass", TokenType.CLASS);
+            case 'e' -> keyword(1, "lse", TokenType.ELSE);
+            case 'f' -> {
+                if (length == 1) yield TokenType.IDENTIFIER;
+                yield switch (source.charAt(start + 1)) {
+                    case 'a' -> keyword(2, "lse", TokenType.FALSE);
+                    case 'o' -> keyword(2, "r", TokenType.FOR);
+                    case 'u' -> keyword(2, "n", TokenType.FUN);
+                    default -> TokenType.IDENTIFIER;
+                };
+            }
+            case 'i' -> keyword(1, "f", TokenType.IF);
+            case 'n' -> keyword(1, "il", TokenType.NIL);
+            case 'o' -> keyword(1, "r", TokenType.OR);
+            case 'p' -> keyword(1, "rint", TokenType.PRINT);
+            case 'r' -> keyword(1, "eturn", TokenType.RETURN);
+            case 's' -> keyword(1, "uper", TokenType.SUPER);
+            case 't' -> {
+                if (length == 1) yield TokenType.IDENTIFIER;
+                yield switch (source.charAt(start + 1)) {
+                    case 'h' -> keyword(2, "is", TokenType.THIS);
+                    case 'r' -> keyword(2, "ue", TokenType.TRUE);
+                    default -> TokenType.IDENTIFIER;
+                };
+            }
+            case 'v' -> keyword(1, "ar", TokenType.VAR);
+            case 'w' -> keyword(1, "hile", TokenType.WHILE);
+            default -> TokenType.IDENTIFIER;
+        };
+    }
+
+    /**
+     * @param offset length of the matched keyword prefix
+     * @param rest rest of the keyword
+     * @param type keyword type
+     * @return @param: type if identifier in [start, current) equals to the keyword, IDENTIFIER otherwise
+     */
+    private TokenType keyword(int offset, String rest, TokenType type) {
+        if (current - start != offset + rest.length()) return TokenType.IDENTIFIER;
+        for (int i = 0; i < rest.length(); i++) {
+            if (source.charAt(start + offset + i) != rest.charAt(i)) return TokenType.IDENTIFIER;
+        }
+        return type;
+    }
+
+    /**
+     * find if @param: c is digit number
+     * @param c target character
+     * @return comparison result
+     */
+    private boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * find if @param: c is an alpha => letter or underscore
+     * @param c target character
+     * @return comparison result
+     */
+    private boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') ||
+                c == '_';
+    }
+
+    /**
+     * find if @param: c is an alpha or number
+     * @param c target character
+     * @return comparison result
+     */
+    private boolean isAlphaNumeric(char c) {
+        return isAlpha(c) || isDigit(c);
+    }
+
+    /**
+     * find if current has reach the end
+     * @return comparison result
+     */
+    private boolean notEnd() {
+        return source.has(current);
+    }
+
+    /**
+     * report an error at the current token, or keep it in chunk mode
+     * @param message error message
+     */
+    private void error(String message) {
+        if (errors != null) errors.add(new ScanError(start, line, column, message));
+        else {
+            reporter.report(line, column, message);
+            hasError = true;
+        }
+    }
+
+    /**
+     * @return true if an error has been reported, e.g. while pulling tokens
+     */
+    public boolean hasError() {
+        return hasError;
+    }
+
+    /**
+     * skip the content of a string or comment up to @param: to, no token starts in it
+     * lines and columns are counted a line at a time instead of a code unit at a time
+     * @param to end position (exclusive)
+     */
+    private void skipTo(int to) {
+        for (int newline = nextLine(to); newline < to; newline = nextLine(to)) {
+            line++;
+            // column just after a newline inside a string or comment
+            cur_column = 1;
+            current = newline + 1;
+        }
+        cur_column += source.columns(current, to);
+        current = to;
+    }
+
+    /**
+     * @return position of the first newline in [current, @param: to), to if there is none
+     * the search stops at to, a stream source is not read past the string or comment being skipped,
+     * every code unit is searched once as current moves on
+     */
+    private int nextLine(int to) {
+        return source.indexOf('\n', current, to);
+    }
+
+    /**
+     * find if current character is the same as @param: target
+     * @param target target character
+     * @return comparison result
+     */
+    private boolean match(char target) {
+        if (!source.has(current)) return false;
+        if (source.charAt(current) != target) return false;
+        current++;
+        cur_column++;
+        return true;
+    }
+
+    /**
+     * peek next with bias
+     * @param offset offset from current
+     * @return peek the character at current + @param: offset
+     */
+    private char peek(int offset) {
+        return source.has(current + offset) ? source.charAt(current + offset) : '\0';
+    }
+
+    /**
+     * fetch character and flip current
+     * @return character at current
+     */
+    private char advance() {
+        cur_column += source.width(current);
+        return source.charAt(current++);
+    }
+
+    /**
+     * add a token in [start, current) to token buffer with @param: type, or build it right away in pull mode
+     * @param type token type
+     */
+    private void addToken(TokenType type) {
+        if (tokens != null) tokens.add(type, start, current - start, line, column);
+        else scanned = TokenBuffer.token(source, type, start, current - start, line, column);
+    }
+}
@@ -0,0 +1,63 @@
+package icu.buzz.lox;
+
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.stmt.Stmt;
+
+import java.util.List;
+
+/**
+ * interpreter dispatches on node kind instead of visitor pattern
+ * Expr and Stmt are sealed hierarchies of final classes, after switch on kind, the cast target is exact,
+ * so visitExpr/visitStmt is a direct call and can be inlined into the switch
+ * (pattern matching switch is preview in java 17, switch on kind is the non-preview equivalent)
+ */
+public class SwitchInterpreter extends Interpreter {
+
+    public SwitchInterpreter(List<Stmt> statements) {
+        super(statements);
+    }
+
+    private SwitchInterpreter(SwitchInterpreter parent) {
+        super(parent);
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new SwitchInterpreter(this);
+    }
+
+    @Override
+    protected Object evaluate(Expr expr) {
+        return switch (expr.getKind()) {
+            case ASSIGN -> visitExpr((Expr.Assign) expr);
+            case SET -> visitExpr((Expr.Set) expr);
+            case LOGICAL -> visitExpr((Expr.Logical) expr);
+            case BINARY -> visitExpr((Expr.Binary) expr);
+            case UNARY -> visitExpr((Expr.Unary) expr);
+            case CALL -> visitExpr((Expr.Call) expr);
+            case GROUPING -> visitExpr((Expr.Grouping) expr);
+            case LITERAL -> visitExpr((Expr.Literal) expr);
+            case GET -> visitExpr((Expr.Get) expr);
+            case VARIABLE -> visitExpr((Expr.Variable) expr);
+            case THIS -> visitExpr((Expr.This) expr);
+            case SUPER -> visitExpr((Expr.Super) expr);
+            case INDEX -> visitExpr((Expr.Index) expr);
+            case INDEX_SET -> visitExpr((Expr.IndexSet) expr);
+        };
+    }
+
+    @Override
+    protected void execute(Stmt stmt) {
+        switch (stmt.getKind()) {
+            case EXPRESSION -> visitStmt((Stmt.Expression) stmt);
+            case PRINT -> visitStmt((Stmt.Print) stmt);
+            case BLOCK -> visitStmt((Stmt.Block) stmt);
+            case IF -> visitStmt((Stmt.If) stmt);
+            case VAR -> visitStmt((Stmt.Var) stmt);
+            case CLASS -> visitStmt((Stmt.Class) stmt);
+            case FUN -> visitStmt((Stmt.Fun) stmt);
+            case WHILE -> visitStmt((Stmt.While) stmt);
+            case RETURN -> visitStmt((Stmt.Return) stmt);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package icu.buzz.lox.arena;
+
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.token.Token;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * flatten Stmt trees into an AstArena
+ * top-level declarations are added one by one, so the object tree of a declaration can be dropped right after it is added
+ * names and constants are de-duplicated, identical names in a program share one string
+ */
+public class ArenaBuilder {
+    private final AstArena arena;
+    private final Map<String, Integer> nameIndex;
+    private final Map<Object, Integer> constantIndex;
+    private final int nil;
+
+    public ArenaBuilder(AstArena arena) {
+        this.arena = arena;
+        this.nameIndex = new HashMap<>();
+        this.constantIndex = new HashMap<>();
+        // HashMap accepts null key, but nil gets a fixed slot to keep lookup simple
+        this.nil = arena.addConstant(null);
+    }
+
+    /**
+     * append a top-level declaration to arena
+     * @param stmt top-level declaration
+     */
+    public void add(Stmt stmt) {
+        arena.addRoot(stmt(stmt));
+    }
+
+    private int stmt(Stmt stmt) {
+        return switch (stmt.getKind()) {
+            case EXPRESSION -> arena.addNode(AstArena.EXPRESSION, expr(((Stmt.Expression) stmt).getExpr()), 0, 0, 0, 0);
+            case PRINT -> arena.addNode(AstArena.PRINT, expr(((Stmt.Print) stmt).getExpr()), 0, 0, 0, 0);
+            case BLOCK -> arena.addNode(AstArena.BLOCK, stmts(((Stmt.Block) stmt).getStatements()), 0, 0, 0, 0);
+            case IF -> {
+                Stmt.If ifStmt = (Stmt.If) stmt;
+                int condition = expr(ifStmt.getCondition());
+                int thenBranch = stmt(ifStmt.getThenBranch());
+                int elseBranch = ifStmt.getElseBranch() == null ? AstArena.NONE : stmt(ifStmt.getElseBranch());
+                yield arena.addNode(AstArena.IF, condition, thenBranch, elseBranch, 0, 0);
+            }
+            case VAR -> {
+                Stmt.Var var = (Stmt.Var) stmt;
+                int initializer = var.getInitializer() == null ? AstArena.NONE : expr(var.getInitializer());
+                yield node(AstArena.VAR, name(var.getName()), initializer, 0, var.getName());
+            }
+            case CLASS -> {
+                Stmt.Class klass = (Stmt.Class) stmt;
+                int sup = klass.getSup() == null ? AstArena.NONE : expr(klass.getSup());
+                List<Stmt.Fun> methods = klass.getMethods();
+                int[] items = new int[methods.size()];
+                for (int i = 0; i < items.length; i++) items[i] = stmt(methods.get(i));
+                yield node(AstArena.CLASS, name(klass.getName()), sup, arena.addList(items, items.length), klass.getName());
+            }
+            case FUN -> {
+                Stmt.Fun fun = (Stmt.Fun) stmt;
+                List<Token> parameters = fun.getParameters();
+                int[] items = new int[parameters.size()];
+                for (int i = 0; i < items.length; i++) items[i] = name(parameters.get(i));
+                int params = arena.addList(items, items.length);
+                yield node(AstArena.FUN, name(fun.getName()), params, stmts(fun.getBody()), fun.getName());
+            }
+            case WHILE -> {
+                Stmt.While whileStmt = (Stmt.While) stmt;
+                int condition = expr(whileStmt.getCondition());
+                yield arena.addNode(AstArena.WHILE, condition, stmt(whileStmt.getBody()), 0, 0, 0);
+            }
+            case RETURN -> {
+                Stmt.Return ret = (Stmt.Return) stmt;
+                int value = ret.getValue() == null ? AstArena.NONE : expr(ret.getValue());
+                yield node(AstArena.RETURN, value, 0, 0, ret.getKeyword());
+            }
+        };
+    }
+
+    private int expr(Expr expr) {
+        return switch (expr.getKind()) {
+            case ASSIGN -> {
+                Expr.Assign assign = (Expr.Assign) expr;
+                yield node(AstArena.ASSIGN, name(assign.getName()), expr(assign.getValue()), AstArena.NONE, assign.getName());
+            }
+            case SET -> {
+                Expr.Set set = (Expr.Set) expr;
+                int object = expr(set.getObject());
+                yield node(AstArena.SET, object, name(set.getName()), expr(set.getValue()), set.getName());
+            }
+            case LOGICAL -> {
+                Expr.Logical logical = (Expr.Logical) expr;
+                int left = expr(logical.getLeft());
+                Token operator = logical.getOperator();
+                yield node(AstArena.LOGICAL, left, operator.getType().ordinal(), expr(logical.getRight()), operator);
+            }
+            case BINARY -> {
+                Expr.Binary binary = (Expr.Binary) expr;
+                int left = expr(binary.getLeft());
+                Token operator = binary.getOperator();
+                yield node(AstArena.BINARY, left, operator.getType().ordinal(), expr(binary.getRight()), operator);
+            }
+            case UNARY -> {
+                Expr.Unary unary = (Expr.Unary) expr;
+                Token operator = unary.getOperator();
+                yield node(AstArena.UNARY, operator.getType().ordinal(), expr(unary.getRight()), 0, operator);
+            }
+            case CALL -> {
+                Expr.Call call = (Expr.Call) expr;
+                int callee = expr(call.getCallee());
+                List<Expr> arguments = call.getArguments();
+                int[] items = new int[arguments.size()];
+                for (int i = 0; i < items.length; i++) items[i] = expr(arguments.get(i));
+                yield node(AstArena.CALL, callee, arena.addList(items, items.length), 0, call.getParen());
+            }
+            case GROUPING -> arena.addNode(AstArena.GROUPING, expr(((Expr.Grouping) expr).getExpression()), 0, 0, 0, 0);
+            case LITERAL -> arena.addNode(AstArena.LITERAL, constant(((Expr.Literal) expr).getValue()), 0, 0, 0, 0);
+            case GET -> {
+                Expr.Get get = (Expr.Get) expr;
+                yield node(AstArena.GET, expr(get.getObject()), name(get.getName()), 0, get.getName());
+            }
+            case VARIABLE -> {
+                Token name = ((Expr.Variable) expr).getName();
+                yield node(AstArena.VARIABLE, name(name), AstArena.NONE, 0, name);
+            }
+            case THIS -> node(AstArena.THIS, AstArena.NONE, 0, 0, ((Expr.This) expr).getKeyword());
+            case SUPER -> {
+                Token method = ((Expr.Super) expr).getMethod();
+                yield node(AstArena.SUPER, name(method), AstArena.NONE, 0, method);
+            }
+            case INDEX -> {
+                Expr.Index index = (Expr.Index) expr;
+                int object = expr(index.getObject());
+                yield node(AstArena.INDEX, object, expr(index.getIndex()), 0, index.getBracket());
+            }
+            case INDEX_SET -> {
+                Expr.IndexSet index = (Expr.IndexSet) expr;
+                int object = expr(index.getObject());
+                int at = expr(index.getIndex());
+                yield node(AstArena.INDEX_SET, object, at, expr(index.getValue()), index.getBracket());
+            }
+        };
+    }
+
+    private int stmts(List<Stmt> stmts) {
+        int[] items = new int[stmts.size()];
+        for (int i = 0; i < items.length; i++) items[i] = stmt(stmts.get(i));
+        return arena.addList(items, items.length);
+    }
+
+    private int node(int kind, int a, int b, int c, Token token) {
+        Token.LocationInfo location = token.getLocationInfo();
+        return arena.addNode(kind, a, b, c, location.getLine(), location.getOffset());
+    }
+
+    private int name(Token token) {
+        return nameIndex.computeIfAbsent(token.getLexeme(), arena::addName);
+    }
+
+    private int constant(Object value) {
+        if (value == null) return nil;
+        return constantIndex.computeIfAbsent(value, arena::addConstant);
+    }
+}
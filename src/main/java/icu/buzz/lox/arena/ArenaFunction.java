@@ -0,0 +1,59 @@
+package icu.buzz.lox.arena;
+
+import icu.buzz.lox.Environment;
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxMethod;
+import icu.buzz.lox.exceptions.Return;
+import icu.buzz.lox.oop.LoxInstance;
+
+import java.util.List;
+
+/**
+ * lox function declared in an AstArena, it can only be called by ArenaInterpreter
+ */
+public class ArenaFunction implements LoxMethod {
+    private final AstArena arena;
+    // FUN node
+    private final int function;
+    private final Environment closure;
+    private final boolean initializer;
+
+    public ArenaFunction(AstArena arena, int function, Environment closure, boolean initializer) {
+        this.arena = arena;
+        this.function = function;
+        this.closure = closure;
+        this.initializer = initializer;
+    }
+
+    @Override
+    public ArenaFunction bind(LoxInstance instance) {
+        Environment environment = new Environment(closure);
+        environment.define("this", instance);
+        return new ArenaFunction(arena, function, environment, initializer);
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Environment funcScope = new Environment(closure);
+        int parameters = arena.b(function);
+        for (int i = 0; i < arena.listSize(parameters); i++) funcScope.define(arena.name(arena.listItem(parameters, i)), arguments.get(i));
+        try {
+            ((ArenaInterpreter) interpreter).executeBlock(arena.c(function), funcScope);
+        } catch (Return ret) {
+            if (initializer) return closure.get("this", 0);
+            return ret.getValue();
+        }
+        if (initializer) return closure.get("this", 0);
+        return null;
+    }
+
+    @Override
+    public int arity() {
+        return arena.listSize(arena.b(function));
+    }
+
+    @Override
+    public String toString() {
+        return "<lox function> " + arena.nameOf(function);
+    }
+}
@@ -0,0 +1,282 @@
+package icu.buzz.lox.arena;
+
+import icu.buzz.lox.Environment;
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.Lox;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.LoxMethod;
+import icu.buzz.lox.callable.foreign.NativeFunction;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.exceptions.Return;
+import icu.buzz.lox.oop.LoxClass;
+import icu.buzz.lox.oop.LoxInstance;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * interpreter walks an AstArena
+ * globals, environments and runtime objects are the same as Interpreter, only the program representation differs
+ */
+public class ArenaInterpreter extends Interpreter {
+    private final AstArena arena;
+
+    public ArenaInterpreter(AstArena arena) {
+        super(List.of());
+        this.arena = arena;
+    }
+
+    private ArenaInterpreter(ArenaInterpreter parent) {
+        super(parent);
+        this.arena = parent.arena;
+    }
+
+    @Override
+    public Interpreter fork() {
+        return new ArenaInterpreter(this);
+    }
+
+    @Override
+    public void interpret() {
+        interpret(0);
+    }
+
+    /**
+     * execute top-level declarations starting from root @param: from, then end the run (see endRun)
+     * @param from index of the first root to execute
+     */
+    public void interpret(int from) {
+        try {
+            for (int i = from; i < arena.rootCount(); i++) execute(arena.root(i));
+        } catch (ExecuteError error) {
+            Lox.errorReport(error.getToken(), error.getMessage());
+        } finally {
+            endRun();
+        }
+    }
+
+    private Object evaluate(int node) {
+        return switch (arena.kind(node)) {
+            case AstArena.ASSIGN -> {
+                Object value = evaluate(arena.b(node));
+                int depth = arena.depth(node);
+                String name = arena.nameOf(node);
+                if (depth != AstArena.NONE) environment.assign(name, value, depth);
+                else if (global.contains(name)) global.define(name, value);
+                else throw new ExecuteError(arena.token(node), "assign variable: " + name + " has not been defined");
+                yield value;
+            }
+            case AstArena.SET -> {
+                Object instance = evaluate(arena.a(node));
+                if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(arena.token(node), "field only allowed for instance");
+                Object value = evaluate(arena.c(node));
+                loxInstance.set(arena.nameOf(node), value, tasks.isConcurrent());
+                yield value;
+            }
+            case AstArena.LOGICAL -> {
+                Object left = evaluate(arena.a(node));
+                boolean or = arena.operator(node) == TokenType.OR;
+                if (or == isTruthy(left)) yield left;
+                yield evaluate(arena.c(node));
+            }
+            case AstArena.BINARY -> binary(node, evaluate(arena.a(node)), evaluate(arena.c(node)));
+            case AstArena.UNARY -> {
+                Object right = evaluate(arena.b(node));
+                yield switch (arena.operator(node)) {
+                    case MINUS -> {
+                        if (!isNumber(right)) throw new ExecuteError(arena.token(node), "Operand for '-' should be number");
+                        yield -(double) right;
+                    }
+                    case BANG -> !isTruthy(right);
+                    // never reach
+                    default -> throw new ExecuteError(arena.token(node), "Unexpected unary operator");
+                };
+            }
+            case AstArena.CALL -> call(node);
+            case AstArena.GROUPING -> evaluate(arena.a(node));
+            case AstArena.LITERAL -> arena.constant(arena.a(node));
+            case AstArena.GET -> {
+                Object instance = evaluate(arena.a(node));
+                if (!(instance instanceof LoxInstance loxInstance)) throw new ExecuteError(arena.token(node), "property only allowed for an instance");
+                String name = arena.nameOf(node);
+                if (!loxInstance.has(name)) throw new ExecuteError(arena.token(node), "Undefined property " + name);
+                yield loxInstance.get(name);
+            }
+            case AstArena.INDEX -> {
+                Object object = evaluate(arena.a(node));
+                yield index(object, evaluate(arena.b(node)), arena.token(node));
+            }
+            case AstArena.INDEX_SET -> {
+                Object object = evaluate(arena.a(node));
+                Object index = evaluate(arena.b(node));
+                Object value = evaluate(arena.c(node));
+                indexSet(object, index, value, arena.token(node));
+                yield value;
+            }
+            case AstArena.VARIABLE -> lookUp(node, arena.nameOf(node));
+            case AstArena.THIS -> lookUp(node, "this");
+            case AstArena.SUPER -> {
+                int distance = arena.depth(node);
+                LoxClass supClass = (LoxClass) environment.get("super", distance);
+                String name = arena.nameOf(node);
+                LoxMethod method = supClass.getMethod(name);
+                if (method == null) throw new ExecuteError(arena.token(node), "undefined method " + name);
+                LoxInstance instance = (LoxInstance) environment.get("this", distance - 1);
+                yield method.bind(instance);
+            }
+            default -> throw new IllegalStateException("node " + node + " is not an expression");
+        };
+    }
+
+    private void execute(int node) {
+        switch (arena.kind(node)) {
+            case AstArena.EXPRESSION -> evaluate(arena.a(node));
+            case AstArena.PRINT -> out.println(stringify(evaluate(arena.a(node))));
+            case AstArena.BLOCK -> executeBlock(arena.a(node), new Environment(environment));
+            case AstArena.IF -> {
+                if (isTruthy(evaluate(arena.a(node)))) execute(arena.b(node));
+                else if (arena.c(node) != AstArena.NONE) execute(arena.c(node));
+            }
+            case AstArena.VAR -> {
+                int initializer = arena.b(node);
+                environment.define(arena.nameOf(node), initializer == AstArena.NONE ? null : evaluate(initializer));
+            }
+            case AstArena.CLASS -> executeClass(node);
+            case AstArena.FUN -> environment.define(arena.nameOf(node), new ArenaFunction(arena, node, environment, false));
+            case AstArena.WHILE -> {
+                int condition = arena.a(node);
+                int body = arena.b(node);
+                while (isTruthy(evaluate(condition))) {
+                    tasks.checkCancelled();
+                    execute(body);
+                }
+            }
+            case AstArena.RETURN -> throw new Return(arena.a(node) == AstArena.NONE ? null : evaluate(arena.a(node)));
+            default -> throw new IllegalStateException("node " + node + " is not a statement");
+        }
+    }
+
+    /**
+     * execute a list of statements in @param: environment
+     * @param list statement list in arena
+     * @param environment environment for these statements
+     */
+    public void executeBlock(int list, Environment environment) {
+        Environment previous = this.environment;
+        this.environment = environment;
+        try {
+            for (int i = 0; i < arena.listSize(list); i++) execute(arena.listItem(list, i));
+        } finally {
+            this.environment = previous;
+        }
+    }
+
+    private void executeClass(int node) {
+        LoxClass supClass = null;
+        int sup = arena.b(node);
+        if (sup != AstArena.NONE) {
+            Object value = evaluate(sup);
+            if (!(value instanceof LoxClass)) throw new ExecuteError(arena.token(sup), "superclass of a class must be a class");
+            supClass = (LoxClass) value;
+        }
+        String name = arena.nameOf(node);
+        environment.define(name, null);
+        if (supClass != null) {
+            environment = new Environment(environment);
+            environment.define("super", supClass);
+        }
+        Map<String, LoxMethod> methods = new HashMap<>();
+        int list = arena.c(node);
+        for (int i = 0; i < arena.listSize(list); i++) {
+            int method = arena.listItem(list, i);
+            String methodName = arena.nameOf(method);
+            methods.put(methodName, new ArenaFunction(arena, method, environment, methodName.equals("init")));
+        }
+
+        if (supClass != null) environment = environment.getEnclose();
+
+        environment.define(name, new LoxClass(name, supClass, methods));
+    }
+
+    private Object call(int node) {
+        Object callee = evaluate(arena.a(node));
+        int list = arena.b(node);
+        int size = Math.min(arena.listSize(list), Lox.MAX_ARGS);
+        // linked natives take their arguments as they are, no List
+        if (callee instanceof NativeFunction function && function.arity() == size && size <= NativeFunction.FAST_ARITY) {
+            Object a = size > 0 ? evaluate(arena.listItem(list, 0)) : null;
+            Object b = size > 1 ? evaluate(arena.listItem(list, 1)) : null;
+            Object c = size > 2 ? evaluate(arena.listItem(list, 2)) : null;
+            return callNative(function, a, b, c, arena.token(node));
+        }
+        List<Object> arguments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) arguments.add(evaluate(arena.listItem(list, i)));
+
+        if (!(callee instanceof LoxCallable function)) throw new ExecuteError(arena.token(node), "callee is not callable");
+        if (function.arity() != arguments.size()) throw new ExecuteError(arena.token(node), "function except:" + function.arity()+ " but got:" + arguments.size());
+
+        try {
+            return function.call(this, arguments);
+        } catch (NativeError error) {
+            throw new ExecuteError(arena.token(node), error.getMessage());
+        }
+    }
+
+    private Object binary(int node, Object left, Object right) {
+        return switch (arena.operator(node)) {
+            case MINUS -> {
+                checkNumber(node, "Operands for '-' should be number", left, right);
+                yield (double)left - (double)right;
+            }
+            case STAR -> {
+                checkNumber(node, "Operands for '*' should be number", left, right);
+                yield (double)left * (double)right;
+            }
+            case SLASH -> {
+                checkNumber(node, "Operands for '/' should be number", left, right);
+                if ((double)right != 0) yield (double)left / (double)right;
+                throw new ExecuteError(arena.token(node), "Divisor should not be zero");
+            }
+            case PLUS -> {
+                if (isNumber(left, right)) yield (double)left + (double)right;
+                if (isString(left, right)) yield left + (String)right;
+                throw new ExecuteError(arena.token(node), "Operands for '+' should be number or string");
+            }
+            case GREATER -> {
+                checkNumber(node, "Operands for '>' should be number", left, right);
+                yield (double)left > (double)right;
+            }
+            case GREATER_EQUAL -> {
+                checkNumber(node, "Operands for \">=\" should be number", left, right);
+                yield (double)left >= (double)right;
+            }
+            case LESS -> {
+                checkNumber(node, "Operands for '<' should be number", left, right);
+                yield (double)left < (double)right;
+            }
+            case LESS_EQUAL -> {
+                checkNumber(node, "Operands for \"<=\" should be number", left, right);
+                yield (double)left <= (double)right;
+            }
+            case EQUAL_EQUAL -> isEqual(left, right);
+            case BANG_EQUAL -> !isEqual(left, right);
+            // never reach
+            default -> throw new ExecuteError(arena.token(node), "Unexpected binary operator");
+        };
+    }
+
+    private void checkNumber(int node, String message, Object left, Object right) {
+        if (!isNumber(left, right)) throw new ExecuteError(arena.token(node), message);
+    }
+
+    private Object lookUp(int node, String name) {
+        int distance = arena.depth(node);
+        if (distance != AstArena.NONE) return environment.get(name, distance);
+        if (!global.contains(name)) throw new ExecuteError(arena.token(node), "variable: " + name + " is undefined");
+        return global.get(name, 0);
+    }
+}
@@ -0,0 +1,226 @@
+package icu.buzz.lox.arena;
+
+import icu.buzz.lox.Lox;
+import icu.buzz.lox.exceptions.ResolverError;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * resolver works on AstArena, it follows the same rules as Resolver
+ * depth of a variable is written into its node, instead of a map held by interpreter
+ */
+public class ArenaResolver {
+    private enum FunctionType {
+        NONE,
+        FUNCTION,
+        METHOD,
+        INITIALIZER,
+    }
+
+    private enum ClassType {
+        NONE,
+        CLASS,
+        SUBCLASS,
+    }
+
+    private final AstArena arena;
+    private FunctionType currentFunc;
+    private ClassType currentClass;
+    private final List<Map<String, Boolean>> scopes;
+
+    public ArenaResolver(AstArena arena) {
+        this.arena = arena;
+        this.currentFunc = FunctionType.NONE;
+        this.currentClass = ClassType.NONE;
+        this.scopes = new ArrayList<>();
+    }
+
+    /**
+     * resolve all top-level declarations in arena
+     */
+    public void resolveSource() {
+        resolveSource(0);
+    }
+
+    /**
+     * resolve top-level declarations starting from root @param: from
+     * @param from index of the first root to resolve
+     */
+    public void resolveSource(int from) {
+        try {
+            for (int i = from; i < arena.rootCount(); i++) resolveStmt(arena.root(i));
+        } catch (ResolverError error) {
+            Lox.errorReport(error.getToken(), error.getMessage());
+        }
+    }
+
+    private void resolveStmt(int node) {
+        switch (arena.kind(node)) {
+            case AstArena.EXPRESSION, AstArena.PRINT -> resolveExpr(arena.a(node));
+            case AstArena.BLOCK -> {
+                beginScope();
+                resolveList(arena.a(node));
+                endScope();
+            }
+            case AstArena.IF -> {
+                resolveExpr(arena.a(node));
+                resolveStmt(arena.b(node));
+                if (arena.c(node) != AstArena.NONE) resolveStmt(arena.c(node));
+            }
+            case AstArena.VAR -> {
+                declare(node);
+                if (arena.b(node) != AstArena.NONE) resolveExpr(arena.b(node));
+                define(arena.nameOf(node));
+            }
+            case AstArena.CLASS -> resolveClass(node);
+            case AstArena.FUN -> {
+                declare(node);
+                define(arena.nameOf(node));
+                resolveFunc(node, FunctionType.FUNCTION);
+            }
+            case AstArena.WHILE -> {
+                resolveExpr(arena.a(node));
+                resolveStmt(arena.b(node));
+            }
+            case AstArena.RETURN -> {
+                if (currentFunc == FunctionType.NONE) throw new ResolverError(arena.token(node), "can not return from top-level");
+                if (arena.a(node) != AstArena.NONE) {
+                    if (currentFunc == FunctionType.INITIALIZER) throw new ResolverError(arena.token(node), "can not return value from initializer");
+                    resolveExpr(arena.a(node));
+                }
+            }
+            default -> throw new IllegalStateException("node " + node + " is not a statement");
+        }
+    }
+
+    private void resolveExpr(int node) {
+        switch (arena.kind(node)) {
+            case AstArena.ASSIGN -> {
+                resolveExpr(arena.b(node));
+                resolveLocal(node, arena.nameOf(node));
+            }
+            case AstArena.SET -> {
+                resolveExpr(arena.a(node));
+                resolveExpr(arena.c(node));
+            }
+            case AstArena.INDEX -> {
+                resolveExpr(arena.a(node));
+                resolveExpr(arena.b(node));
+            }
+            case AstArena.INDEX_SET -> {
+                resolveExpr(arena.a(node));
+                resolveExpr(arena.b(node));
+                resolveExpr(arena.c(node));
+            }
+            case AstArena.LOGICAL, AstArena.BINARY -> {
+                resolveExpr(arena.a(node));
+                resolveExpr(arena.c(node));
+            }
+            case AstArena.UNARY -> resolveExpr(arena.b(node));
+            case AstArena.CALL -> {
+                resolveExpr(arena.a(node));
+                int arguments = arena.b(node);
+                for (int i = 0; i < arena.listSize(arguments); i++) resolveExpr(arena.listItem(arguments, i));
+            }
+            case AstArena.GROUPING, AstArena.GET -> resolveExpr(arena.a(node));
+            case AstArena.LITERAL -> {}
+            case AstArena.VARIABLE -> {
+                if (!scopes.isEmpty()) {
+                    String name = arena.nameOf(node);
+                    Map<String, Boolean> scope = scopes.get(scopes.size() - 1);
+                    if (scope.get(name) == Boolean.FALSE) throw new ResolverError(arena.token(node), "cannot read variable from its initializer");
+                }
+                resolveLocal(node, arena.nameOf(node));
+            }
+            case AstArena.THIS -> {
+                if (currentClass == ClassType.NONE) throw new ResolverError(arena.token(node), "can not use 'this' outside a class");
+                resolveLocal(node, "this");
+            }
+            case AstArena.SUPER -> {
+                if (currentClass == ClassType.NONE) throw new ResolverError(arena.token(node), "can not use 'super' outside a class");
+                if (currentClass == ClassType.CLASS) throw new ResolverError(arena.token(node), "can not use 'super' inside a class without parent");
+                resolveLocal(node, "super");
+            }
+            default -> throw new IllegalStateException("node " + node + " is not an expression");
+        }
+    }
+
+    private void resolveList(int list) {
+        for (int i = 0; i < arena.listSize(list); i++) resolveStmt(arena.listItem(list, i));
+    }
+
+    private void resolveClass(int node) {
+        ClassType encloseType = this.currentClass;
+        this.currentClass = ClassType.CLASS;
+        String name = arena.nameOf(node);
+        declare(node);
+        define(name);
+        int sup = arena.b(node);
+        if (sup != AstArena.NONE) {
+            this.currentClass = ClassType.SUBCLASS;
+            if (arena.nameOf(sup).equals(name)) throw new ResolverError(arena.token(sup), "a class can not inherit itself");
+            resolveExpr(sup);
+            beginScope();
+            scopes.get(scopes.size() - 1).put("super", true);
+        }
+        beginScope();
+        scopes.get(scopes.size() - 1).put("this", true);
+        int methods = arena.c(node);
+        for (int i = 0; i < arena.listSize(methods); i++) {
+            int method = arena.listItem(methods, i);
+            resolveFunc(method, arena.nameOf(method).equals("init") ? FunctionType.INITIALIZER : FunctionType.METHOD);
+        }
+        endScope();
+        if (sup != AstArena.NONE) endScope();
+        this.currentClass = encloseType;
+    }
+
+    private void resolveFunc(int node, FunctionType type) {
+        FunctionType encloseType = this.currentFunc;
+        this.currentFunc = type;
+        beginScope();
+        Map<String, Boolean> scope = scopes.get(scopes.size() - 1);
+        int parameters = arena.b(node);
+        for (int i = 0; i < arena.listSize(parameters); i++) {
+            String parameter = arena.name(arena.listItem(parameters, i));
+            if (scope.containsKey(parameter)) throw new ResolverError(arena.token(node), "variable " + parameter + " has already defined");
+            scope.put(parameter, true);
+        }
+        resolveList(arena.c(node));
+        endScope();
+        this.currentFunc = encloseType;
+    }
+
+    private void beginScope() {
+        scopes.add(new HashMap<>());
+    }
+
+    private void endScope() {
+        scopes.remove(scopes.size() - 1);
+    }
+
+    private void declare(int node) {
+        if (scopes.isEmpty()) return;
+        String name = arena.nameOf(node);
+        Map<String, Boolean> scope = scopes.get(scopes.size() - 1);
+        if (scope.containsKey(name)) throw new ResolverError(arena.token(node), "variable " + name + " has already defined");
+        scope.put(name, false);
+    }
+
+    private void define(String name) {
+        if (scopes.isEmpty()) return;
+        scopes.get(scopes.size() - 1).put(name, true);
+    }
+
+    private void resolveLocal(int node, String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).containsKey(name)) {
+                arena.setDepth(node, scopes.size() - 1 - i);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package icu.buzz.lox.arena;
+
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenType;
+
+import java.util.Arrays;
+
+/**
+ * flat AST, all nodes live in one int array instead of an object graph
+ * a node takes STRIDE ints: kind, three slots (a, b, c), line and column
+ * slots hold child node index, name index, constant index, list index or token type ordinal, meaning depends on kind
+ * resolution depth is kept in a slot of the node itself, -1 means global
+ * variable length children (arguments, statements, parameters, methods) are stored in a separate list array,
+ * a list starts with its length, followed by items
+ */
+public class AstArena {
+    // a: name, b: value, c: depth
+    public static final int ASSIGN = 0;
+    // a: object, b: name, c: value
+    public static final int SET = 1;
+    // a: left, b: operator, c: right
+    public static final int LOGICAL = 2;
+    // a: left, b: operator, c: right
+    public static final int BINARY = 3;
+    // a: operator, b: right
+    public static final int UNARY = 4;
+    // a: callee, b: argument list
+    public static final int CALL = 5;
+    // a: expression
+    public static final int GROUPING = 6;
+    // a: constant
+    public static final int LITERAL = 7;
+    // a: object, b: name
+    public static final int GET = 8;
+    // a: name, b: depth
+    public static final int VARIABLE = 9;
+    // a: depth
+    public static final int THIS = 10;
+    // a: method name, b: depth
+    public static final int SUPER = 11;
+    // a: expression
+    public static final int EXPRESSION = 12;
+    // a: expression
+    public static final int PRINT = 13;
+    // a: statement list
+    public static final int BLOCK = 14;
+    // a: condition, b: then branch, c: else branch
+    public static final int IF = 15;
+    // a: name, b: initializer
+    public static final int VAR = 16;
+    // a: name, b: superclass variable, c: method list
+    public static final int CLASS = 17;
+    // a: name, b: parameter list (names), c: body list
+    public static final int FUN = 18;
+    // a: condition, b: body
+    public static final int WHILE = 19;
+    // a: value
+    public static final int RETURN = 20;
+    // a: object, b: index
+    public static final int INDEX = 21;
+    // a: object, b: index, c: value
+    public static final int INDEX_SET = 22;
+
+    // absent child, or unresolved (global) variable
+    public static final int NONE = -1;
+
+    private static final int STRIDE = 6;
+    private static final int KIND = 0;
+    private static final int A = 1;
+    private static final int B = 2;
+    private static final int C = 3;
+    private static final int LINE = 4;
+    private static final int COLUMN = 5;
+
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    private int[] nodes;
+    private int nodeCount;
+    private int[] lists;
+    private int listSize;
+    private int[] roots;
+    private int rootCount;
+    private String[] names;
+    private int nameCount;
+    private Object[] constants;
+    private int constantCount;
+
+    public AstArena() {
+        this.nodes = new int[STRIDE * 1024];
+        this.lists = new int[1024];
+        this.roots = new int[64];
+        this.names = new String[64];
+        this.constants = new Object[64];
+    }
+
+    public int kind(int node) {
+        return nodes[node * STRIDE + KIND];
+    }
+
+    public int a(int node) {
+        return nodes[node * STRIDE + A];
+    }
+
+    public int b(int node) {
+        return nodes[node * STRIDE + B];
+    }
+
+    public int c(int node) {
+        return nodes[node * STRIDE + C];
+    }
+
+    public int line(int node) {
+        return nodes[node * STRIDE + LINE];
+    }
+
+    public int column(int node) {
+        return nodes[node * STRIDE + COLUMN];
+    }
+
+    public TokenType operator(int node) {
+        return TOKEN_TYPES[kind(node) == UNARY ? a(node) : b(node)];
+    }
+
+    public String name(int index) {
+        return names[index];
+    }
+
+    public Object constant(int index) {
+        return constants[index];
+    }
+
+    public int listSize(int list) {
+        return lists[list];
+    }
+
+    public int listItem(int list, int i) {
+        return lists[list + 1 + i];
+    }
+
+    public int rootCount() {
+        return rootCount;
+    }
+
+    public int root(int i) {
+        return roots[i];
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param node resolvable node (ASSIGN, VARIABLE, THIS, SUPER)
+     * @return resolution depth, NONE for global
+     */
+    public int depth(int node) {
+        return nodes[node * STRIDE + depthSlot(node)];
+    }
+
+    public void setDepth(int node, int depth) {
+        nodes[node * STRIDE + depthSlot(node)] = depth;
+    }
+
+    private int depthSlot(int node) {
+        return switch (kind(node)) {
+            case ASSIGN -> C;
+            case VARIABLE, SUPER -> B;
+            case THIS -> A;
+            default -> throw new IllegalArgumentException("node " + node + " can not be resolved");
+        };
+    }
+
+    /**
+     * @param node any node
+     * @return name carried by the node, null if node has no name
+     */
+    public String nameOf(int node) {
+        return switch (kind(node)) {
+            case ASSIGN, VARIABLE, SUPER, VAR, CLASS, FUN -> names[a(node)];
+            case SET, GET -> names[b(node)];
+            case THIS -> "this";
+            default -> null;
+        };
+    }
+
+    /**
+     * build a token for error report, tokens are not kept in arena
+     * @param node node with error
+     * @return token carries name and location of the node
+     */
+    public Token token(int node) {
+        String lexeme = nameOf(node);
+        return new Token(lexeme == null ? "" : lexeme, TokenType.IDENTIFIER, null, line(node), column(node));
+    }
+
+    int addNode(int kind, int a, int b, int c, int line, int column) {
+        if ((nodeCount + 1) * STRIDE > nodes.length) nodes = Arrays.copyOf(nodes, Math.max(nodes.length * 2, STRIDE * 16));
+        int base = nodeCount * STRIDE;
+        nodes[base + KIND] = kind;
+        nodes[base + A] = a;
+        nodes[base + B] = b;
+        nodes[base + C] = c;
+        nodes[base + LINE] = line;
+        nodes[base + COLUMN] = column;
+        return nodeCount++;
+    }
+
+    int addList(int[] items, int size) {
+        while (listSize + size + 1 > lists.length) lists = Arrays.copyOf(lists, Math.max(lists.length * 2, 16));
+        int list = listSize;
+        lists[listSize++] = size;
+        System.arraycopy(items, 0, lists, listSize, size);
+        listSize += size;
+        return list;
+    }
+
+    int addName(String name) {
+        if (nameCount == names.length) names = Arrays.copyOf(names, Math.max(nameCount * 2, 16));
+        names[nameCount] = name;
+        return nameCount++;
+    }
+
+    int addConstant(Object constant) {
+        if (constantCount == constants.length) constants = Arrays.copyOf(constants, Math.max(constantCount * 2, 16));
+        constants[constantCount] = constant;
+        return constantCount++;
+    }
+
+    void addRoot(int node) {
+        if (rootCount == roots.length) roots = Arrays.copyOf(roots, Math.max(rootCount * 2, 16));
+        roots[rootCount++] = node;
+    }
+
+    /**
+     * release spare capacity once the whole program is added
+     */
+    public void trim() {
+        nodes = Arrays.copyOf(nodes, nodeCount * STRIDE);
+        lists = Arrays.copyOf(lists, listSize);
+        roots = Arrays.copyOf(roots, rootCount);
+        names = Arrays.copyOf(names, nameCount);
+        constants = Arrays.copyOf(constants, constantCount);
+    }
+}
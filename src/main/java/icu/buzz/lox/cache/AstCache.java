@@ -0,0 +1,205 @@
+package icu.buzz.lox.cache;
+
+import icu.buzz.lox.stmt.Stmt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * on-disk cache of resolved programs, one .loxc file per script content in a cache directory
+ * a file is named after the SHA-256 of interpreter version (see version) and script bytes, so an edited script or a new interpreter
+ * never meets an old entry, entries of old versions are simply not looked up any more
+ * file: magic, format, key (32 bytes), then the program encoded by AstCodec, it is memory-mapped and decoded in place
+ * cache is best effort: an unreadable, truncated or foreign file is a miss, a failed write is ignored
+ * directory holds at most MAX_ENTRIES entries, when a store passes it the oldest entries are deleted down to KEEP_ENTRIES
+ * the key is no secret, anyone can compute it, so only entries in a directory the current user owns and nobody else
+ * can write are trusted, the directory is created 0700 and an entry or directory of another owner is a miss
+ */
+public class AstCache {
+    private static final int MAGIC = 0x4c4f5843; // "LOXC"
+    private static final int HEADER = Integer.BYTES * 2 + 32;
+    private static final int MAX_ENTRIES = 256;
+    private static final int KEEP_ENTRIES = 192;
+    private static final String VERSION = build() + "/" + AstCodec.FORMAT;
+
+    private final Path directory;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * cache directory is system property lox.cache.dir, or jlox under $XDG_CACHE_HOME (~/.cache if it is not set),
+     * a directory of the user, not a shared one like the temporary directory
+     */
+    public static AstCache standard() {
+        String directory = System.getProperty("lox.cache.dir");
+        if (directory != null) return new AstCache(Path.of(directory));
+        // a relative XDG_CACHE_HOME is invalid and ignored
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        Path base = xdg != null && !xdg.isEmpty() && Path.of(xdg).isAbsolute() ? Path.of(xdg) : Path.of(System.getProperty("user.home"), ".cache");
+        return new AstCache(base.resolve("jlox"));
+    }
+
+    /**
+     * interpreter version: build identity and format of AstCodec
+     */
+    public static String version() {
+        return VERSION;
+    }
+
+    /**
+     * @return project version and build time from build.properties, filled in by maven on every build, so a rebuilt
+     * interpreter never meets a program or snapshot of an older build even when the project version is not raised;
+     * classes not built by maven have no identity, nothing stored by another run is trusted then
+     */
+    private static String build() {
+        try (InputStream in = AstCache.class.getResourceAsStream("build.properties")) {
+            Properties properties = new Properties();
+            if (in != null) properties.load(in);
+            String build = properties.getProperty("build", "");
+            if (!build.isEmpty() && !build.contains("${")) return build;
+        } catch (IOException e) {
+            // same as a missing file
+        }
+        return "unknown-" + ProcessHandle.current().pid() + "-" + System.nanoTime();
+    }
+
+    /**
+     * @param source script bytes (usually a mapped file), read from position to limit, position is not changed
+     * @return cache key of script
+     */
+    public static byte[] key(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(version().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform provides SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key cache key of script
+     * @return resolved program, null if it is not cached
+     */
+    public List<Stmt> load(byte[] key) {
+        Path path = path(key);
+        try {
+            if (!isPrivate(directory) || !Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS) || !isPrivate(path)) return null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER || buffer.getInt() != MAGIC || buffer.getInt() != AstCodec.FORMAT) return null;
+            byte[] stored = new byte[32];
+            buffer.get(stored);
+            if (!MessageDigest.isEqual(stored, key)) return null;
+            List<Stmt> statements = AstCodec.decode(buffer);
+            return buffer.hasRemaining() ? null : statements;
+        } catch (IOException | RuntimeException e) {
+            // a broken entry is rebuilt by the next store
+            return null;
+        }
+    }
+
+    /**
+     * @param key cache key of script
+     * @param statements resolved program, must not be executed yet (execution does not change it, but it may exit)
+     */
+    public void store(byte[] key, List<Stmt> statements) {
+        Path path = path(key);
+        try {
+            byte[] program = AstCodec.encode(statements);
+            ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(AstCodec.FORMAT).put(key).flip();
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_EXECUTE)));
+            } else Files.createDirectories(directory);
+            // an entry would not be trusted by load anyway
+            if (!isPrivate(directory)) return;
+            // written aside and moved in place, a concurrent run never maps a half written file
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    ByteBuffer[] buffers = {header, ByteBuffer.wrap(program)};
+                    while (buffers[1].hasRemaining()) channel.write(buffers);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            prune();
+        } catch (IOException | RuntimeException e) {
+            // running the script does not depend on cache
+        }
+    }
+
+    /**
+     * delete oldest entries (by modification time) once there are more than MAX_ENTRIES, entries of old versions go first
+     * as they are never stored again
+     */
+    private void prune() throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(".loxc")).collect(Collectors.toList());
+        }
+        if (entries.size() <= MAX_ENTRIES) return;
+        Map<Path, FileTime> modified = new HashMap<>();
+        for (Path entry : entries) {
+            try {
+                modified.put(entry, Files.getLastModifiedTime(entry, LinkOption.NOFOLLOW_LINKS));
+            } catch (IOException e) {
+                // deleted by a concurrent run meanwhile
+                modified.put(entry, FileTime.fromMillis(0));
+            }
+        }
+        entries.sort(Comparator.comparing(modified::get));
+        for (Path entry : entries.subList(0, entries.size() - KEEP_ENTRIES)) Files.deleteIfExists(entry);
+    }
+
+    /**
+     * @return true if @param: path (not followed if it is a link) is owned by the current user and nobody else can write it
+     */
+    private static boolean isPrivate(Path path) throws IOException {
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        if (!Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).equals(user)) return false;
+        PosixFileAttributeView posix = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (posix == null) return true;
+        Set<PosixFilePermission> permissions = posix.readAttributes().permissions();
+        return !permissions.contains(PosixFilePermission.GROUP_WRITE) && !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    private Path path(byte[] key) {
+        return directory.resolve(HexFormat.of().formatHex(key) + ".loxc");
+    }
+}
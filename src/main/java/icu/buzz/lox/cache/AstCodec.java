@@ -0,0 +1,433 @@
+package icu.buzz.lox.cache;
+
+import icu.buzz.lox.LazyBody;
+import icu.buzz.lox.Resolver;
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.stmt.Stmt;
+import icu.buzz.lox.token.Token;
+import icu.buzz.lox.token.TokenType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * binary form of a resolved program: Stmt trees with tokens, literal values and resolution depth of every Expr
+ * layout: string table (count, then length and UTF-8 bytes of each string), statement count, statements in preorder
+ * a node starts with its kind ordinal, an absent child is written as 0 instead of ordinal + 1
+ * integers are unsigned varints (7 bits a byte), lexemes and string values are indexes into the string table
+ * line of a token is written as zigzag difference to the line of the token before it, mostly a single byte
+ * a function body is either its statements, or (lazy mode, never called) its tokens and the state of the resolver
+ * it is to be resolved with, so encoding does not parse it and decoding gives a body that is still lazy
+ */
+public class AstCodec {
+    // bump whenever the layout below or the AST shape changes, old cache files are ignored then
+    public static final int FORMAT = 3;
+
+    private static final Stmt.Kind[] STMT_KINDS = Stmt.Kind.values();
+    private static final Expr.Kind[] EXPR_KINDS = Expr.Kind.values();
+    private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+    // value tags
+    private static final int NIL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int NUMBER = 3;
+    private static final int STRING = 4;
+
+    // function body tags
+    private static final int PARSED = 0;
+    private static final int UNPARSED = 1;
+
+    private AstCodec() {}
+
+    /**
+     * encode resolved @param: statements
+     * @return encoded program
+     */
+    public static byte[] encode(List<Stmt> statements) {
+        Encoder encoder = new Encoder();
+        encoder.var(statements.size());
+        for (Stmt stmt : statements) encoder.stmt(stmt);
+        return encoder.finish();
+    }
+
+    /**
+     * decode a program written by encode, depth of every Expr is restored, so it needs no resolver
+     * @param buffer encoded program from position to limit (usually part of a mapped cache file)
+     * @return top-level statements
+     */
+    public static List<Stmt> decode(ByteBuffer buffer) {
+        return new Decoder(buffer).program();
+    }
+
+    private static final class Encoder {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> table = new ArrayList<>();
+        private byte[] bytes = new byte[1024];
+        private int size;
+        private int line;
+
+        private byte[] finish() {
+            byte[] body = Arrays.copyOf(bytes, size);
+            size = 0;
+            var(table.size());
+            for (String string : table) {
+                byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+                var(utf8.length);
+                put(utf8);
+            }
+            put(body);
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void stmt(Stmt stmt) {
+            if (stmt == null) {
+                var(0);
+                return;
+            }
+            var(stmt.getKind().ordinal() + 1);
+            switch (stmt.getKind()) {
+                case EXPRESSION -> expr(((Stmt.Expression) stmt).getExpr());
+                case PRINT -> expr(((Stmt.Print) stmt).getExpr());
+                case BLOCK -> stmts(((Stmt.Block) stmt).getStatements());
+                case IF -> {
+                    Stmt.If ifStmt = (Stmt.If) stmt;
+                    expr(ifStmt.getCondition());
+                    stmt(ifStmt.getThenBranch());
+                    stmt(ifStmt.getElseBranch());
+                }
+                case VAR -> {
+                    Stmt.Var var = (Stmt.Var) stmt;
+                    token(var.getName());
+                    expr(var.getInitializer());
+                }
+                case CLASS -> {
+                    Stmt.Class klass = (Stmt.Class) stmt;
+                    token(klass.getName());
+                    expr(klass.getSup());
+                    var(klass.getMethods().size());
+                    for (Stmt.Fun method : klass.getMethods()) stmt(method);
+                }
+                case FUN -> {
+                    Stmt.Fun fun = (Stmt.Fun) stmt;
+                    token(fun.getName());
+                    var(fun.getParameters().size());
+                    for (Token parameter : fun.getParameters()) token(parameter);
+                    if (fun.getBody() instanceof LazyBody lazy && !lazy.isParsed()) unparsed(lazy);
+                    else {
+                        var(PARSED);
+                        stmts(fun.getBody());
+                    }
+                }
+                case WHILE -> {
+                    Stmt.While whileStmt = (Stmt.While) stmt;
+                    expr(whileStmt.getCondition());
+                    stmt(whileStmt.getBody());
+                }
+                case RETURN -> {
+                    Stmt.Return ret = (Stmt.Return) stmt;
+                    token(ret.getKeyword());
+                    expr(ret.getValue());
+                }
+            }
+        }
+
+        private void stmts(List<Stmt> statements) {
+            var(statements.size());
+            for (Stmt stmt : statements) stmt(stmt);
+        }
+
+        /**
+         * tokens of @param: body, then its resolver (0 if there is none, else function type + 1, class type and scopes)
+         */
+        private void unparsed(LazyBody body) {
+            // read before tokens, a concurrent first call parses body and drops resolver, tokens stay valid
+            Resolver resolver = body.resolver();
+            var(UNPARSED);
+            List<Token> tokens = body.tokens();
+            var(tokens.size());
+            for (Token token : tokens) token(token);
+            if (resolver == null) {
+                var(0);
+                return;
+            }
+            var(resolver.functionType() + 1);
+            var(resolver.classType());
+            var(resolver.scopes().size());
+            for (Map<String, Boolean> scope : resolver.scopes()) {
+                var(scope.size());
+                for (Map.Entry<String, Boolean> entry : scope.entrySet()) {
+                    var(string(entry.getKey()));
+                    var(entry.getValue() ? 1 : 0);
+                }
+            }
+        }
+
+        private void expr(Expr expr) {
+            if (expr == null) {
+                var(0);
+                return;
+            }
+            var(expr.getKind().ordinal() + 1);
+            // -1 (global) becomes 0
+            var(expr.getDepth() + 1);
+            switch (expr.getKind()) {
+                case ASSIGN -> {
+                    Expr.Assign assign = (Expr.Assign) expr;
+                    token(assign.getName());
+                    expr(assign.getValue());
+                }
+                case SET -> {
+                    Expr.Set set = (Expr.Set) expr;
+                    expr(set.getObject());
+                    token(set.getName());
+                    expr(set.getValue());
+                }
+                case LOGICAL -> {
+                    Expr.Logical logical = (Expr.Logical) expr;
+                    expr(logical.getLeft());
+                    token(logical.getOperator());
+                    expr(logical.getRight());
+                }
+                case BINARY -> {
+                    Expr.Binary binary = (Expr.Binary) expr;
+                    expr(binary.getLeft());
+                    token(binary.getOperator());
+                    expr(binary.getRight());
+                }
+                case UNARY -> {
+                    Expr.Unary unary = (Expr.Unary) expr;
+                    token(unary.getOperator());
+                    expr(unary.getRight());
+                }
+                case CALL -> {
+                    Expr.Call call = (Expr.Call) expr;
+                    expr(call.getCallee());
+                    var(call.getArguments().size());
+                    for (Expr argument : call.getArguments()) expr(argument);
+                    token(call.getParen());
+                }
+                case GROUPING -> expr(((Expr.Grouping) expr).getExpression());
+                case LITERAL -> value(((Expr.Literal) expr).getValue());
+                case GET -> {
+                    Expr.Get get = (Expr.Get) expr;
+                    expr(get.getObject());
+                    token(get.getName());
+                }
+                case VARIABLE -> token(((Expr.Variable) expr).getName());
+                case THIS -> token(((Expr.This) expr).getKeyword());
+                case SUPER -> {
+                    Expr.Super sup = (Expr.Super) expr;
+                    token(sup.getKeyword());
+                    token(sup.getMethod());
+                }
+                case INDEX -> {
+                    Expr.Index index = (Expr.Index) expr;
+                    expr(index.getObject());
+                    token(index.getBracket());
+                    expr(index.getIndex());
+                }
+                case INDEX_SET -> {
+                    Expr.IndexSet index = (Expr.IndexSet) expr;
+                    expr(index.getObject());
+                    token(index.getBracket());
+                    expr(index.getIndex());
+                    expr(index.getValue());
+                }
+            }
+        }
+
+        private void token(Token token) {
+            var(token.getType().ordinal());
+            var(string(token.getLexeme()));
+            value(token.getValue());
+            int delta = token.getLocationInfo().getLine() - line;
+            line += delta;
+            var((delta << 1) ^ (delta >> 31));
+            // offset is -1 when unknown
+            var(token.getLocationInfo().getOffset() + 1);
+        }
+
+        private void value(Object value) {
+            if (value == null) var(NIL);
+            else if (value instanceof Boolean bool) var(bool ? TRUE : FALSE);
+            else if (value instanceof Double number) {
+                var(NUMBER);
+                long bits = Double.doubleToRawLongBits(number);
+                for (int i = 0; i < Long.BYTES; i++) put((byte) (bits >>> (i * 8)));
+            } else if (value instanceof String string) {
+                var(STRING);
+                var(string(string));
+            } else throw new IllegalArgumentException("literal " + value + " can not be cached");
+        }
+
+        private int string(String string) {
+            Integer index = strings.get(string);
+            if (index != null) return index;
+            strings.put(string, table.size());
+            table.add(string);
+            return table.size() - 1;
+        }
+
+        private void var(int value) {
+            while ((value & ~0x7f) != 0) {
+                put((byte) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            put((byte) value);
+        }
+
+        private void put(byte b) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, size * 2);
+            bytes[size++] = b;
+        }
+
+        private void put(byte[] b) {
+            if (size + b.length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(size * 2, size + b.length));
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+    }
+
+    private static final class Decoder {
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private int line;
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private List<Stmt> program() {
+            strings = new String[var()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] utf8 = new byte[var()];
+                buffer.get(utf8);
+                strings[i] = new String(utf8, StandardCharsets.UTF_8);
+            }
+            return stmts();
+        }
+
+        private Stmt stmt() {
+            int kind = var();
+            if (kind == 0) return null;
+            return switch (STMT_KINDS[kind - 1]) {
+                case EXPRESSION -> new Stmt.Expression(expr());
+                case PRINT -> new Stmt.Print(expr());
+                case BLOCK -> new Stmt.Block(stmts());
+                case IF -> new Stmt.If(expr(), stmt(), stmt());
+                case VAR -> new Stmt.Var(token(), expr());
+                case CLASS -> {
+                    Token name = token();
+                    Expr.Variable sup = (Expr.Variable) expr();
+                    int count = var();
+                    List<Stmt.Fun> methods = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) methods.add((Stmt.Fun) stmt());
+                    yield new Stmt.Class(name, sup, methods);
+                }
+                case FUN -> {
+                    Token name = token();
+                    int count = var();
+                    List<Token> parameters = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) parameters.add(token());
+                    yield new Stmt.Fun(name, parameters, var() == UNPARSED ? unparsed(name, parameters) : stmts());
+                }
+                case WHILE -> new Stmt.While(expr(), stmt());
+                case RETURN -> new Stmt.Return(token(), expr());
+            };
+        }
+
+        private LazyBody unparsed(Token name, List<Token> parameters) {
+            int count = var();
+            List<Token> tokens = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) tokens.add(token());
+            int functionType = var() - 1;
+            if (functionType < 0) return LazyBody.restore(tokens, name, null, parameters);
+            int classType = var();
+            int scopeCount = var();
+            List<Map<String, Boolean>> scopes = new ArrayList<>(scopeCount);
+            for (int i = 0; i < scopeCount; i++) {
+                int size = var();
+                Map<String, Boolean> scope = new HashMap<>();
+                for (int j = 0; j < size; j++) scope.put(strings[var()], var() == 1);
+                scopes.add(scope);
+            }
+            return LazyBody.restore(tokens, name, Resolver.deferred(functionType, classType, scopes), parameters);
+        }
+
+        private List<Stmt> stmts() {
+            int count = var();
+            List<Stmt> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) statements.add(stmt());
+            return statements;
+        }
+
+        private Expr expr() {
+            int kind = var();
+            if (kind == 0) return null;
+            int depth = var() - 1;
+            Expr expr = switch (EXPR_KINDS[kind - 1]) {
+                case ASSIGN -> new Expr.Assign(token(), expr());
+                case SET -> new Expr.Set(expr(), token(), expr());
+                case LOGICAL -> new Expr.Logical(expr(), token(), expr());
+                case BINARY -> new Expr.Binary(expr(), token(), expr());
+                case UNARY -> new Expr.Unary(token(), expr());
+                case CALL -> {
+                    Expr callee = expr();
+                    int count = var();
+                    List<Expr> arguments = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) arguments.add(expr());
+                    yield new Expr.Call(callee, arguments, token());
+                }
+                case GROUPING -> new Expr.Grouping(expr());
+                case LITERAL -> new Expr.Literal(value());
+                case GET -> new Expr.Get(expr(), token());
+                case VARIABLE -> new Expr.Variable(token());
+                case THIS -> new Expr.This(token());
+                case SUPER -> new Expr.Super(token(), token());
+                case INDEX -> new Expr.Index(expr(), token(), expr());
+                case INDEX_SET -> new Expr.IndexSet(expr(), token(), expr(), expr());
+            };
+            expr.setDepth(depth);
+            return expr;
+        }
+
+        private Token token() {
+            TokenType type = TOKEN_TYPES[var()];
+            String lexeme = strings[var()];
+            Object value = value();
+            int delta = var();
+            line += (delta >>> 1) ^ -(delta & 1);
+            return new Token(lexeme, type, value, line, var() - 1);
+        }
+
+        private Object value() {
+            return switch (var()) {
+                case NIL -> null;
+                case TRUE -> true;
+                case FALSE -> false;
+                case NUMBER -> {
+                    long bits = 0;
+                    for (int i = 0; i < Long.BYTES; i++) bits |= (buffer.get() & 0xffL) << (i * 8);
+                    yield Double.longBitsToDouble(bits);
+                }
+                case STRING -> strings[var()];
+                default -> throw new IllegalArgumentException("unknown value tag at " + buffer.position());
+            };
+        }
+
+        private int var() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package icu.buzz.lox.cache;
+
+import icu.buzz.lox.Environment;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.LoxFunction;
+import icu.buzz.lox.callable.LoxMethod;
+import icu.buzz.lox.callable.foreign.NativeFunction;
+import icu.buzz.lox.callable.foreign.Natives;
+import icu.buzz.lox.oop.LoxClass;
+import icu.buzz.lox.oop.LoxInstance;
+import icu.buzz.lox.stmt.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * snapshot of a global environment and everything reachable from it (environments, functions with their closures,
+ * classes, instances and natives), written after a prelude has run, so a new process restores it instead of running the prelude
+ * file: magic, interpreter version, declarations of all functions (AstCodec), object shells, object contents
+ * an object shell holds what its constructor needs (enclosing environment, closure, superclass, class of an instance),
+ * these never form a cycle, so shells are created in order, contents (variables, methods, fields) are filled afterwards,
+ * cycles like a function stored in its own closure are fine, objects shared in the heap are shared after restore
+ * natives are saved by class name and recreated by their public no-argument constructor, so they must be stateless,
+ * natives linked from a @LoxNative method are saved by declaring class and name, and found again among the natives Natives has linked
+ */
+public class HeapSnapshot {
+    private static final int MAGIC = 0x4c4f5853; // "LOXS"
+
+    // object kinds
+    private static final int ENVIRONMENT = 0;
+    private static final int FUNCTION = 1;
+    private static final int CLASS = 2;
+    private static final int INSTANCE = 3;
+    private static final int NATIVE = 4;
+    private static final int LINKED = 5;
+
+    // value tags
+    private static final int NIL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int NUMBER = 3;
+    private static final int STRING = 4;
+    private static final int OBJECT = 5;
+
+    private HeapSnapshot() {}
+
+    /**
+     * write @param: global and everything reachable from it to @param: path
+     * @throws IllegalArgumentException if a value of a kind unknown to the snapshot is reachable
+     */
+    public static void save(Environment global, Path path) throws IOException {
+        Writer writer = new Writer();
+        writer.object(global);
+        byte[] heap = writer.finish();
+        byte[] version = AstCache.version().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * 2 + version.length).putInt(MAGIC).putInt(version.length).put(version).flip();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(heap)};
+            while (buffers[1].hasRemaining()) channel.write(buffers);
+        }
+    }
+
+    /**
+     * @param path snapshot written by save with the same interpreter version
+     * @return restored global environment
+     * @throws IOException if file can not be read, or it is not a snapshot of this interpreter version
+     */
+    public static Environment load(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Files.size(path));
+        }
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException(path + " is not a lox snapshot");
+            byte[] version = new byte[buffer.getInt()];
+            buffer.get(version);
+            if (!new String(version, StandardCharsets.UTF_8).equals(AstCache.version())) {
+                throw new IOException(path + " is a snapshot of interpreter " + new String(version, StandardCharsets.UTF_8) + ", not " + AstCache.version());
+            }
+            return (Environment) new Reader(buffer).heap();
+        } catch (BufferUnderflowException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException(path + " is a broken lox snapshot", e);
+        }
+    }
+
+    private static final class Writer {
+        private final Map<Object, Integer> ids = new IdentityHashMap<>();
+        private final List<Object> objects = new ArrayList<>();
+        private final Map<Stmt.Fun, Integer> functionIds = new IdentityHashMap<>();
+        private final List<Stmt> functions = new ArrayList<>();
+        private final ByteArrayOutputStream shellBytes = new ByteArrayOutputStream();
+        private final DataOutputStream shells = new DataOutputStream(shellBytes);
+
+        private byte[] finish() throws IOException {
+            ByteArrayOutputStream contentBytes = new ByteArrayOutputStream();
+            DataOutputStream contents = new DataOutputStream(contentBytes);
+            // contents reach new objects, their shells are appended while walking
+            for (int i = 0; i < objects.size(); i++) content(objects.get(i), contents);
+            ByteArrayOutputStream heap = new ByteArrayOutputStream();
+            heap.write(AstCodec.encode(functions));
+            DataOutputStream out = new DataOutputStream(heap);
+            out.writeInt(objects.size());
+            shellBytes.writeTo(out);
+            contentBytes.writeTo(out);
+            return heap.toByteArray();
+        }
+
+        /**
+         * @return id of @param: object, its shell is written after shells it depends on
+         */
+        private int object(Object object) throws IOException {
+            Integer id = ids.get(object);
+            if (id != null) return id;
+            if (object instanceof Environment environment) {
+                int enclose = environment.getEnclose() == null ? -1 : object(environment.getEnclose());
+                shells.writeByte(ENVIRONMENT);
+                shells.writeInt(enclose);
+            } else if (object instanceof LoxFunction function) {
+                int closure = object(function.getClosure());
+                shells.writeByte(FUNCTION);
+                shells.writeInt(closure);
+                shells.writeInt(function(function.getDeclaration()));
+                shells.writeBoolean(function.isInitializer());
+            } else if (object instanceof LoxClass klass) {
+                int sup = klass.getSup() == null ? -1 : object(klass.getSup());
+                shells.writeByte(CLASS);
+                string(shells, klass.getName());
+                shells.writeInt(sup);
+            } else if (object instanceof LoxInstance instance) {
+                int klass = object(instance.getKlass());
+                shells.writeByte(INSTANCE);
+                shells.writeInt(klass);
+            } else if (object instanceof NativeFunction function) {
+                shells.writeByte(LINKED);
+                string(shells, function.method().getDeclaringClass().getName());
+                string(shells, function.method().getName());
+                string(shells, function.name());
+            } else if (object instanceof LoxCallable callable) {
+                try {
+                    callable.getClass().getConstructor();
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalArgumentException("native " + callable + " has no public no-argument constructor, it can not be saved in a snapshot");
+                }
+                shells.writeByte(NATIVE);
+                string(shells, callable.getClass().getName());
+            } else throw new IllegalArgumentException("value " + object + " can not be saved in a snapshot");
+            ids.put(object, objects.size());
+            objects.add(object);
+            return objects.size() - 1;
+        }
+
+        private int function(Stmt.Fun declaration) {
+            Integer id = functionIds.get(declaration);
+            if (id != null) return id;
+            functionIds.put(declaration, functions.size());
+            functions.add(declaration);
+            return functions.size() - 1;
+        }
+
+        private void content(Object object, DataOutputStream out) throws IOException {
+            if (object instanceof Environment environment) entries(environment.getValues(), out);
+            else if (object instanceof LoxClass klass) entries(klass.getMethods(), out);
+            else if (object instanceof LoxInstance instance) entries(instance.getFields(), out);
+        }
+
+        private void entries(Map<String, ?> entries, DataOutputStream out) throws IOException {
+            out.writeInt(entries.size());
+            for (Map.Entry<String, ?> entry : entries.entrySet()) {
+                string(out, entry.getKey());
+                value(entry.getValue(), out);
+            }
+        }
+
+        private void value(Object value, DataOutputStream out) throws IOException {
+            if (value == null) out.writeByte(NIL);
+            else if (value instanceof Boolean bool) out.writeByte(bool ? TRUE : FALSE);
+            else if (value instanceof Double number) {
+                out.writeByte(NUMBER);
+                out.writeDouble(number);
+            } else if (value instanceof String string) {
+                out.writeByte(STRING);
+                string(out, string);
+            } else {
+                out.writeByte(OBJECT);
+                out.writeInt(object(value));
+            }
+        }
+
+        private static void string(DataOutputStream out, String string) throws IOException {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private Object[] objects;
+        // method tables of restored classes, filled with contents
+        private final Map<LoxClass, Map<String, LoxMethod>> methods = new IdentityHashMap<>();
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Object heap() throws IOException {
+            List<Stmt> functions = AstCodec.decode(buffer);
+            objects = new Object[buffer.getInt()];
+            for (int i = 0; i < objects.length; i++) objects[i] = shell(functions);
+            for (Object object : objects) content(object);
+            return objects[0];
+        }
+
+        private Object shell(List<Stmt> functions) throws IOException {
+            return switch (buffer.get()) {
+                case ENVIRONMENT -> {
+                    int enclose = buffer.getInt();
+                    yield enclose < 0 ? new Environment() : new Environment((Environment) objects[enclose]);
+                }
+                case FUNCTION -> {
+                    Environment closure = (Environment) objects[buffer.getInt()];
+                    yield new LoxFunction((Stmt.Fun) functions.get(buffer.getInt()), closure, buffer.get() != 0);
+                }
+                case CLASS -> {
+                    String name = string();
+                    int sup = buffer.getInt();
+                    Map<String, LoxMethod> table = new HashMap<>();
+                    LoxClass klass = new LoxClass(name, sup < 0 ? null : (LoxClass) objects[sup], table);
+                    methods.put(klass, table);
+                    yield klass;
+                }
+                case INSTANCE -> new LoxInstance((LoxClass) objects[buffer.getInt()]);
+                case NATIVE -> {
+                    String name = string();
+                    try {
+                        yield (LoxCallable) Class.forName(name).getConstructor().newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IOException("native " + name + " can not be restored", e);
+                    }
+                }
+                case LINKED -> {
+                    String holder = string();
+                    String method = string();
+                    String name = string();
+                    try {
+                        NativeFunction function = Natives.linked(Class.forName(holder), name);
+                        if (function != null && function.method().getName().equals(method)) yield function;
+                    } catch (ReflectiveOperationException e) {
+                        throw new IOException("native " + name + " can not be restored", e);
+                    }
+                    throw new IOException("native " + name + " is no longer declared in " + holder);
+                }
+                default -> throw new IllegalArgumentException("unknown object kind at " + (buffer.position() - 1));
+            };
+        }
+
+        private void content(Object object) {
+            if (object instanceof Environment environment) {
+                for (int i = buffer.getInt(); i > 0; i--) environment.define(string(), value());
+            } else if (object instanceof LoxClass klass) {
+                Map<String, LoxMethod> table = methods.get(klass);
+                for (int i = buffer.getInt(); i > 0; i--) table.put(string(), (LoxMethod) value());
+            } else if (object instanceof LoxInstance instance) {
+                for (int i = buffer.getInt(); i > 0; i--) instance.set(string(), value(), false);
+            }
+        }
+
+        private Object value() {
+            return switch (buffer.get()) {
+                case NIL -> null;
+                case TRUE -> true;
+                case FALSE -> false;
+                case NUMBER -> buffer.getDouble();
+                case STRING -> string();
+                case OBJECT -> objects[buffer.getInt()];
+                default -> throw new IllegalArgumentException("unknown value tag at " + (buffer.position() - 1));
+            };
+        }
+
+        private String string() {
+            byte[] utf8 = new byte[buffer.getInt()];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package icu.buzz.lox.callable;
+
+import icu.buzz.lox.oop.LoxInstance;
+
+/**
+ * a callable can be declared as a class method, it can be bound to an instance
+ */
+public interface LoxMethod extends LoxCallable {
+    LoxMethod bind(LoxInstance instance);
+}
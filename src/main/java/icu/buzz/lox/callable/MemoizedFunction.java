@@ -0,0 +1,52 @@
+package icu.buzz.lox.callable;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.collection.LoxCache;
+import icu.buzz.lox.collection.PersistentVector;
+
+import java.util.List;
+
+/**
+ * function made by memoize(fn, cache): a call with arguments seen before returns the cached result instead of calling fn
+ * key is fn with the only argument itself, or with a vector of all arguments, so calls match by lox == on each argument,
+ * and functions memoized in the same cache never share an entry
+ * fn should be pure, the cache is not locked while fn runs, two tasks missing the same key may both call it
+ */
+public class MemoizedFunction implements LoxCallable {
+    private final LoxCallable function;
+    private final LoxCache cache;
+
+    public MemoizedFunction(LoxCallable function, LoxCache cache) {
+        this.function = function;
+        this.cache = cache;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Object key = key(arguments);
+        Object result = cache.get(key);
+        if (result != LoxCache.MISSING) return result;
+        result = function.call(interpreter, arguments);
+        cache.put(key, result);
+        return result;
+    }
+
+    @Override
+    public int arity() {
+        return function.arity();
+    }
+
+    private Object key(List<Object> arguments) {
+        if (arguments.size() == 1) return new Key(function, arguments.get(0));
+        PersistentVector.Transient key = PersistentVector.EMPTY.asTransient();
+        for (Object argument : arguments) key.push(argument);
+        return new Key(function, key.persistent());
+    }
+
+    @Override
+    public String toString() {
+        return "<lox memoized> " + function;
+    }
+
+    private record Key(LoxCallable function, Object arguments) {}
+}
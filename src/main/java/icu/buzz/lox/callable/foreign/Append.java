@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Append implements LoxCallable {
+
+    // append(vector, value): a new vector with value after the last element
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof PersistentVector vector)) throw new NativeError("append expects a vector");
+        return vector.append(arguments.get(1));
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> append";
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxArray;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Array implements LoxCallable {
+
+    // array(length): a new array of length elements, all nil
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof Double length) || length < 0 || length != Math.floor(length) || length > Integer.MAX_VALUE - 8) {
+            throw new NativeError("array length should be a non-negative integer");
+        }
+        return new LoxArray(length.intValue());
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> array";
+    }
+}
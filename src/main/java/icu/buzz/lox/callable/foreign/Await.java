@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.LoxTask;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Await implements LoxCallable {
+
+    // await(task): wait for task to end, return what its function returned, a runtime error of task is raised again
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxTask task)) throw new NativeError("await expects a task");
+        return task.await();
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> await";
+    }
+}
@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxCache;
+
+import java.util.List;
+
+public class Cache implements LoxCallable {
+
+    // cache(maxEntries): a new cache keeping at most maxEntries entries
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return LoxCache.of(arguments.get(0), 0);
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> cache";
+    }
+}
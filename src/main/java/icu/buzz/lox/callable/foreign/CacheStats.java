@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxCache;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class CacheStats implements LoxCallable {
+
+    // cacheStats(cache): a map of hits, misses, evictions, expirations, hitRate and size
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxCache cache)) throw new NativeError("cacheStats expects a cache");
+        return cache.stats();
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> cacheStats";
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.LoxChannel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Channel implements LoxCallable {
+
+    // channel(capacity): a new channel holding up to capacity values, 0 for a channel without buffer
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof Double capacity) || capacity < 0 || capacity != Math.floor(capacity) || capacity > Integer.MAX_VALUE) {
+            throw new NativeError("channel capacity should be a non-negative integer");
+        }
+        return new LoxChannel(capacity.intValue());
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> channel";
+    }
+}
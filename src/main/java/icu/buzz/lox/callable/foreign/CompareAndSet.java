@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.oop.LoxInstance;
+
+import java.util.List;
+
+public class CompareAndSet implements LoxCallable {
+
+    // compareAndSet(instance, "field", expected, value): atomically set field to value if it equals expected, return true if set
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxInstance instance)) throw new NativeError("compareAndSet expects an instance");
+        if (!(arguments.get(1) instanceof String name)) throw new NativeError("compareAndSet expects a field name");
+        if (!instance.hasField(name)) throw new NativeError("Undefined property " + name);
+        return instance.compareAndSet(name, arguments.get(2), arguments.get(3));
+    }
+
+    @Override
+    public int arity() {
+        return 4;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> compareAndSet";
+    }
+}
@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxCache;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class ExpiringCache implements LoxCallable {
+
+    // expiringCache(maxEntries, seconds): a new cache whose entries expire seconds after they are written
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(1) instanceof Double seconds) || !(seconds > 0)) throw new NativeError("expiry should be a positive number of seconds");
+        return LoxCache.of(arguments.get(0), Math.max(1, (long) (seconds * 1e9)));
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> expiringCache";
+    }
+}
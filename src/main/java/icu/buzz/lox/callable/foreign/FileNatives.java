@@ -0,0 +1,37 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.io.LoxFile;
+
+/**
+ * file natives, linked by Natives.register, lines(path, fn) calls back into lox and is the native Lines,
+ * open(path, mode) keeps the file in the files of the run and is the native Open
+ */
+public class FileNatives {
+
+    private FileNatives() {}
+
+    // readLine(file): next line of file without its terminator, nil at end of file
+    @LoxNative
+    public static Object readLine(Object file) {
+        return file(file, "readLine").readLine();
+    }
+
+    // write(file, value): write value, stringified as print does, and a newline
+    @LoxNative
+    public static void write(Object file, Object value) {
+        file(file, "write").write(Interpreter.stringify(value));
+    }
+
+    // close(file): flush and close file
+    @LoxNative
+    public static void close(Object file) {
+        file(file, "close").close();
+    }
+
+    private static LoxFile file(Object file, String name) {
+        if (file instanceof LoxFile loxFile) return loxFile;
+        throw new NativeError(name + " expects a file as argument 1");
+    }
+}
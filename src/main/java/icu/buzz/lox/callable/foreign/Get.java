@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.Elements;
+
+import java.util.List;
+
+public class Get implements LoxCallable {
+
+    // get(collection, index or key): element at index, or value of key, nil if there is none
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return Elements.get(arguments.get(0), arguments.get(1));
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> get";
+    }
+}
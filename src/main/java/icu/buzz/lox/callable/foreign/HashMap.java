@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentMap;
+
+import java.util.List;
+
+public class HashMap implements LoxCallable {
+
+    // hashMap(): the empty persistent map
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return PersistentMap.EMPTY;
+    }
+
+    @Override
+    public int arity() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> hashMap";
+    }
+}
@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.Elements;
+
+import java.util.List;
+
+public class Length implements LoxCallable {
+
+    // length(collection): number of elements or keys
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return (double) Elements.length(arguments.get(0));
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> length";
+    }
+}
@@ -0,0 +1,39 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.io.LoxFile;
+
+import java.util.List;
+
+public class Lines implements LoxCallable {
+
+    // lines(path, fn): call fn(line) for every line of the file at path, read memory mapped, return number of lines
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof String path)) throw new NativeError("lines expects a path as argument 1");
+        if (!(arguments.get(1) instanceof LoxCallable function) || function.arity() != 1) throw new NativeError("lines expects a function of 1 parameter");
+        LoxFile file = LoxFile.open(path, "m");
+        try {
+            long count = 0;
+            for (String line = file.readLine(); line != null; line = file.readLine()) {
+                function.call(interpreter, List.of(line));
+                count++;
+            }
+            return (double) count;
+        } finally {
+            file.close();
+        }
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> lines";
+    }
+}
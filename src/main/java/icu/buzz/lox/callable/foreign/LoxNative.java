@@ -0,0 +1,19 @@
+package icu.buzz.lox.callable.foreign;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * marks a public static method as a lox native, Natives.register defines it as a global named after the method (or value)
+ * parameters may be double, int, long, boolean, String or Object, results the same or void (nil)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface LoxNative {
+    /**
+     * @return name of global, method name if empty
+     */
+    String value() default "";
+}
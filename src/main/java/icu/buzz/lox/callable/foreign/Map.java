@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxMap;
+
+import java.util.List;
+
+public class Map implements LoxCallable {
+
+    // map(): a new empty map
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return new LoxMap();
+    }
+
+    @Override
+    public int arity() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> map";
+    }
+}
@@ -0,0 +1,67 @@
+package icu.buzz.lox.callable.foreign;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * math natives, linked by Natives.register
+ */
+public class MathNatives {
+
+    private MathNatives() {}
+
+    @LoxNative
+    public static double sqrt(double x) {
+        return Math.sqrt(x);
+    }
+
+    @LoxNative
+    public static double abs(double x) {
+        return Math.abs(x);
+    }
+
+    @LoxNative
+    public static double floor(double x) {
+        return Math.floor(x);
+    }
+
+    @LoxNative
+    public static double ceil(double x) {
+        return Math.ceil(x);
+    }
+
+    @LoxNative
+    public static double pow(double base, double exponent) {
+        return Math.pow(base, exponent);
+    }
+
+    @LoxNative
+    public static double min(double a, double b) {
+        return Math.min(a, b);
+    }
+
+    @LoxNative
+    public static double max(double a, double b) {
+        return Math.max(a, b);
+    }
+
+    @LoxNative
+    public static double sin(double x) {
+        return Math.sin(x);
+    }
+
+    @LoxNative
+    public static double cos(double x) {
+        return Math.cos(x);
+    }
+
+    @LoxNative
+    public static double log(double x) {
+        return Math.log(x);
+    }
+
+    // random(): uniform in [0, 1)
+    @LoxNative
+    public static double random() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.MemoizedFunction;
+import icu.buzz.lox.collection.LoxCache;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Memoize implements LoxCallable {
+
+    // memoize(fn, cache): a function of the same arity returning results of fn cached by arguments
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxCallable function)) throw new NativeError("memoize expects a function");
+        if (!(arguments.get(1) instanceof LoxCache cache)) throw new NativeError("memoize expects a cache");
+        return new MemoizedFunction(function, cache);
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> memoize";
+    }
+}
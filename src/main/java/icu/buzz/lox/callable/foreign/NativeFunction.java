@@ -0,0 +1,199 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * a static method marked @LoxNative as a lox function, linked once into a method handle taking and returning lox values:
+ * every parameter is filtered by a converter from Object (a number to double, int or long, ...) which raises a NativeError
+ * naming the native and argument, the result is converted back (int and long to Double, void to nil)
+ * interpreters call natives of up to 3 parameters through call(a, b, c) with invokeExact, no List and no reflection,
+ * call(interpreter, arguments) spreads a List for other callers
+ * every native is an instance of its own hidden copy of NativeStub holding the handle in a static final field,
+ * JIT takes the handle as a constant and inlines the native method into call(a, b, c)
+ * linking is done once per holder class by Natives, the instances are shared by all global environments
+ */
+public abstract class NativeFunction implements LoxCallable {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    // (Object...)Object handles are called with the exact type of their arity
+    public static final int FAST_ARITY = 3;
+    // class file of NativeStub, every native defines a hidden class of it
+    private static byte[] stubClass;
+
+    private final String name;
+    private final Method method;
+    private final int arity;
+    // (Object[])Object
+    private final MethodHandle spread;
+
+    NativeFunction(String name, Method method, MethodHandle exact) {
+        this.name = name;
+        this.method = method;
+        this.arity = method.getParameterCount();
+        this.spread = exact.asSpreader(Object[].class, arity);
+    }
+
+    /**
+     * link a new native, Natives.linked keeps the natives of a holder class linked once
+     * @param method public static method marked @LoxNative
+     * @throws IllegalArgumentException if method is not static, or has a parameter or result of a type lox has no value of
+     */
+    public static NativeFunction of(Method method) {
+        LoxNative annotation = method.getAnnotation(LoxNative.class);
+        String name = annotation == null || annotation.value().isEmpty() ? method.getName() : annotation.value();
+        if (!Modifier.isStatic(method.getModifiers())) throw new IllegalArgumentException("native " + name + " should be static");
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("native " + name + " should be public", e);
+        }
+        Class<?>[] parameters = method.getParameterTypes();
+        MethodHandle[] filters = new MethodHandle[parameters.length];
+        for (int i = 0; i < parameters.length; i++) filters[i] = MethodHandles.insertArguments(converter(name, parameters[i]), 0, name, i + 1);
+        handle = MethodHandles.filterArguments(handle, 0, filters);
+        Class<?> result = method.getReturnType();
+        if (result == int.class || result == long.class) handle = MethodHandles.filterReturnValue(handle, find("number", MethodType.methodType(Object.class, long.class)).asType(MethodType.methodType(Object.class, result)));
+        else if (result != void.class && result != double.class && result != boolean.class && result != String.class && result != Object.class) {
+            throw new IllegalArgumentException("native " + name + " returns " + result.getSimpleName() + ", which is not a lox value");
+        }
+        // boxes double and boolean, void gives null
+        return stub(name, method, handle.asType(MethodType.genericMethodType(parameters.length)));
+    }
+
+    /**
+     * @return instance of a hidden class of NativeStub whose handle is @param: exact
+     */
+    private static NativeFunction stub(String name, Method method, MethodHandle exact) {
+        try {
+            MethodHandles.Lookup hidden = LOOKUP.defineHiddenClassWithClassData(stubClassFile(), exact, true);
+            MethodHandle constructor = hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class, String.class, Method.class, MethodHandle.class));
+            return (NativeFunction) constructor.invoke(name, method, exact);
+        } catch (Throwable e) {
+            throw new IllegalStateException("native " + name + " can not be linked", e);
+        }
+    }
+
+    private static synchronized byte[] stubClassFile() throws IOException {
+        if (stubClass == null) {
+            try (InputStream in = NativeFunction.class.getResourceAsStream("NativeStub.class")) {
+                if (in == null) throw new IOException("NativeStub.class is missing");
+                stubClass = in.readAllBytes();
+            }
+        }
+        return stubClass;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return method this native calls, e.g. to save it in a snapshot
+     */
+    public Method method() {
+        return method;
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        try {
+            return spread.invokeExact(arguments.toArray());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError(name + " failed: " + e);
+        }
+    }
+
+    /**
+     * call a native of arity 0
+     */
+    public abstract Object call();
+
+    /**
+     * call a native of arity 1
+     */
+    public abstract Object call(Object a);
+
+    /**
+     * call a native of arity 2
+     */
+    public abstract Object call(Object a, Object b);
+
+    /**
+     * call a native of arity 3
+     */
+    public abstract Object call(Object a, Object b, Object c);
+
+    /**
+     * @return (String, int, Object)type converting a lox value to @param: type
+     */
+    private static MethodHandle converter(String name, Class<?> type) {
+        if (type == double.class) return find("toDouble", MethodType.methodType(double.class, String.class, int.class, Object.class));
+        if (type == int.class) return find("toInt", MethodType.methodType(int.class, String.class, int.class, Object.class));
+        if (type == long.class) return find("toLong", MethodType.methodType(long.class, String.class, int.class, Object.class));
+        if (type == boolean.class) return find("toBoolean", MethodType.methodType(boolean.class, String.class, int.class, Object.class));
+        if (type == String.class) return find("toText", MethodType.methodType(String.class, String.class, int.class, Object.class));
+        if (type == Object.class) return MethodHandles.dropArguments(MethodHandles.identity(Object.class), 0, String.class, int.class);
+        throw new IllegalArgumentException("native " + name + " takes " + type.getSimpleName() + ", which is not a lox value");
+    }
+
+    private static MethodHandle find(String converter, MethodType type) {
+        try {
+            return LOOKUP.findStatic(NativeFunction.class, converter, type);
+        } catch (ReflectiveOperationException e) {
+            // converters are declared below
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double toDouble(String name, int position, Object value) {
+        if (value instanceof Double number) return number;
+        throw new NativeError(name + " expects a number as argument " + position);
+    }
+
+    private static int toInt(String name, int position, Object value) {
+        if (value instanceof Double number && number == Math.rint(number) && number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) return number.intValue();
+        throw new NativeError(name + " expects an integer as argument " + position);
+    }
+
+    private static long toLong(String name, int position, Object value) {
+        if (value instanceof Double number && number == Math.rint(number) && Math.abs(number) <= 0x1p53) return number.longValue();
+        throw new NativeError(name + " expects an integer as argument " + position);
+    }
+
+    private static boolean toBoolean(String name, int position, Object value) {
+        if (value instanceof Boolean bool) return bool;
+        throw new NativeError(name + " expects true or false as argument " + position);
+    }
+
+    private static String toText(String name, int position, Object value) {
+        if (value instanceof String string) return string;
+        throw new NativeError(name + " expects a string as argument " + position);
+    }
+
+    private static Object number(long value) {
+        return (double) value;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> " + name;
+    }
+}
@@ -0,0 +1,73 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/**
+ * template of a linked native, never loaded as it is: NativeFunction defines a hidden class of its class file for every native,
+ * with the (Object x arity)Object handle of the native as class data
+ * a call of the wrong arity fails with WrongMethodTypeException, interpreters check arity first
+ */
+final class NativeStub extends NativeFunction {
+    private static final MethodHandle EXACT;
+
+    static {
+        try {
+            EXACT = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    NativeStub(String name, Method method, MethodHandle exact) {
+        super(name, method, exact);
+    }
+
+    @Override
+    public Object call() {
+        try {
+            return EXACT.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError(name() + " failed: " + e);
+        }
+    }
+
+    @Override
+    public Object call(Object a) {
+        try {
+            return EXACT.invokeExact(a);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError(name() + " failed: " + e);
+        }
+    }
+
+    @Override
+    public Object call(Object a, Object b) {
+        try {
+            return EXACT.invokeExact(a, b);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError(name() + " failed: " + e);
+        }
+    }
+
+    @Override
+    public Object call(Object a, Object b, Object c) {
+        try {
+            return EXACT.invokeExact(a, b, c);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new NativeError(name() + " failed: " + e);
+        }
+    }
+}
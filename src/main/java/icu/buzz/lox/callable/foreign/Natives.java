@@ -0,0 +1,88 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Environment;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * native functions every program starts with
+ */
+public class Natives {
+    /**
+     * natives of a holder class, linked on first use and shared by every global environment, so a new interpreter
+     * only defines them, sorted by name, globals are defined in the same order every run
+     */
+    private static final ClassValue<List<NativeFunction>> LINKED = new ClassValue<>() {
+        @Override
+        protected List<NativeFunction> computeValue(Class<?> natives) {
+            TreeMap<String, NativeFunction> functions = new TreeMap<>();
+            for (Method method : natives.getDeclaredMethods()) {
+                if (!method.isAnnotationPresent(LoxNative.class)) continue;
+                NativeFunction function = NativeFunction.of(method);
+                if (functions.put(function.name(), function) != null) throw new IllegalArgumentException("native " + function.name() + " is declared twice in " + natives.getName());
+            }
+            return List.copyOf(functions.values());
+        }
+    };
+
+    private Natives() {}
+
+    /**
+     * define natives in @param: global
+     */
+    public static void define(Environment global) {
+        global.define("clock", new Clock());
+        global.define("spawn", new Spawn());
+        global.define("await", new Await());
+        global.define("channel", new Channel());
+        global.define("send", new Send());
+        global.define("receive", new Receive());
+        global.define("compareAndSet", new CompareAndSet());
+        global.define("array", new Array());
+        global.define("get", new Get());
+        global.define("set", new Set());
+        global.define("length", new Length());
+        global.define("push", new Push());
+        global.define("map", new Map());
+        global.define("has", new Has());
+        global.define("remove", new Remove());
+        global.define("next", new Next());
+        global.define("vector", new Vector());
+        global.define("hashMap", new HashMap());
+        global.define("append", new Append());
+        global.define("with", new With());
+        global.define("without", new Without());
+        global.define("transient", new Transient());
+        global.define("persistent", new Persistent());
+        global.define("cache", new Cache());
+        global.define("expiringCache", new ExpiringCache());
+        global.define("cacheStats", new CacheStats());
+        global.define("memoize", new Memoize());
+        global.define("parallelMap", new ParallelMap());
+        global.define("parallelReduce", new ParallelReduce());
+        global.define("parallelFor", new ParallelFor());
+        global.define("open", new Open());
+        global.define("lines", new Lines());
+        register(global, MathNatives.class);
+        register(global, StringNatives.class);
+        register(global, FileNatives.class);
+    }
+
+    /**
+     * define every public static method of @param: natives marked @LoxNative in @param: global, linked by NativeFunction
+     * @throws IllegalArgumentException if a marked method can not be a native, or two have the same name
+     */
+    public static void register(Environment global, Class<?> natives) {
+        for (NativeFunction function : LINKED.get(natives)) global.define(function.name(), function);
+    }
+
+    /**
+     * @return native @param: name of holder class @param: natives, null if it declares none of that name
+     */
+    public static NativeFunction linked(Class<?> natives, String name) {
+        for (NativeFunction function : LINKED.get(natives)) if (function.name().equals(name)) return function;
+        return null;
+    }
+}
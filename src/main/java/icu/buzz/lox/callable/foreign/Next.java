@@ -0,0 +1,31 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxMap;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Next implements LoxCallable {
+
+    // next(map, key): key after key, first key for nil, nil after the last one
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof LoxMap map) return map.next(arguments.get(1));
+        if (arguments.get(0) instanceof PersistentMap map) return map.next(arguments.get(1));
+        if (arguments.get(0) instanceof PersistentMap.Transient map) return map.next(arguments.get(1));
+        throw new NativeError("next expects a map");
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> next";
+    }
+}
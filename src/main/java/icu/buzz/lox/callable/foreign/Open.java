@@ -0,0 +1,33 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.io.LoxFile;
+
+import java.util.List;
+
+public class Open implements LoxCallable {
+
+    // open(path, mode): file handle, mode is "r" (read), "w" (write), "a" (append) or "m" (read memory mapped),
+    // a file still open when the run ends is flushed and closed then
+    // a relative path is resolved against the working directory of the jvm, under LoxDaemon that is the daemon's, not the client's
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof String path)) throw new NativeError("open expects a path as argument 1");
+        if (!(arguments.get(1) instanceof String mode)) throw new NativeError("open expects a mode as argument 2");
+        LoxFile file = LoxFile.open(path, mode);
+        interpreter.getFiles().add(file);
+        return file;
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> open";
+    }
+}
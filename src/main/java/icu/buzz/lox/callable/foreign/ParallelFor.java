@@ -0,0 +1,32 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.Parallel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class ParallelFor implements LoxCallable {
+
+    // parallelFor(from, to, fn): call fn(i) for every integer i from from to to (exclusive) on several threads
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof Double from) || from != Math.floor(from) || !(arguments.get(1) instanceof Double to) || to != Math.floor(to)) {
+            throw new NativeError("parallelFor expects integer bounds");
+        }
+        if (!(arguments.get(2) instanceof LoxCallable function) || function.arity() != 1) throw new NativeError("parallelFor expects a function of 1 parameter");
+        Parallel.range(interpreter, from.longValue(), to.longValue(), function);
+        return null;
+    }
+
+    @Override
+    public int arity() {
+        return 3;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> parallelFor";
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxArray;
+import icu.buzz.lox.concurrent.Parallel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class ParallelMap implements LoxCallable {
+
+    // parallelMap(array, fn): a new array of fn(element) for every element, fn is called on several threads
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxArray array)) throw new NativeError("parallelMap expects an array");
+        if (!(arguments.get(1) instanceof LoxCallable function) || function.arity() != 1) throw new NativeError("parallelMap expects a function of 1 parameter");
+        return Parallel.map(interpreter, array, function);
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> parallelMap";
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxArray;
+import icu.buzz.lox.concurrent.Parallel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class ParallelReduce implements LoxCallable {
+
+    // parallelReduce(array, fn, init): fold elements with fn(a, b), fn should be associative and init its identity
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxArray array)) throw new NativeError("parallelReduce expects an array");
+        if (!(arguments.get(1) instanceof LoxCallable function) || function.arity() != 2) throw new NativeError("parallelReduce expects a function of 2 parameters");
+        return Parallel.reduce(interpreter, array, function, arguments.get(2));
+    }
+
+    @Override
+    public int arity() {
+        return 3;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> parallelReduce";
+    }
+}
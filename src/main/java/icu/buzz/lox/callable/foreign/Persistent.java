@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Persistent implements LoxCallable {
+
+    // persistent(transient): the vector or hashMap built, transient can not be used afterwards
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof PersistentVector.Transient vector) return vector.persistent();
+        if (arguments.get(0) instanceof PersistentMap.Transient map) return map.persistent();
+        throw new NativeError("persistent expects a transient");
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> persistent";
+    }
+}
@@ -0,0 +1,34 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxArray;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Push implements LoxCallable {
+
+    // push(array or transient vector, value): append value, return new length
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof PersistentVector.Transient vector) {
+            vector.push(arguments.get(1));
+            return (double) vector.length();
+        }
+        if (!(arguments.get(0) instanceof LoxArray array)) throw new NativeError("push expects an array or a transient vector");
+        array.push(arguments.get(1));
+        return (double) array.length();
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> push";
+    }
+}
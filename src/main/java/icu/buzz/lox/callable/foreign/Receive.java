@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.LoxChannel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Receive implements LoxCallable {
+
+    // receive(channel): take the oldest value out of channel, wait while channel is empty
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxChannel channel)) throw new NativeError("receive expects a channel");
+        return channel.receive();
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> receive";
+    }
+}
@@ -0,0 +1,32 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxCache;
+import icu.buzz.lox.collection.LoxMap;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Remove implements LoxCallable {
+
+    // remove(map, transient map or cache, key): remove key, true if it was in map
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof LoxMap map) return map.remove(arguments.get(1));
+        if (arguments.get(0) instanceof PersistentMap.Transient map) return map.remove(arguments.get(1));
+        if (arguments.get(0) instanceof LoxCache cache) return cache.remove(arguments.get(1));
+        throw new NativeError("remove expects a map, a transient map or a cache");
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> remove";
+    }
+}
@@ -0,0 +1,29 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.LoxChannel;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Send implements LoxCallable {
+
+    // send(channel, value): put value into channel, wait while channel is full
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxChannel channel)) throw new NativeError("send expects a channel");
+        channel.send(arguments.get(1));
+        return null;
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> send";
+    }
+}
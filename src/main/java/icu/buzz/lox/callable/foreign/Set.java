@@ -0,0 +1,27 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.Elements;
+
+import java.util.List;
+
+public class Set implements LoxCallable {
+
+    // set(collection, index or key, value): replace element at index or put key, return value
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Elements.set(arguments.get(0), arguments.get(1), arguments.get(2));
+        return arguments.get(2);
+    }
+
+    @Override
+    public int arity() {
+        return 3;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> set";
+    }
+}
@@ -0,0 +1,29 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.concurrent.LoxTask;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Spawn implements LoxCallable {
+
+    // spawn(fn): call function fn (no parameters) in a new task, return the task
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof LoxCallable function)) throw new NativeError("spawn expects a function");
+        if (function.arity() != 0) throw new NativeError("spawn expects a function without parameters, but got one of " + function.arity());
+        return LoxTask.spawn(interpreter, function);
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> spawn";
+    }
+}
@@ -0,0 +1,138 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.collection.Elements;
+import icu.buzz.lox.collection.LoxArray;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Locale;
+
+/**
+ * string natives, linked by Natives.register
+ * they work on the java String lox values already are, and search it in place (no regex, no char arrays),
+ * positions count utf-16 chars like len, an end position is exclusive
+ */
+public class StringNatives {
+
+    private StringNatives() {}
+
+    // len(s): number of chars of s
+    @LoxNative
+    public static int len(String s) {
+        return s.length();
+    }
+
+    // substr(s, start, end): chars of s from start up to end
+    @LoxNative
+    public static String substr(String s, int start, int end) {
+        if (start < 0 || end > s.length() || start > end) throw new NativeError("substr range [" + start + ", " + end + ") is out of string of length " + s.length());
+        return s.substring(start, end);
+    }
+
+    // indexOf(s, part): position of the first part in s, -1 if there is none
+    @LoxNative
+    public static int indexOf(String s, String part) {
+        return s.indexOf(part);
+    }
+
+    // split(s, separator): array of the pieces of s between separators, an empty separator splits s into chars
+    @LoxNative
+    public static Object split(String s, String separator) {
+        if (separator.isEmpty()) {
+            Object[] chars = new Object[s.length()];
+            for (int i = 0; i < chars.length; i++) chars[i] = String.valueOf(s.charAt(i));
+            return LoxArray.of(chars);
+        }
+        // count pieces first, the array is allocated once at its length
+        int pieces = 1;
+        for (int i = s.indexOf(separator); i >= 0; i = s.indexOf(separator, i + separator.length())) pieces++;
+        Object[] parts = new Object[pieces];
+        int start = 0;
+        for (int i = 0; i < pieces - 1; i++) {
+            int end = s.indexOf(separator, start);
+            parts[i] = s.substring(start, end);
+            start = end + separator.length();
+        }
+        parts[pieces - 1] = s.substring(start);
+        return LoxArray.of(parts);
+    }
+
+    // join(sequence, separator): elements of an array or vector, stringified as print does, with separator between them
+    @LoxNative
+    public static String join(Object sequence, String separator) {
+        if (!(sequence instanceof LoxArray) && !(sequence instanceof PersistentVector)) throw new NativeError("join expects an array or a vector as argument 1");
+        int count = Elements.length(sequence);
+        if (count == 0) return "";
+        String[] parts = new String[count];
+        long length = (long) separator.length() * (count - 1);
+        for (int i = 0; i < count; i++) {
+            parts[i] = Interpreter.stringify(Elements.get(sequence, (double) i));
+            length += parts[i].length();
+        }
+        if (length > Integer.MAX_VALUE - 8) throw new NativeError("join result is too long");
+        // sized exactly, the builder never grows
+        StringBuilder builder = new StringBuilder((int) length);
+        builder.append(parts[0]);
+        for (int i = 1; i < count; i++) builder.append(separator).append(parts[i]);
+        return builder.toString();
+    }
+
+    // replace(s, target, replacement): s with every target replaced
+    @LoxNative
+    public static String replace(String s, String target, String replacement) {
+        return s.replace(target, replacement);
+    }
+
+    // toUpper(s): s in upper case, the same in every locale
+    @LoxNative
+    public static String toUpper(String s) {
+        return s.toUpperCase(Locale.ROOT);
+    }
+
+    // trim(s): s without leading and trailing whitespace
+    @LoxNative
+    public static String trim(String s) {
+        return s.strip();
+    }
+
+    // parseNumber(s): number written in s as a lox literal, with an optional '-', nil if s is not one
+    @LoxNative
+    public static Object parseNumber(String s) {
+        int length = s.length();
+        int i = length > 0 && s.charAt(0) == '-' ? 1 : 0;
+        int digits = i;
+        long integer = 0;
+        while (digits < length && isDigit(s.charAt(digits))) integer = integer * 10 + (s.charAt(digits++) - '0');
+        if (digits == i) return null;
+        if (digits == length) {
+            // up to 15 digits a long holds the value exactly, as a double does, -0 is a double only
+            if (digits - i <= 15) return i == 1 ? -(double) integer : (double) integer;
+            return Double.parseDouble(s);
+        }
+        if (s.charAt(digits) != '.' || digits + 1 == length) return null;
+        for (int j = digits + 1; j < length; j++) if (!isDigit(s.charAt(j))) return null;
+        return Double.parseDouble(s);
+    }
+
+    // format(template, values): template with each {} replaced by the next of values (an array or vector), stringified
+    @LoxNative
+    public static String format(String template, Object values) {
+        if (!(values instanceof LoxArray) && !(values instanceof PersistentVector)) throw new NativeError("format expects an array or a vector as argument 2");
+        int count = Elements.length(values);
+        StringBuilder builder = new StringBuilder(template.length() + 8 * count);
+        int used = 0;
+        int start = 0;
+        for (int i = template.indexOf("{}"); i >= 0; i = template.indexOf("{}", start)) {
+            if (used == count) throw new NativeError("format has more {} than the " + count + " values");
+            builder.append(template, start, i).append(Interpreter.stringify(Elements.get(values, (double) used++)));
+            start = i + 2;
+        }
+        if (used < count) throw new NativeError("format has " + count + " values but only " + used + " {}");
+        return builder.append(template, start, template.length()).toString();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
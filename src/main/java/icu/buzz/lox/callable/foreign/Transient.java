@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Transient implements LoxCallable {
+
+    // transient(vector or hashMap): a copy changed in place by push, set and remove until persistent() is called
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof PersistentVector vector) return vector.asTransient();
+        if (arguments.get(0) instanceof PersistentMap map) return map.asTransient();
+        throw new NativeError("transient expects a vector or a hashMap");
+    }
+
+    @Override
+    public int arity() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> transient";
+    }
+}
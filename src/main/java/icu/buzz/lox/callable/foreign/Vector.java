@@ -0,0 +1,26 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentVector;
+
+import java.util.List;
+
+public class Vector implements LoxCallable {
+
+    // vector(): the empty persistent vector
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return PersistentVector.EMPTY;
+    }
+
+    @Override
+    public int arity() {
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> vector";
+    }
+}
@@ -0,0 +1,30 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.collection.PersistentVector;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class With implements LoxCallable {
+
+    // with(vector, index, value), with(hashMap, key, value): a new collection with value at index or key
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (arguments.get(0) instanceof PersistentMap map) return map.with(arguments.get(1), arguments.get(2));
+        if (!(arguments.get(0) instanceof PersistentVector vector)) throw new NativeError("with expects a vector or a hashMap");
+        return vector.with(vector.index(arguments.get(1)), arguments.get(2));
+    }
+
+    @Override
+    public int arity() {
+        return 3;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> with";
+    }
+}
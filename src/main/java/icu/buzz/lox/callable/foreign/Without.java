@@ -0,0 +1,28 @@
+package icu.buzz.lox.callable.foreign;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.PersistentMap;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+
+public class Without implements LoxCallable {
+
+    // without(hashMap, key): a new map without key
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        if (!(arguments.get(0) instanceof PersistentMap map)) throw new NativeError("without expects a hashMap");
+        return map.without(arguments.get(1));
+    }
+
+    @Override
+    public int arity() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "<lox native function> without";
+    }
+}
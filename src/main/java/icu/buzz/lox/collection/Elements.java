@@ -0,0 +1,60 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+/**
+ * reading and writing elements of any collection, shared by indexing (a[i], a[i] = v) and natives get, set and length
+ * arrays and vectors take integer indexes in bounds, maps take any key but nil, a cache reads nil for a key it misses
+ */
+public final class Elements {
+
+    private Elements() {}
+
+    /**
+     * @return element of @param: collection at @param: key
+     * @throws NativeError if collection is not a collection, or key is not an index in bounds
+     */
+    public static Object get(Object collection, Object key) {
+        if (collection instanceof LoxArray array) return array.get(array.index(key));
+        if (collection instanceof LoxMap map) return map.get(key);
+        if (collection instanceof PersistentVector vector) return vector.get(vector.index(key));
+        if (collection instanceof PersistentMap map) return map.get(key);
+        if (collection instanceof PersistentVector.Transient vector) return vector.get(vector.index(key));
+        if (collection instanceof PersistentMap.Transient map) return map.get(key);
+        if (collection instanceof LoxCache cache) {
+            Object value = cache.get(key);
+            return value == LoxCache.MISSING ? null : value;
+        }
+        throw new NativeError("only an array, a map or a vector can be indexed");
+    }
+
+    /**
+     * store @param: value in @param: collection at @param: key
+     * @throws NativeError if collection can not be changed in place, or key is not an index in bounds
+     */
+    public static void set(Object collection, Object key, Object value) {
+        if (collection instanceof LoxArray array) array.set(array.index(key), value);
+        else if (collection instanceof LoxMap map) map.put(key, value);
+        else if (collection instanceof PersistentVector.Transient vector) vector.set(vector.index(key), value);
+        else if (collection instanceof PersistentMap.Transient map) map.put(key, value);
+        else if (collection instanceof LoxCache cache) cache.put(key, value);
+        else if (collection instanceof PersistentVector || collection instanceof PersistentMap) {
+            throw new NativeError("a persistent collection can not be changed, with() returns a changed copy");
+        } else throw new NativeError("only an array, a map or a vector can be indexed");
+    }
+
+    /**
+     * @return number of elements or keys of @param: collection
+     * @throws NativeError if collection is not a collection
+     */
+    public static int length(Object collection) {
+        if (collection instanceof LoxArray array) return array.length();
+        if (collection instanceof LoxMap map) return map.size();
+        if (collection instanceof PersistentVector vector) return vector.length();
+        if (collection instanceof PersistentMap map) return map.size();
+        if (collection instanceof PersistentVector.Transient vector) return vector.length();
+        if (collection instanceof PersistentMap.Transient map) return map.size();
+        if (collection instanceof LoxCache cache) return cache.size();
+        throw new NativeError("length expects an array, a map or a vector");
+    }
+}
@@ -0,0 +1,120 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * growable array of lox values, created by array(length) with every element nil, grown by push, indexed by a[i]
+ * an array holding only numbers (and nil) keeps them in a double[], 8 bytes an element and no Double objects,
+ * it switches to an Object[] the first time anything else is stored, and stays so
+ * nil in a double[] is a NaN with a payload lox arithmetic never produces (NaNs it makes are the canonical one)
+ * elements are plain array slots: a task sees elements another task has set after a happens-before edge
+ * (await, receive, or the end of a parallel native), push and the switch to objects replace the storage,
+ * an array is only pushed to or given non-numbers while a single task uses it
+ */
+public final class LoxArray {
+    private static final long NIL_BITS = 0x7ff8_0000_004e_494cL;
+    private static final double NIL = Double.longBitsToDouble(NIL_BITS);
+
+    // exactly one of them is in use, numbers is null once the array holds objects
+    private double[] numbers;
+    private Object[] objects;
+    private int length;
+
+    public LoxArray(int length) {
+        this.numbers = new double[length];
+        Arrays.fill(numbers, NIL);
+        this.length = length;
+    }
+
+    private LoxArray(double[] numbers, Object[] objects, int length) {
+        this.numbers = numbers;
+        this.objects = objects;
+        this.length = length;
+    }
+
+    /**
+     * @param elements taken as they are if one of them is neither a number nor nil, otherwise copied to a double[]
+     */
+    public static LoxArray of(Object[] elements) {
+        double[] numbers = new double[elements.length];
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] instanceof Double number) numbers[i] = number;
+            else if (elements[i] == null) numbers[i] = NIL;
+            else return new LoxArray(null, elements, elements.length);
+        }
+        return new LoxArray(numbers, null, elements.length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return true if elements are kept in a double[]
+     */
+    public boolean isNumeric() {
+        return numbers != null;
+    }
+
+    public Object get(int index) {
+        if (numbers == null) return objects[index];
+        double number = numbers[index];
+        return Double.doubleToRawLongBits(number) == NIL_BITS ? null : number;
+    }
+
+    public void set(int index, Object value) {
+        if (numbers != null) {
+            if (value instanceof Double number) {
+                numbers[index] = number;
+                return;
+            }
+            if (value == null) {
+                numbers[index] = NIL;
+                return;
+            }
+            toObjects();
+        }
+        objects[index] = value;
+    }
+
+    /**
+     * append @param: value, storage grows by half when it is full
+     */
+    public void push(Object value) {
+        int capacity = numbers != null ? numbers.length : objects.length;
+        if (length == capacity) {
+            int grown = Math.max(8, capacity + (capacity >> 1));
+            if (numbers != null) numbers = Arrays.copyOf(numbers, grown);
+            else objects = Arrays.copyOf(objects, grown);
+        }
+        set(length++, value);
+    }
+
+    /**
+     * @param index lox value used as index
+     * @return index as int
+     * @throws NativeError if @param: index is not an integer in bounds
+     */
+    public int index(Object index) {
+        if (!(index instanceof Double number) || number != Math.floor(number)) throw new NativeError("array index should be an integer");
+        if (number < 0 || number >= length) throw new NativeError("index " + Interpreter.stringify(number) + " out of bounds for length " + length);
+        return number.intValue();
+    }
+
+    private void toObjects() {
+        objects = new Object[numbers.length];
+        for (int i = 0; i < length; i++) objects[i] = get(i);
+        numbers = null;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < length; i++) joiner.add(Interpreter.stringify(get(i)));
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,333 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * bounded cache of lox values created by cache(maxEntries) or expiringCache(maxEntries, seconds), read and written like a map
+ * eviction is W-TinyLFU: a new entry waits in a small LRU window (1% of entries), when it leaves the window it only
+ * replaces the oldest entry of the main space if it has been used more often, as estimated by a count-min sketch
+ * of recent accesses, so a scan over many one-off keys does not flush entries that are used again and again
+ * main space is a segmented LRU: an entry read again moves from probation to protected (80% of main space)
+ * an entry older than the expiry time is a miss and is dropped when it is met
+ * methods are synchronized, a cache may be shared by tasks (e.g. through memoize)
+ */
+public final class LoxCache {
+    // returned by get for a key not in cache, a cached value may be nil
+    public static final Object MISSING = new Object();
+    // stands for nil as key of nodes
+    private static final Object NIL = new Object();
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maxEntries;
+    private final int windowEntries;
+    private final int mainEntries;
+    private final int protectedEntries;
+    // 0 if entries do not expire
+    private final long expireNanos;
+    private final Map<Object, Node> nodes = new HashMap<>();
+    private final Queue window = new Queue();
+    private final Queue probation = new Queue();
+    private final Queue protectedQueue = new Queue();
+    private final FrequencySketch sketch;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param maxEntries at least 1
+     * @param expireNanos time an entry lives after it is written, 0 for ever
+     */
+    public LoxCache(int maxEntries, long expireNanos) {
+        this.maxEntries = maxEntries;
+        this.windowEntries = Math.max(1, maxEntries / 100);
+        this.mainEntries = maxEntries - windowEntries;
+        this.protectedEntries = mainEntries * 4 / 5;
+        this.expireNanos = expireNanos;
+        this.sketch = new FrequencySketch(maxEntries);
+    }
+
+    /**
+     * @return value of @param: key, MISSING if it is not cached or has expired
+     */
+    public synchronized Object get(Object key) {
+        key = key == null ? NIL : key;
+        sketch.increment(key);
+        Node node = nodes.get(key);
+        if (node == null || expire(node)) {
+            misses++;
+            return MISSING;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * @return true if @param: key is cached and not expired, statistics are not changed
+     */
+    public synchronized boolean has(Object key) {
+        Node node = nodes.get(key == null ? NIL : key);
+        return node != null && !expire(node);
+    }
+
+    public synchronized void put(Object key, Object value) {
+        key = key == null ? NIL : key;
+        sketch.increment(key);
+        long expiresAt = expireNanos == 0 ? 0 : System.nanoTime() + expireNanos;
+        Node node = nodes.get(key);
+        if (node != null) {
+            node.value = value;
+            node.expiresAt = expiresAt;
+            onAccess(node);
+            return;
+        }
+        node = new Node(key, value, expiresAt);
+        nodes.put(key, node);
+        window.add(node, WINDOW);
+        if (window.size > windowEntries) admit(window.poll());
+    }
+
+    /**
+     * @return true if @param: key was cached
+     */
+    public synchronized boolean remove(Object key) {
+        Node node = nodes.remove(key == null ? NIL : key);
+        if (node == null) return false;
+        queue(node.queue).unlink(node);
+        return true;
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * @return hits, misses, evictions, expirations, hitRate (hits of all reads, 0 before any read) and size in a map
+     */
+    public synchronized LoxMap stats() {
+        LoxMap stats = new LoxMap();
+        stats.put("hits", (double) hits);
+        stats.put("misses", (double) misses);
+        stats.put("evictions", (double) evictions);
+        stats.put("expirations", (double) expirations);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("size", (double) nodes.size());
+        return stats;
+    }
+
+    /**
+     * @param expireNanos time an entry lives after it is written, 0 for ever
+     * @throws NativeError if @param: maxEntries is not a positive integer
+     */
+    public static LoxCache of(Object maxEntries, long expireNanos) {
+        if (!(maxEntries instanceof Double max) || max < 1 || max != Math.floor(max) || max > Integer.MAX_VALUE - 8) {
+            throw new NativeError("cache size should be a positive integer");
+        }
+        return new LoxCache(max.intValue(), expireNanos);
+    }
+
+    /**
+     * @return true if @param: node has expired, it is removed then
+     */
+    private boolean expire(Node node) {
+        if (node.expiresAt == 0 || node.expiresAt - System.nanoTime() > 0) return false;
+        nodes.remove(node.key);
+        queue(node.queue).unlink(node);
+        expirations++;
+        return true;
+    }
+
+    private void onAccess(Node node) {
+        switch (node.queue) {
+            case WINDOW -> window.moveToTail(node);
+            case PROBATION -> {
+                probation.unlink(node);
+                protectedQueue.add(node, PROTECTED);
+                // the least recent protected entry goes back to probation
+                if (protectedQueue.size > protectedEntries) probation.add(protectedQueue.poll(), PROBATION);
+            }
+            default -> protectedQueue.moveToTail(node);
+        }
+    }
+
+    /**
+     * @param candidate entry leaving window, it joins main space if there is room, or if it is used more often than
+     * the entry main space would evict
+     */
+    private void admit(Node candidate) {
+        if (probation.size + protectedQueue.size < mainEntries) {
+            probation.add(candidate, PROBATION);
+            return;
+        }
+        Node victim = probation.size > 0 ? probation.head() : protectedQueue.head();
+        if (victim == null) {
+            evict(candidate);
+            return;
+        }
+        if (expire(victim) || sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            if (victim.queue >= 0) evict(victim);
+            probation.add(candidate, PROBATION);
+        } else evict(candidate);
+    }
+
+    private void evict(Node node) {
+        if (node.queue >= 0) queue(node.queue).unlink(node);
+        nodes.remove(node.key);
+        evictions++;
+    }
+
+    private Queue queue(int queue) {
+        return switch (queue) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            default -> protectedQueue;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "<lox cache " + maxEntries + ">";
+    }
+
+    private static final class Node {
+        private final Object key;
+        private Object value;
+        private long expiresAt;
+        // queue holding node, -1 while it is in none
+        private int queue = -1;
+        private Node prev;
+        private Node next;
+
+        private Node(Object key, Object value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * doubly linked list of nodes from least to most recently used, around a sentinel
+     */
+    private static final class Queue {
+        private final Node sentinel = new Node(null, null, 0);
+        private int size;
+
+        private Queue() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        private void add(Node node, int queue) {
+            node.queue = queue;
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+            size++;
+        }
+
+        private void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = node.next = null;
+            node.queue = -1;
+            size--;
+        }
+
+        private void moveToTail(Node node) {
+            int queue = node.queue;
+            unlink(node);
+            add(node, queue);
+        }
+
+        private Node head() {
+            return size == 0 ? null : sentinel.next;
+        }
+
+        private Node poll() {
+            Node node = head();
+            if (node != null) unlink(node);
+            return node;
+        }
+    }
+
+    /**
+     * count-min sketch of 4 rows of 4-bit counters, estimates how often a key has been used recently
+     * all counters are halved once there have been 10 times maxEntries increments, so old popularity fades
+     * a row has at most MAX_WIDTH counters (32 MB in all), a larger cache shares counters between more keys
+     */
+    private static final class FrequencySketch {
+        private static final int ROWS = 4;
+        private static final int MAX_WIDTH = 1 << 24;
+        private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+
+        // two counters a byte
+        private final byte[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        private FrequencySketch(int maxEntries) {
+            int width = Integer.highestOneBit(Math.min(Math.max(16, maxEntries - 1), MAX_WIDTH / 2) << 1);
+            this.table = new byte[ROWS * width / 2];
+            this.mask = width - 1;
+            this.sampleSize = (int) Math.min(10L * maxEntries, Integer.MAX_VALUE);
+        }
+
+        private void increment(Object key) {
+            int hash = key.hashCode();
+            boolean added = false;
+            for (int row = 0; row < ROWS; row++) {
+                int counter = index(hash, row);
+                int value = counter(counter);
+                if (value < 15) {
+                    set(counter, value + 1);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) reset();
+        }
+
+        private int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = 15;
+            for (int row = 0; row < ROWS; row++) frequency = Math.min(frequency, counter(index(hash, row)));
+            return frequency;
+        }
+
+        /**
+         * @return counter of @param: hash in @param: row, numbered over all rows
+         */
+        private int index(int hash, int row) {
+            int h = (hash ^ hash >>> 16) * SEEDS[row];
+            return row * (mask + 1) + ((h ^ h >>> 15) & mask);
+        }
+
+        private int counter(int counter) {
+            return table[counter >> 1] >> ((counter & 1) << 2) & 0xf;
+        }
+
+        private void set(int counter, int value) {
+            int shift = (counter & 1) << 2;
+            table[counter >> 1] = (byte) (table[counter >> 1] & ~(0xf << shift) | value << shift);
+        }
+
+        private void reset() {
+            // halve both counters of a byte at once, the low bit of the high counter must not fall into the low one
+            for (int i = 0; i < table.length; i++) table[i] = (byte) ((table[i] & 0xff) >>> 1 & 0x77);
+            additions /= 2;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * hash map of lox values created by map(), keys are equal as lox == says (Double and String equality, identity for objects),
+ * a key can be anything but nil, reading a missing key gives nil
+ * open addressing with linear probing over flat arrays, no object per entry:
+ * a map whose keys are all numbers keeps them as raw bits in a long[] next to an Object[] of values, it switches to one
+ * Object[] of keys and values side by side (one cache line for both) with hashes in an int[] the first time a key
+ * of another kind is stored, and stays so
+ * a removed entry keeps its key with value REMOVED, so next(key) still finds a key removed while iterating,
+ * removed entries are dropped when the table is rebuilt
+ * iteration: next(nil) is the first key, next(key) the one after it, nil after the last,
+ * keys added while iterating may or may not be visited
+ * like LoxArray, a map is only changed while a single task uses it
+ */
+public final class LoxMap {
+    // doubleToLongBits gives one NaN only, no number key has these bits
+    private static final long FREE_BITS = 0x7ff8_0000_0000_0001L;
+    private static final Object REMOVED = new Object();
+    private static final int MINIMUM = 8;
+
+    // numbers and values, or entries and hashes are in use, numbers is null once the map has a key that is not a number
+    private long[] numbers;
+    private Object[] values;
+    // key of slot i at 2i, its value at 2i + 1
+    private Object[] entries;
+    private int[] hashes;
+    // keys in table, removed ones included
+    private int used;
+    private int size;
+
+    public LoxMap() {
+        allocate(MINIMUM, true);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if keys are kept in a long[]
+     */
+    public boolean isNumeric() {
+        return numbers != null;
+    }
+
+    /**
+     * @return value of @param: key, nil if there is none
+     */
+    public Object get(Object key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        Object value = value(slot);
+        return value == REMOVED ? null : value;
+    }
+
+    public boolean has(Object key) {
+        int slot = find(key);
+        return slot >= 0 && value(slot) != REMOVED;
+    }
+
+    /**
+     * @throws NativeError if @param: key is nil
+     */
+    public void put(Object key, Object value) {
+        if (key == null) throw new NativeError("map key can not be nil");
+        if (numbers != null && !(key instanceof Double)) rebuild(capacity(), false);
+        int slot = find(key);
+        if (slot >= 0) {
+            if (value(slot) == REMOVED) size++;
+            value(slot, value);
+            return;
+        }
+        // keep at most 3/4 of the table in use, so a probe ends at a free slot after a few steps
+        if ((used + 1) * 4L > capacity() * 3L) {
+            // half full after rebuild
+            int capacity = MINIMUM;
+            while (capacity < (size + 1) * 2) capacity <<= 1;
+            rebuild(capacity, numbers != null);
+            slot = find(key);
+        }
+        slot = -slot - 1;
+        if (numbers != null) numbers[slot] = Double.doubleToLongBits((Double) key);
+        else {
+            entries[slot << 1] = key;
+            hashes[slot] = key.hashCode();
+        }
+        value(slot, value);
+        used++;
+        size++;
+    }
+
+    /**
+     * @return true if @param: key was in map
+     */
+    public boolean remove(Object key) {
+        int slot = find(key);
+        if (slot < 0 || value(slot) == REMOVED) return false;
+        value(slot, REMOVED);
+        size--;
+        return true;
+    }
+
+    /**
+     * @param key nil to start, otherwise a key returned by the last call
+     * @return key after @param: key in table order, nil after the last one
+     * @throws NativeError if @param: key has never been in map
+     */
+    public Object next(Object key) {
+        int slot = -1;
+        if (key != null) {
+            slot = find(key);
+            if (slot < 0) throw new NativeError("key " + Interpreter.stringify(key) + " is not in map");
+        }
+        for (slot++; slot < capacity(); slot++) {
+            if (isFree(slot) || value(slot) == REMOVED) continue;
+            return key(slot);
+        }
+        return null;
+    }
+
+    /**
+     * @return slot of @param: key, or -(free slot where it goes) - 1
+     */
+    private int find(Object key) {
+        if (numbers != null) {
+            if (!(key instanceof Double number)) return -1;
+            long bits = Double.doubleToLongBits(number);
+            int mask = numbers.length - 1;
+            for (int slot = spread((int) (bits ^ bits >>> 32)) & mask; ; slot = slot + 1 & mask) {
+                long found = numbers[slot];
+                if (found == bits) return slot;
+                if (found == FREE_BITS) return -slot - 1;
+            }
+        }
+        if (key == null) return -1;
+        int hash = key.hashCode();
+        int mask = hashes.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = slot + 1 & mask) {
+            Object found = entries[slot << 1];
+            if (found == null) return -slot - 1;
+            // cached hash first, equals of strings with the same length walks their bytes
+            if (hashes[slot] == hash && (found == key || found.equals(key))) return slot;
+        }
+    }
+
+    /**
+     * mix all bits of hash into the low ones a slot is taken from (murmur3 finalizer), so keys like 1, 2, 3 spread over the table
+     * slots come from low bits: keys copied in table order of a larger map into a new one land in different slots,
+     * taken from high bits they would pile up in one long run and make the copy quadratic
+     */
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ hash >>> 16;
+    }
+
+    private int capacity() {
+        return numbers != null ? numbers.length : hashes.length;
+    }
+
+    private boolean isFree(int slot) {
+        return numbers != null ? numbers[slot] == FREE_BITS : entries[slot << 1] == null;
+    }
+
+    private Object key(int slot) {
+        return numbers != null ? Double.longBitsToDouble(numbers[slot]) : entries[slot << 1];
+    }
+
+    private Object value(int slot) {
+        return numbers != null ? values[slot] : entries[slot << 1 | 1];
+    }
+
+    private void value(int slot, Object value) {
+        if (numbers != null) values[slot] = value;
+        else entries[slot << 1 | 1] = value;
+    }
+
+    private void allocate(int capacity, boolean numeric) {
+        if (numeric) {
+            numbers = new long[capacity];
+            Arrays.fill(numbers, FREE_BITS);
+            values = new Object[capacity];
+            entries = null;
+            hashes = null;
+        } else {
+            entries = new Object[capacity << 1];
+            hashes = new int[capacity];
+            numbers = null;
+            values = null;
+        }
+    }
+
+    /**
+     * move live entries to a table of @param: capacity slots, keys kept as numbers if @param: numeric, dropping removed ones
+     */
+    private void rebuild(int capacity, boolean numeric) {
+        long[] oldNumbers = numbers;
+        Object[] oldValues = values;
+        Object[] oldEntries = entries;
+        int oldCapacity = capacity();
+        allocate(capacity, numeric);
+        used = size = 0;
+        for (int i = 0; i < oldCapacity; i++) {
+            if (oldNumbers != null) {
+                if (oldNumbers[i] != FREE_BITS && oldValues[i] != REMOVED) put(Double.longBitsToDouble(oldNumbers[i]), oldValues[i]);
+            } else if (oldEntries[i << 1] != null && oldEntries[i << 1 | 1] != REMOVED) put(oldEntries[i << 1], oldEntries[i << 1 | 1]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Object key = next(null); key != null; key = next(key)) {
+            joiner.add(Interpreter.stringify(key) + ": " + Interpreter.stringify(get(key)));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,425 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * immutable hash map of lox values created by hashMap(), with and without return a new map sharing all but
+ * O(log32 n) nodes with the old one, keys compare like lox == (as in LoxMap), nil is not a key
+ * hash array mapped trie: every level takes 5 bits of the key hash, a node keeps a 32-bit bitmap of the slots in use
+ * and a packed array of key, value pairs (null key and a node for a subtree), keys with the same hash share a collision node
+ * two maps are equal (lox ==) if they have the same keys with equal values
+ * transient() gives a Transient changed in place by set and remove, persistent() turns it back into a map in O(1)
+ * iteration like LoxMap: next(nil) is the first key, next(key) the one after it in trie order, nil after the last
+ * a map handed to another task through spawn, a channel or a global is seen complete, nothing changes it afterwards
+ */
+public final class PersistentMap {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    public static final PersistentMap EMPTY = new PersistentMap(0, new Node(null, 0, new Object[0]));
+
+    private final int count;
+    private final Node root;
+    // 0 until computed
+    private int hash;
+
+    private PersistentMap(int count, Node root) {
+        this.count = count;
+        this.root = root;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return value of @param: key, nil if there is none
+     */
+    public Object get(Object key) {
+        return key == null ? null : root.find(0, hash(key), key, null);
+    }
+
+    public boolean has(Object key) {
+        return key != null && root.find(0, hash(key), key, Node.MISSING) != Node.MISSING;
+    }
+
+    /**
+     * @return a new map with @param: key set to @param: value
+     * @throws NativeError if @param: key is nil
+     */
+    public PersistentMap with(Object key, Object value) {
+        checkKey(key);
+        Change change = new Change();
+        Node changed = root.with(null, 0, hash(key), key, value, change);
+        if (changed == root) return this;
+        return new PersistentMap(change.added ? count + 1 : count, changed);
+    }
+
+    /**
+     * @return a new map without @param: key, this map if key is not in it
+     */
+    public PersistentMap without(Object key) {
+        if (key == null) return this;
+        Change change = new Change();
+        Node changed = root.without(null, 0, hash(key), key, change);
+        if (!change.removed) return this;
+        return new PersistentMap(count - 1, changed == null ? EMPTY.root : changed);
+    }
+
+    /**
+     * @param key nil to start, otherwise a key returned by the last call
+     * @return key after @param: key in trie order, nil after the last one
+     * @throws NativeError if @param: key is not in map
+     */
+    public Object next(Object key) {
+        return next(root, key);
+    }
+
+    public Transient asTransient() {
+        return new Transient(this);
+    }
+
+    private static Object next(Node root, Object key) {
+        if (key == null) return root.first(0);
+        Object next = root.next(0, hash(key), key);
+        if (next == Node.MISSING) throw new NativeError("key " + Interpreter.stringify(key) + " is not in map");
+        return next;
+    }
+
+    private static void checkKey(Object key) {
+        if (key == null) throw new NativeError("map key can not be nil");
+    }
+
+    /**
+     * hash of a key with its bits mixed (murmur3 finalizer), so number keys like 1, 2, 3 differ in the low bits every level reads
+     */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ h >>> 16;
+    }
+
+    /**
+     * what a change did to the size of map
+     */
+    private static final class Change {
+        private boolean added;
+        private boolean removed;
+    }
+
+    /**
+     * bitmap node, or a collision node (bitmap 0, collision true) holding keys of one hash in a plain array of pairs
+     * owner is the Transient allowed to change array in place, null once it is persistent
+     */
+    private static final class Node {
+        private static final Object MISSING = new Object();
+
+        private final Object owner;
+        private final boolean collision;
+        private final int hash;
+        private int bitmap;
+        private Object[] array;
+
+        private Node(Object owner, int bitmap, Object[] array) {
+            this.owner = owner;
+            this.collision = false;
+            this.hash = 0;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private Node(Object owner, int hash, Object[] array, boolean collision) {
+            this.owner = owner;
+            this.collision = collision;
+            this.hash = hash;
+            this.array = array;
+        }
+
+        /**
+         * @return value of @param: key, @param: missing if it is not in subtree
+         */
+        private Object find(int shift, int hash, Object key, Object missing) {
+            Node node = this;
+            while (true) {
+                if (node.collision) {
+                    int i = node.collisionIndex(key);
+                    return i < 0 ? missing : node.array[i + 1];
+                }
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((node.bitmap & bit) == 0) return missing;
+                int i = node.index(bit);
+                Object k = node.array[i];
+                Object v = node.array[i + 1];
+                if (k == null) {
+                    node = (Node) v;
+                    shift += BITS;
+                    continue;
+                }
+                return Objects.equals(k, key) ? v : missing;
+            }
+        }
+
+        /**
+         * @return node with @param: key set to @param: value, this node if nothing changed
+         */
+        private Node with(Object owner, int shift, int hash, Object key, Object value, Change change) {
+            if (collision) {
+                if (hash == this.hash) {
+                    int i = collisionIndex(key);
+                    if (i >= 0) {
+                        if (array[i + 1] == value) return this;
+                        return editable(owner).set(i + 1, value);
+                    }
+                    Object[] grown = Arrays.copyOf(array, array.length + 2);
+                    grown[array.length] = key;
+                    grown[array.length + 1] = value;
+                    change.added = true;
+                    return new Node(owner, this.hash, grown, true);
+                }
+                // a bitmap node above this collision node tells them apart
+                Node parent = new Node(owner, 1 << ((this.hash >>> shift) & MASK), new Object[]{null, this});
+                return parent.with(owner, shift, hash, key, value, change);
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = index(bit);
+            if ((bitmap & bit) == 0) {
+                Object[] grown = new Object[array.length + 2];
+                System.arraycopy(array, 0, grown, 0, i);
+                grown[i] = key;
+                grown[i + 1] = value;
+                System.arraycopy(array, i, grown, i + 2, array.length - i);
+                change.added = true;
+                if (owner != null && this.owner == owner) {
+                    bitmap |= bit;
+                    array = grown;
+                    return this;
+                }
+                return new Node(owner, bitmap | bit, grown);
+            }
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).with(owner, shift + BITS, hash, key, value, change);
+                return child == v ? this : editable(owner).set(i + 1, child);
+            }
+            if (Objects.equals(k, key)) return v == value ? this : editable(owner).set(i + 1, value);
+            // two keys in one slot move to a subtree
+            change.added = true;
+            Node child = pair(owner, shift + BITS, PersistentMap.hash(k), k, v, hash, key, value);
+            return editable(owner).set(i, null).set(i + 1, child);
+        }
+
+        /**
+         * @return node without @param: key, null if it is left empty, this node if key is not in subtree
+         */
+        private Node without(Object owner, int shift, int hash, Object key, Change change) {
+            if (collision) {
+                int i = collisionIndex(key);
+                if (i < 0) return this;
+                change.removed = true;
+                if (array.length == 2) return null;
+                return new Node(owner, this.hash, remove(array, i), true);
+            }
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0) return this;
+            int i = index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).without(owner, shift + BITS, hash, key, change);
+                if (child == v) return this;
+                if (child != null) return editable(owner).set(i + 1, child);
+            } else if (!Objects.equals(k, key)) return this;
+            else change.removed = true;
+            // slot is emptied
+            if (bitmap == bit) return null;
+            return new Node(owner, bitmap ^ bit, remove(array, i));
+        }
+
+        /**
+         * @return first key in subtree, null if there is none
+         */
+        private Object first(int from) {
+            for (int i = from; i < array.length; i += 2) {
+                if (array[i] != null) return array[i];
+                Object first = ((Node) array[i + 1]).first(0);
+                if (first != null) return first;
+            }
+            return null;
+        }
+
+        /**
+         * @return key after @param: key in subtree, null if key is the last one, MISSING if key is not in subtree
+         */
+        private Object next(int shift, int hash, Object key) {
+            int i;
+            if (collision) {
+                i = collisionIndex(key);
+                if (i < 0) return MISSING;
+            } else {
+                int bit = 1 << ((hash >>> shift) & MASK);
+                if ((bitmap & bit) == 0) return MISSING;
+                i = index(bit);
+                if (array[i] == null) {
+                    Object next = ((Node) array[i + 1]).next(shift + BITS, hash, key);
+                    if (next != null) return next;
+                } else if (!Objects.equals(array[i], key)) return MISSING;
+            }
+            return first(i + 2);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1)) << 1;
+        }
+
+        private int collisionIndex(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (Objects.equals(array[i], key)) return i;
+            }
+            return -1;
+        }
+
+        private Node editable(Object owner) {
+            if (owner != null && this.owner == owner) return this;
+            return collision ? new Node(owner, hash, array.clone(), true) : new Node(owner, bitmap, array.clone());
+        }
+
+        private Node set(int i, Object value) {
+            array[i] = value;
+            return this;
+        }
+
+        /**
+         * @return node holding two keys which share the bits of a hash up to @param: shift
+         */
+        private static Node pair(Object owner, int shift, int hash1, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            if (hash1 == hash2) return new Node(owner, hash1, new Object[]{key1, value1, key2, value2}, true);
+            int slot1 = (hash1 >>> shift) & MASK;
+            int slot2 = (hash2 >>> shift) & MASK;
+            if (slot1 == slot2) return new Node(owner, 1 << slot1, new Object[]{null, pair(owner, shift + BITS, hash1, key1, value1, hash2, key2, value2)});
+            Object[] array = slot1 < slot2 ? new Object[]{key1, value1, key2, value2} : new Object[]{key2, value2, key1, value1};
+            return new Node(owner, 1 << slot1 | 1 << slot2, array);
+        }
+
+        private static Object[] remove(Object[] array, int i) {
+            Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, i);
+            System.arraycopy(array, i + 2, shrunk, i, array.length - i - 2);
+            return shrunk;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof PersistentMap map) || map.count != count || map.hashCode() != hashCode()) return false;
+        for (Object key = next(null); key != null; key = next(key)) {
+            Object value = map.root.find(0, hash(key), key, Node.MISSING);
+            if (value == Node.MISSING || !Objects.equals(value, get(key))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (Object key = next(null); key != null; key = next(key)) h += key.hashCode() ^ Objects.hashCode(get(key));
+            // racy but idempotent, every thread computes the same value
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "{", "}");
+        for (Object key = next(null); key != null; key = next(key)) {
+            joiner.add(Interpreter.stringify(key) + ": " + Interpreter.stringify(get(key)));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * map under construction, changed in place by set and remove until persistent() is called
+     * nodes it created are its own, nodes shared with the map it came from are copied once
+     */
+    public static final class Transient {
+        // identity of the nodes this transient may change, null after persistent()
+        private Object owner = new Object();
+        private int count;
+        private Node root;
+
+        private Transient(PersistentMap map) {
+            this.count = map.count;
+            this.root = map.root;
+        }
+
+        public int size() {
+            ensureEditable();
+            return count;
+        }
+
+        public Object get(Object key) {
+            ensureEditable();
+            return key == null ? null : root.find(0, hash(key), key, null);
+        }
+
+        public boolean has(Object key) {
+            ensureEditable();
+            return key != null && root.find(0, hash(key), key, Node.MISSING) != Node.MISSING;
+        }
+
+        public Object next(Object key) {
+            ensureEditable();
+            return PersistentMap.next(root, key);
+        }
+
+        public void put(Object key, Object value) {
+            ensureEditable();
+            checkKey(key);
+            Change change = new Change();
+            root = root.with(owner, 0, hash(key), key, value, change);
+            if (change.added) count++;
+        }
+
+        /**
+         * @return true if @param: key was in map
+         */
+        public boolean remove(Object key) {
+            ensureEditable();
+            if (key == null) return false;
+            Change change = new Change();
+            Node changed = root.without(owner, 0, hash(key), key, change);
+            if (!change.removed) return false;
+            root = changed == null ? EMPTY.root : changed;
+            count--;
+            return true;
+        }
+
+        /**
+         * @return map with entries of this transient, which can not be used afterwards
+         */
+        public PersistentMap persistent() {
+            ensureEditable();
+            owner = null;
+            return new PersistentMap(count, root);
+        }
+
+        private void ensureEditable() {
+            if (owner == null) throw new NativeError("transient map used after persistent()");
+        }
+
+        @Override
+        public String toString() {
+            return "<transient map>";
+        }
+    }
+}
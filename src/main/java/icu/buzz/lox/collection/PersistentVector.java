@@ -0,0 +1,289 @@
+package icu.buzz.lox.collection;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+/**
+ * immutable vector of lox values created by vector(), append and with return a new vector sharing all but O(log32 n) nodes
+ * with the old one, so a task can hand its state to others or keep old versions without copying
+ * elements live in a trie of 32-way nodes, the last (up to) 32 elements in a tail array outside the trie,
+ * so appending copies the tail only, and pushes a full tail into the trie once every 32 elements
+ * two vectors are equal (lox ==) if they have equal elements in the same order
+ * transient() gives a Transient changed in place by push and set, persistent() turns it back into a vector in O(1),
+ * nodes it copied are owned by it until then, so bulk building does not copy a path on every change
+ */
+public final class PersistentVector {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Node EMPTY_NODE = new Node(null, new Object[WIDTH]);
+    public static final PersistentVector EMPTY = new PersistentVector(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int count;
+    // bits of an index used by the root
+    private final int shift;
+    private final Node root;
+    private final Object[] tail;
+    // 0 until computed
+    private int hash;
+
+    /**
+     * inner node, owner is the Transient allowed to change array in place, null once it is persistent
+     */
+    private static final class Node {
+        private final Object owner;
+        private final Object[] array;
+
+        private Node(Object owner, Object[] array) {
+            this.owner = owner;
+            this.array = array;
+        }
+    }
+
+    private PersistentVector(int count, int shift, Node root, Object[] tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    public int length() {
+        return count;
+    }
+
+    /**
+     * @param index lox value used as index
+     * @return index as int
+     * @throws NativeError if @param: index is not an integer in bounds
+     */
+    public int index(Object index) {
+        return checkIndex(index, count);
+    }
+
+    public Object get(int index) {
+        return leaf(index, count, shift, root, tail)[index & MASK];
+    }
+
+    /**
+     * @return a new vector with @param: value after the last element
+     */
+    public PersistentVector append(Object value) {
+        // room in tail
+        if (count - tailOffset(count) < WIDTH) {
+            Object[] grown = Arrays.copyOf(tail, tail.length + 1);
+            grown[tail.length] = value;
+            return new PersistentVector(count + 1, shift, root, grown);
+        }
+        Node tailNode = new Node(null, tail);
+        // root is full, the trie grows by a level
+        if ((count >>> BITS) > (1 << shift)) {
+            Node grown = new Node(null, new Object[WIDTH]);
+            grown.array[0] = root;
+            grown.array[1] = path(null, shift, tailNode);
+            return new PersistentVector(count + 1, shift + BITS, grown, new Object[]{value});
+        }
+        return new PersistentVector(count + 1, shift, pushTail(null, count, shift, root, tailNode), new Object[]{value});
+    }
+
+    /**
+     * @return a new vector with @param: value at @param: index
+     */
+    public PersistentVector with(int index, Object value) {
+        if (index >= tailOffset(count)) {
+            Object[] copy = tail.clone();
+            copy[index & MASK] = value;
+            return new PersistentVector(count, shift, root, copy);
+        }
+        return new PersistentVector(count, shift, with(shift, root, index, value), tail);
+    }
+
+    public Transient asTransient() {
+        return new Transient(this);
+    }
+
+    private static Node with(int level, Node node, int index, Object value) {
+        Node copy = new Node(null, node.array.clone());
+        if (level == 0) copy.array[index & MASK] = value;
+        else {
+            int child = (index >>> level) & MASK;
+            copy.array[child] = with(level - BITS, (Node) node.array[child], index, value);
+        }
+        return copy;
+    }
+
+    /**
+     * @return copy of @param: parent (or parent itself if @param: owner owns it) with @param: tailNode in place of
+     * the first free leaf of a vector with @param: count elements
+     */
+    private static Node pushTail(Object owner, int count, int level, Node parent, Node tailNode) {
+        Node node = editable(owner, parent);
+        int child = ((count - 1) >>> level) & MASK;
+        Node inserted;
+        if (level == BITS) inserted = tailNode;
+        else {
+            Node next = (Node) node.array[child];
+            inserted = next != null ? pushTail(owner, count, level - BITS, next, tailNode) : path(owner, level - BITS, tailNode);
+        }
+        node.array[child] = inserted;
+        return node;
+    }
+
+    /**
+     * @return chain of single-child nodes @param: level bits high ending in @param: node
+     */
+    private static Node path(Object owner, int level, Node node) {
+        if (level == 0) return node;
+        Node parent = new Node(owner, new Object[WIDTH]);
+        parent.array[0] = path(owner, level - BITS, node);
+        return parent;
+    }
+
+    private static Node editable(Object owner, Node node) {
+        if (owner != null && node.owner == owner) return node;
+        return new Node(owner, node.array.clone());
+    }
+
+    private static int tailOffset(int count) {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    /**
+     * @return array holding element @param: index, the tail or a leaf of the trie
+     */
+    private static Object[] leaf(int index, int count, int shift, Node root, Object[] tail) {
+        if (index >= tailOffset(count)) return tail;
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) node = (Node) node.array[(index >>> level) & MASK];
+        return node.array;
+    }
+
+    private static int checkIndex(Object index, int count) {
+        if (!(index instanceof Double number) || number != Math.floor(number)) throw new NativeError("vector index should be an integer");
+        if (number < 0 || number >= count) throw new NativeError("index " + Interpreter.stringify(number) + " out of bounds for length " + count);
+        return number.intValue();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof PersistentVector vector) || vector.count != count || vector.hashCode() != hashCode()) return false;
+        for (int i = 0; i < count; i++) {
+            if (!Objects.equals(get(i), vector.get(i))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 1;
+            for (int i = 0; i < count; i++) h = 31 * h + Objects.hashCode(get(i));
+            // racy but idempotent, every thread computes the same value
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < count; i++) joiner.add(Interpreter.stringify(get(i)));
+        return joiner.toString();
+    }
+
+    /**
+     * vector under construction, changed in place by push and set until persistent() is called
+     * a tail of full width and nodes it created are its own, nodes shared with the vector it came from are copied once
+     */
+    public static final class Transient {
+        // identity of the nodes this transient may change, null after persistent()
+        private Object owner = new Object();
+        private int count;
+        private int shift;
+        private Node root;
+        private Object[] tail;
+
+        private Transient(PersistentVector vector) {
+            this.count = vector.count;
+            this.shift = vector.shift;
+            this.root = new Node(owner, vector.root.array.clone());
+            this.tail = Arrays.copyOf(vector.tail, WIDTH);
+        }
+
+        public int length() {
+            ensureEditable();
+            return count;
+        }
+
+        public int index(Object index) {
+            ensureEditable();
+            return checkIndex(index, count);
+        }
+
+        public Object get(int index) {
+            ensureEditable();
+            return leaf(index, count, shift, root, tail)[index & MASK];
+        }
+
+        public void push(Object value) {
+            ensureEditable();
+            if (count - tailOffset(count) < WIDTH) {
+                tail[count++ & MASK] = value;
+                return;
+            }
+            Node tailNode = new Node(owner, tail);
+            tail = new Object[WIDTH];
+            tail[0] = value;
+            if ((count >>> BITS) > (1 << shift)) {
+                Node grown = new Node(owner, new Object[WIDTH]);
+                grown.array[0] = root;
+                grown.array[1] = path(owner, shift, tailNode);
+                root = grown;
+                shift += BITS;
+            } else root = pushTail(owner, count, shift, root, tailNode);
+            count++;
+        }
+
+        public void set(int index, Object value) {
+            ensureEditable();
+            if (index >= tailOffset(count)) {
+                tail[index & MASK] = value;
+                return;
+            }
+            root = set(shift, root, index, value);
+        }
+
+        private Node set(int level, Node node, int index, Object value) {
+            Node editable = editable(owner, node);
+            if (level == 0) editable.array[index & MASK] = value;
+            else {
+                int child = (index >>> level) & MASK;
+                editable.array[child] = set(level - BITS, (Node) editable.array[child], index, value);
+            }
+            return editable;
+        }
+
+        /**
+         * @return vector with elements of this transient, which can not be used afterwards
+         */
+        public PersistentVector persistent() {
+            ensureEditable();
+            owner = null;
+            return new PersistentVector(count, shift, root, Arrays.copyOf(tail, count - tailOffset(count)));
+        }
+
+        private void ensureEditable() {
+            if (owner == null) throw new NativeError("transient vector used after persistent()");
+        }
+
+        @Override
+        public String toString() {
+            return "<transient vector>";
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package icu.buzz.lox.concurrent;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+
+/**
+ * a queue tasks hand values over with, created by channel(capacity)
+ * send blocks while channel is full, receive blocks while it is empty, capacity 0 makes every send wait for its receive
+ * writes of a task before send are visible to the task after the matching receive
+ * queues block with java.util.concurrent locks, not monitors, a blocked virtual thread releases its carrier
+ */
+public final class LoxChannel {
+    // queues do not hold null, nil is sent as NIL
+    private static final Object NIL = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private final int capacity;
+
+    public LoxChannel(int capacity) {
+        this.queue = capacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+    }
+
+    public void send(Object value) {
+        try {
+            queue.put(value == null ? NIL : value);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeError("send is interrupted");
+        }
+    }
+
+    public Object receive() {
+        try {
+            Object value = queue.take();
+            return value == NIL ? null : value;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeError("receive is interrupted");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<lox channel " + capacity + ">";
+    }
+}
@@ -0,0 +1,109 @@
+package icu.buzz.lox.concurrent;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.LoxExecutor;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a function running concurrently with the code that spawned it, created by spawn, its result is taken by await
+ * a task runs on a virtual thread when the runtime has them (java 21+), otherwise on a platform thread of its own,
+ * a pool of a thread per core would let tasks blocked on channels starve the ones they wait for
+ * platform threads are bounded: at most MAX_THREADS in the jvm and MAX_RUN_THREADS in a run, spawn fails beyond them
+ * a task belongs to the TaskGroup of its run, when the run ends tasks not awaited by then are cancelled
+ */
+public final class LoxTask {
+    // platform threads tasks may run on at once, in the jvm and in a single run
+    private static final int MAX_THREADS = 256;
+    private static final int MAX_RUN_THREADS = 64;
+    private static final boolean VIRTUAL = LoxExecutor.hasVirtualThreads();
+    private static final ExecutorService EXECUTOR = executor();
+
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    private LoxTask() {}
+
+    /**
+     * call @param: function without arguments in a new task
+     * @param interpreter interpreter of the spawning code, task gets a fork of it (own call stack, same globals and output)
+     */
+    public static LoxTask spawn(Interpreter interpreter, LoxCallable function) {
+        TaskGroup group = interpreter.getTasks();
+        group.checkCancelled();
+        if (!VIRTUAL && group.running() >= MAX_RUN_THREADS) throw new NativeError("spawn failed: " + MAX_RUN_THREADS + " tasks of this run are running already");
+        group.share();
+        LoxTask task = new LoxTask();
+        Interpreter fork = interpreter.fork();
+        group.add(task.result);
+        try {
+            EXECUTOR.execute(() -> {
+                Thread thread = Thread.currentThread();
+                if (!group.enter(thread)) {
+                    task.result.completeExceptionally(new NativeError("task is cancelled, the run that spawned it has ended"));
+                    return;
+                }
+                try {
+                    task.result.complete(function.call(fork, List.of()));
+                } catch (Throwable e) {
+                    task.result.completeExceptionally(e);
+                } finally {
+                    group.exit(thread);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            task.result.completeExceptionally(e);
+            throw new NativeError("spawn failed: " + MAX_THREADS + " tasks are running already");
+        }
+        return task;
+    }
+
+    /**
+     * wait for task to end
+     * @return value returned by task function
+     * @throws ExecuteError the runtime error task failed with, it tells where in task function it happened
+     */
+    public Object await() {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NativeError("await is interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ExecuteError error) throw error;
+            if (cause instanceof NativeError error) throw error;
+            if (cause instanceof StackOverflowError) throw new NativeError("task failed: stack overflow");
+            if (cause instanceof RuntimeException error) throw error;
+            throw new NativeError("task failed: " + cause);
+        }
+    }
+
+    private static ExecutorService executor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // a thread a task up to MAX_THREADS, idle threads are kept for a minute
+            return new ThreadPoolExecutor(0, MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "lox-task");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "<lox task>";
+    }
+}
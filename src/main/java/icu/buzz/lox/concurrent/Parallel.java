@@ -0,0 +1,111 @@
+package icu.buzz.lox.concurrent;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.collection.LoxArray;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+/**
+ * data parallel loops behind parallelMap, parallelReduce and parallelFor, lox functions are called on ForkJoin workers
+ * work runs in the pool of the calling worker if there is one (e.g. a pool of a chosen size), otherwise in the common pool
+ * a range is halved until it is below a grain of 1/(8 * parallelism) of the work, or until the worker already has
+ * SURPLUS more queued tasks than idle workers could steal, so chunks grow when workers are busy and shrink when they starve
+ * every chunk calls its function with its own fork of the calling interpreter (own call stack, same globals)
+ * the first runtime error of a function is raised by the native, elements not reached yet may or may not have been run
+ * a lox function that blocks (receive, await) holds a worker while it waits
+ */
+public final class Parallel {
+    private static final int SURPLUS = 3;
+
+    private Parallel() {}
+
+    /**
+     * @return array of @param: function applied to every element of @param: array
+     */
+    public static LoxArray map(Interpreter interpreter, LoxArray array, LoxCallable function) {
+        Object[] results = new Object[array.length()];
+        run(interpreter, 0, array.length(), (fork, from, to) -> {
+            for (int i = (int) from; i < to; i++) results[i] = function.call(fork, List.of(array.get(i)));
+            return null;
+        }, null);
+        return LoxArray.of(results);
+    }
+
+    /**
+     * fold elements of @param: array with @param: function, @param: init is the start of every chunk
+     * and partial results are combined with function too, so function should be associative and init its identity
+     * @return init for an empty array
+     */
+    public static Object reduce(Interpreter interpreter, LoxArray array, LoxCallable function, Object init) {
+        if (array.length() == 0) return init;
+        return run(interpreter, 0, array.length(), (fork, from, to) -> {
+            Object result = init;
+            for (int i = (int) from; i < to; i++) result = function.call(fork, List.of(result, array.get(i)));
+            return result;
+        }, (left, right) -> function.call(interpreter.fork(), List.of(left, right)));
+    }
+
+    /**
+     * call @param: function with every integer in [@param: from, @param: to)
+     */
+    public static void range(Interpreter interpreter, long from, long to, LoxCallable function) {
+        if (from >= to) return;
+        run(interpreter, from, to, (fork, start, end) -> {
+            for (long i = start; i < end; i++) function.call(fork, List.of((double) i));
+            return null;
+        }, null);
+    }
+
+    private static <T> T run(Interpreter interpreter, long from, long to, Chunk<T> chunk, BinaryOperator<T> combine) {
+        // lox functions become visible to worker threads
+        interpreter.getTasks().share();
+        int parallelism = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        Range<T> range = new Range<>(interpreter, from, to, Math.max(1, (to - from) / (8L * parallelism)), chunk, combine);
+        return ForkJoinTask.inForkJoinPool() ? range.invoke() : ForkJoinPool.commonPool().invoke(range);
+    }
+
+    @FunctionalInterface
+    private interface Chunk<T> {
+        /**
+         * run elements [@param: from, @param: to) with interpreter @param: fork
+         */
+        T run(Interpreter fork, long from, long to);
+    }
+
+    private static final class Range<T> extends RecursiveTask<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final Interpreter interpreter;
+        private final long from;
+        private final long to;
+        private final long grain;
+        private final Chunk<T> chunk;
+        // null when chunks return nothing
+        private final BinaryOperator<T> combine;
+
+        private Range(Interpreter interpreter, long from, long to, long grain, Chunk<T> chunk, BinaryOperator<T> combine) {
+            this.interpreter = interpreter;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.chunk = chunk;
+            this.combine = combine;
+        }
+
+        @Override
+        protected T compute() {
+            if (to - from <= grain || getSurplusQueuedTaskCount() > SURPLUS) return chunk.run(interpreter.fork(), from, to);
+            long middle = from + (to - from) / 2;
+            Range<T> left = new Range<>(interpreter, from, middle, grain, chunk, combine);
+            left.fork();
+            T right = new Range<>(interpreter, middle, to, grain, chunk, combine).compute();
+            T result = left.join();
+            return combine == null ? null : combine.apply(result, right);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package icu.buzz.lox.concurrent;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * names of an object's slots and the slot each one is kept in
+ * a shared shape is immutable, adding a name moves an object to the next shape, next shapes are cached,
+ * so objects that get the same names in the same order (instances of a class, calls of a function) share shapes
+ * a small shape is searched name by name (most scopes and instances have a few names), a larger one by hash
+ * beyond LIMIT names (e.g. globals of a large program) an object gets a dictionary shape of its own, which is changed
+ * in place, copying a shared shape for every new name would take memory quadratic in the number of names
+ */
+final class Shape {
+    static final Shape EMPTY = new Shape(new String[0]);
+
+    private static final int SCAN = 8;
+    private static final int LIMIT = 32;
+
+    // names by slot, null for a dictionary shape
+    private final String[] names;
+    // name -> slot, null for a small shape, HashMap never changed after construction, or ConcurrentHashMap of a dictionary shape
+    private final Map<String, Integer> slots;
+    // next shapes by added name, null for a dictionary shape
+    private final ConcurrentHashMap<String, Shape> next;
+
+    private Shape(String[] names) {
+        this.names = names;
+        if (names.length > SCAN) {
+            this.slots = new HashMap<>();
+            for (int i = 0; i < names.length; i++) slots.put(names[i], i);
+        } else this.slots = null;
+        this.next = new ConcurrentHashMap<>();
+    }
+
+    private Shape(ConcurrentHashMap<String, Integer> slots) {
+        this.names = null;
+        this.slots = slots;
+        this.next = null;
+    }
+
+    /**
+     * @return slot of @param: name, -1 if shape has no such name
+     */
+    int slot(String name) {
+        if (slots == null) {
+            for (int i = 0; i < names.length; i++) if (names[i].equals(name)) return i;
+            return -1;
+        }
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    int size() {
+        return names != null ? names.length : slots.size();
+    }
+
+    /**
+     * call @param: action with every name and its slot
+     */
+    void forEach(ObjIntConsumer<String> action) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) action.accept(names[i], i);
+        } else slots.forEach(action::accept);
+    }
+
+    /**
+     * only called by the single writer of an object, slot of @param: name is size() and must have been written
+     * @return shape with @param: name added, this for a dictionary shape
+     */
+    Shape add(String name) {
+        if (next == null) {
+            // readers find the name only after its slot is written
+            slots.put(name, slots.size());
+            return this;
+        }
+        Shape shape = next.get(name);
+        if (shape != null) return shape;
+        if (names.length >= LIMIT) {
+            // room for as many names again before it grows
+            ConcurrentHashMap<String, Integer> dictionary = new ConcurrentHashMap<>(names.length * 4);
+            for (int i = 0; i < names.length; i++) dictionary.put(names[i], i);
+            dictionary.put(name, names.length);
+            return new Shape(dictionary);
+        }
+        return next.computeIfAbsent(name, key -> {
+            String[] added = Arrays.copyOf(names, names.length + 1);
+            added[names.length] = key;
+            return new Shape(added);
+        });
+    }
+}
@@ -0,0 +1,146 @@
+package icu.buzz.lox.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * named values of an object shared between tasks (fields of an instance, variables of an environment), kept in slot arrays
+ * a Shape maps names to slots, slots live in chunks of CHUNK, chunks are never copied, so a write can not be lost by growing
+ * memory model: slots are written with release and read with acquire (VarHandle), a task reading a value also sees
+ * everything the writing task did before writing it; a single read or write is atomic, compound updates (x = x + 1) are not,
+ * compareAndSet is
+ * adding a name changes the shape: its slot is written first, then the shape is published, a reader never finds an unwritten slot
+ * shape changes of an object with many writers are serialized by a lock out of a small striped set (no lock in every object),
+ * but only in a run whose objects can be shared at all (see TaskGroup.share), an object with a single writer of its shape
+ * (see Environment) never takes a lock, reads and writes of existing slots never lock
+ */
+public abstract class Slots {
+    // slot s is element s & MASK of chunk s >>> SHIFT
+    private static final int SHIFT = 3;
+    private static final int CHUNK = 1 << SHIFT;
+    private static final int MASK = CHUNK - 1;
+    private static final Object[][] NO_CHUNKS = new Object[0][];
+
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle SHAPE;
+    private static final VarHandle CHUNKS;
+
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[64];
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            SHAPE = lookup.findVarHandle(Slots.class, "shape", Shape.class);
+            CHUNKS = lookup.findVarHandle(Slots.class, "chunks", Object[][].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        for (int i = 0; i < LOCKS.length; i++) LOCKS[i] = new ReentrantLock();
+    }
+
+    // true if shape may be changed by several threads
+    private final boolean shared;
+    // accessed by SHAPE and CHUNKS
+    private Shape shape = Shape.EMPTY;
+    private Object[][] chunks = NO_CHUNKS;
+
+    /**
+     * @param shared true if any thread may add names, false if only one thread ever does
+     */
+    protected Slots(boolean shared) {
+        this.shared = shared;
+    }
+
+    /**
+     * @return slot of @param: name, -1 if it is not defined
+     */
+    protected final int slot(String name) {
+        return ((Shape) SHAPE.getAcquire(this)).slot(name);
+    }
+
+    /**
+     * @param slot slot returned by slot(name)
+     */
+    protected final Object read(int slot) {
+        Object[][] chunks = (Object[][]) CHUNKS.getAcquire(this);
+        return SLOT.getAcquire(chunks[slot >>> SHIFT], slot & MASK);
+    }
+
+    /**
+     * @param slot slot returned by slot(name)
+     */
+    protected final void write(int slot, Object value) {
+        Object[][] chunks = (Object[][]) CHUNKS.getAcquire(this);
+        SLOT.setRelease(chunks[slot >>> SHIFT], slot & MASK, value);
+    }
+
+    /**
+     * set @param: slot to @param: value if it holds a value equal to @param: expected (lox equality)
+     * @return true if slot is set
+     */
+    protected final boolean compareAndSet(int slot, Object expected, Object value) {
+        Object[] chunk = ((Object[][]) CHUNKS.getAcquire(this))[slot >>> SHIFT];
+        while (true) {
+            Object current = SLOT.getAcquire(chunk, slot & MASK);
+            if (!Objects.equals(current, expected)) return false;
+            // a boxed number equal to expected may be another object, swap exactly the one that has been compared
+            if (SLOT.compareAndSet(chunk, slot & MASK, current, value)) return true;
+        }
+    }
+
+    /**
+     * write @param: value to @param: name, add name if it is not defined
+     * @param concurrent true if the run writing it may have other threads (TaskGroup.isConcurrent), a shared object locks then
+     */
+    protected final void put(String name, Object value, boolean concurrent) {
+        int slot = slot(name);
+        if (slot >= 0) {
+            write(slot, value);
+            return;
+        }
+        if (!shared || !concurrent) {
+            add(name, value);
+            return;
+        }
+        ReentrantLock lock = LOCKS[System.identityHashCode(this) & (LOCKS.length - 1)];
+        lock.lock();
+        try {
+            // another thread may have added it meanwhile
+            slot = slot(name);
+            if (slot >= 0) write(slot, value);
+            else add(name, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return read-only copy of names and values
+     */
+    protected final Map<String, Object> copy() {
+        Map<String, Object> values = new HashMap<>();
+        Shape current = (Shape) SHAPE.getAcquire(this);
+        current.forEach((name, slot) -> values.put(name, read(slot)));
+        return Collections.unmodifiableMap(values);
+    }
+
+    private void add(String name, Object value) {
+        int slot = shape.size();
+        int index = slot >>> SHIFT;
+        Object[][] grown = chunks;
+        if (index == grown.length) {
+            grown = new Object[Math.max(1, index * 2)][];
+            System.arraycopy(chunks, 0, grown, 0, index);
+        }
+        // chunks past the ones in use are empty, filling one is not seen by readers before the shape that uses it
+        if (grown[index] == null) grown[index] = new Object[CHUNK];
+        grown[index][slot & MASK] = value;
+        if (grown != chunks) CHUNKS.setRelease(this, grown);
+        SHAPE.setRelease(this, shape.add(name));
+    }
+}
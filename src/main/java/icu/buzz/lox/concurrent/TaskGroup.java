@@ -0,0 +1,84 @@
+package icu.buzz.lox.concurrent;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * tasks of a run (spawned by its code or by its tasks), shared by the interpreter of the run and its forks
+ * a run is concurrent once it spawns a task, runs a parallel native or is given objects of another run,
+ * from then on its instances lock to add a field (see Slots), a run that stays single-threaded never locks
+ * when the run ends its tasks still running are cancelled and waited for: a task stops at its next loop iteration,
+ * or at once if it is blocked on a channel, so nothing a run started outlives it (writes to its output or files)
+ */
+public final class TaskGroup {
+    private final Set<CompletableFuture<Object>> running = ConcurrentHashMap.newKeySet();
+    // threads of running tasks, interrupted on cancel
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    private volatile boolean concurrent;
+    private volatile boolean cancelled;
+
+    /**
+     * called before objects of the run can be used by another thread, the thread calling it then hands them over
+     * with a happens-before edge (starting a task), so the handed over objects and the flag are seen together
+     */
+    public void share() {
+        if (!concurrent) concurrent = true;
+    }
+
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws NativeError if run has ended, a task left running stops here
+     */
+    public void checkCancelled() {
+        if (cancelled) throw new NativeError("task is cancelled, the run that spawned it has ended");
+    }
+
+    /**
+     * @return number of tasks not finished yet
+     */
+    public int running() {
+        return running.size();
+    }
+
+    void add(CompletableFuture<Object> result) {
+        running.add(result);
+        result.whenComplete((value, error) -> running.remove(result));
+    }
+
+    /**
+     * @return false if run has ended, task should not start
+     */
+    boolean enter(Thread thread) {
+        threads.add(thread);
+        if (!cancelled) return true;
+        threads.remove(thread);
+        return false;
+    }
+
+    void exit(Thread thread) {
+        threads.remove(thread);
+    }
+
+    /**
+     * cancel tasks still running and wait until they have stopped, called once when the run ends
+     */
+    public void cancel() {
+        cancelled = true;
+        if (running.isEmpty()) return;
+        for (Thread thread : threads) thread.interrupt();
+        // a task spawned meanwhile does not start, it is done at once
+        while (!running.isEmpty()) {
+            for (CompletableFuture<Object> result : running) result.handle((value, error) -> null).join();
+        }
+    }
+}
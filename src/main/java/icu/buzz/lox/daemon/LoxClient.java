@@ -0,0 +1,90 @@
+package icu.buzz.lox.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * thin client of LoxDaemon, it behaves like command line Lox: stdout, stderr and exit code are the script's
+ * client does not load the interpreter, so its own startup is a bare jvm (e.g. run it with -XX:TieredStopAtLevel=1 -Xshare:auto)
+ * usage: java icu.buzz.lox.daemon.LoxClient [--socket path] (script file | -)
+ */
+public class LoxClient {
+    public static void main(String[] args) throws IOException {
+        Path socket = Protocol.defaultSocket();
+        String script = null;
+        boolean usage = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--socket") && i + 1 < args.length) socket = Path.of(args[++i]);
+            else if (script == null && (args[i].equals("-") || !args[i].startsWith("--"))) script = args[i];
+            else usage = true;
+        }
+        if (usage || script == null) {
+            System.err.println("Usage: java icu.buzz.lox.daemon.LoxClient [--socket path] (script file | -)");
+            System.exit(64);
+        }
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            // a socket of another user would get the script and answer for the daemon
+            if (!Protocol.isOwned(socket)) {
+                System.err.println("lox daemon socket " + socket + " is not owned by " + System.getProperty("user.name"));
+                System.exit(69);
+            }
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            System.err.println("lox daemon is not running on " + socket + ": " + e.getMessage());
+            System.exit(69);
+        }
+        try (channel) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(Protocol.MAGIC);
+            // daemon has its own working directory, a path is sent absolute, a script from standard input is sent as it is
+            if (script.equals("-")) {
+                out.writeByte(Protocol.SOURCE);
+                Protocol.writeString(out, new String(System.in.readAllBytes(), StandardCharsets.UTF_8));
+            } else {
+                out.writeByte(Protocol.PATH);
+                Protocol.writeString(out, Path.of(script).toAbsolutePath().toString());
+            }
+            out.flush();
+            System.exit(receive(new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))));
+        }
+    }
+
+    /**
+     * copy OUT and ERR frames to stdout and stderr
+     * @return exit code sent by daemon
+     */
+    private static int receive(DataInputStream in) throws IOException {
+        try {
+            for (;;) {
+                byte tag = in.readByte();
+                if (tag == Protocol.EXIT) {
+                    System.out.flush();
+                    System.err.flush();
+                    return in.readInt();
+                }
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                // output shows up as the script prints it
+                PrintStream target = tag == Protocol.OUT ? System.out : System.err;
+                target.write(bytes);
+                target.flush();
+            }
+        } catch (EOFException e) {
+            System.out.flush();
+            System.err.println("lox daemon closed the connection before the script finished");
+            return 70;
+        }
+    }
+}
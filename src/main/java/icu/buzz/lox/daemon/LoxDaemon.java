@@ -0,0 +1,259 @@
+package icu.buzz.lox.daemon;
+
+import icu.buzz.lox.ErrorReporter;
+import icu.buzz.lox.LoxEngine;
+import icu.buzz.lox.LoxExecutor;
+import icu.buzz.lox.LoxScript;
+import icu.buzz.lox.cache.AstCache;
+import icu.buzz.lox.exceptions.CompileError;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.exceptions.NativeError;
+import icu.buzz.lox.source.Source;
+import icu.buzz.lox.source.Utf8Source;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * resident interpreter, scripts sent by LoxClient over a unix domain socket run in a jvm that is already started and warmed up
+ * a connection gets its own thread, which reads the request (it has REQUEST_TIMEOUT_SECONDS to arrive) and waits for the script,
+ * every request runs in an isolated context (fresh interpreter and globals, see LoxScript) on a virtual thread (java 21+),
+ * otherwise on a platform thread of its own out of at most MAX_SCRIPTS, so a script that never ends (an endless loop,
+ * a receive nobody sends to) holds only its own thread, not a core of a fixed pool the other requests wait for,
+ * its output and errors are streamed back as they are printed, exit code is the same as command line (65 on compile errors)
+ * compiled scripts are kept by content hash, an unchanged script is neither scanned, parsed nor resolved again
+ * a script runs in the working directory of the daemon, a relative path given to open or lines is resolved against it
+ * usage: java icu.buzz.lox.daemon.LoxDaemon [socket path]
+ */
+public class LoxDaemon {
+    // compiled scripts kept at most, all are dropped when it is reached
+    private static final int SCRIPTS = 256;
+    private static final int WARM_UP = 500;
+    private static final String WARM_UP_SCRIPT = """
+            class Point {
+                init(x, y) { this.x = x; this.y = y; }
+                add(other) { return Point(this.x + other.x, this.y + other.y); }
+            }
+            fun fib(n) { if (n < 2) return n; return fib(n - 1) + fib(n - 2); }
+            fun counter() { var count = 0; fun next() { count = count + 1; return count; } return next; }
+            var p = Point(0, 0);
+            var next = counter();
+            for (var i = 0; i < 20; i = i + 1) p = p.add(Point(i, fib(8)));
+            print p.x + p.y + next() + next();
+            print "warm" + "up";
+            """;
+
+    // scripts running at once on platform threads, a request beyond them is refused
+    private static final int MAX_SCRIPTS = 64;
+    // a client has this long to send its request, an idle connection does not keep a thread for longer
+    private static final long REQUEST_TIMEOUT_SECONDS = 10;
+
+    private final Path socket;
+    // scripts are compiled and run here
+    private final ExecutorService executor;
+    // a thread a connection, it reads the request and waits for the script, blocked on io instead of holding a compute thread
+    private final ExecutorService connections;
+    // closes connections whose request is late
+    private final ScheduledExecutorService timer;
+    private final Map<String, LoxScript> scripts;
+
+    public LoxDaemon(Path socket) {
+        this.socket = socket;
+        this.executor = executor();
+        this.connections = Executors.newCachedThreadPool();
+        this.timer = Executors.newSingleThreadScheduledExecutor();
+        this.scripts = new ConcurrentHashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 1) {
+            System.err.println("Usage: java icu.buzz.lox.daemon.LoxDaemon [socket path]");
+            System.exit(64);
+        }
+        new LoxDaemon(args.length == 1 ? Path.of(args[0]) : Protocol.defaultSocket()).serve();
+    }
+
+    /**
+     * listen on socket until the jvm is stopped, socket file is removed on shutdown
+     * socket lives in a directory private to the user (created 0700 if missing), other users can not reach it
+     */
+    public void serve() throws IOException {
+        try {
+            Protocol.prepare(socket);
+        } catch (IOException e) {
+            System.err.println("lox daemon can not use " + socket + ": " + e.getMessage());
+            System.exit(73);
+        }
+        try (SocketChannel probe = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            probe.connect(UnixDomainSocketAddress.of(socket));
+            System.err.println("lox daemon is already running on " + socket);
+            System.exit(69);
+        } catch (IOException e) {
+            // nobody listens, a socket file left by a killed daemon is stale
+            Files.deleteIfExists(socket);
+        }
+        warmUp();
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException ignored) {
+                    // nothing left to do while exiting
+                }
+            }));
+            System.err.println("lox daemon " + AstCache.version() + " listening on " + socket);
+            for (;;) {
+                SocketChannel client = server.accept();
+                connections.execute(() -> handle(client));
+            }
+        }
+    }
+
+    /**
+     * @return virtual thread per script if runtime has them, otherwise a thread per script up to MAX_SCRIPTS,
+     * idle threads are kept for a minute
+     */
+    private static ExecutorService executor() {
+        if (LoxExecutor.hasVirtualThreads()) return LoxExecutor.standardExecutor();
+        return new ThreadPoolExecutor(0, MAX_SCRIPTS, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+    }
+
+    /**
+     * run a representative script until the interpreter is compiled by JIT, so the first request does not run it cold
+     */
+    private static void warmUp() {
+        LoxScript script = LoxEngine.compile(WARM_UP_SCRIPT);
+        PrintStream sink = new PrintStream(OutputStream.nullOutputStream(), false, StandardCharsets.UTF_8);
+        for (int i = 0; i < WARM_UP; i++) script.execute(Map.of(), sink);
+    }
+
+    private void handle(SocketChannel client) {
+        try (client) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+            Lock lock = new ReentrantLock();
+            PrintStream stdout = new PrintStream(new Protocol.FrameStream(out, Protocol.OUT, lock), true, StandardCharsets.UTF_8);
+            PrintStream stderr = new PrintStream(new Protocol.FrameStream(out, Protocol.ERR, lock), true, StandardCharsets.UTF_8);
+            int code = request(client, in, stdout, stderr);
+            stdout.flush();
+            stderr.flush();
+            lock.lock();
+            try {
+                out.writeByte(Protocol.EXIT);
+                out.writeInt(code);
+                out.flush();
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            // client has gone away, the script has nobody to report to
+        }
+    }
+
+    /**
+     * read request of @param: client within REQUEST_TIMEOUT_SECONDS, run it on executor and wait for it
+     * @return exit code of request
+     */
+    private int request(SocketChannel client, DataInputStream in, PrintStream stdout, PrintStream stderr) throws IOException {
+        // closing the channel ends a read that waits too long with an AsynchronousCloseException
+        ScheduledFuture<?> deadline = timer.schedule(() -> {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+                // connection is dropped either way
+            }
+        }, REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        byte kind;
+        String text;
+        try {
+            if (in.readInt() != Protocol.MAGIC) {
+                stderr.println("unknown request, client and daemon do not match");
+                return 64;
+            }
+            kind = in.readByte();
+            text = Protocol.readString(in);
+        } finally {
+            deadline.cancel(false);
+        }
+        try {
+            return executor.submit(() -> run(kind, text, stdout, stderr)).get();
+        } catch (RejectedExecutionException e) {
+            stderr.println("lox daemon is busy, " + MAX_SCRIPTS + " scripts are running");
+            return 69;
+        } catch (ExecutionException e) {
+            stderr.println("script failed: " + e.getCause());
+            return 70;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 70;
+        }
+    }
+
+    /**
+     * compile and run script of request
+     * @return exit code of request
+     */
+    private int run(byte kind, String text, PrintStream stdout, PrintStream stderr) {
+        LoxScript script;
+        try {
+            script = kind == Protocol.PATH ? compile(Path.of(text)) : LoxEngine.compile(text);
+        } catch (IOException e) {
+            stderr.println("script " + text + " can not be read: " + e.getMessage());
+            return 66;
+        } catch (CompileError error) {
+            error.getErrors().forEach(stderr::println);
+            return 65;
+        }
+        try {
+            script.execute(Map.of(), stdout);
+        } catch (ExecuteError error) {
+            // like command line, a runtime error is reported but does not change exit code
+            stderr.println(ErrorReporter.format(error.getToken().getLocationInfo().getLine(), error.getToken().getLocationInfo().getOffset(), error.getMessage()));
+        } catch (NativeError error) {
+            // a file the script left open can not be flushed
+            stderr.println(error.getMessage());
+        } catch (StackOverflowError error) {
+            stderr.println("stack overflow");
+        }
+        return 0;
+    }
+
+    private LoxScript compile(Path path) throws IOException {
+        Utf8Source source = Source.map(path);
+        String key = HexFormat.of().formatHex(AstCache.key(source.bytes()));
+        LoxScript script = scripts.get(key);
+        if (script != null) return script;
+        script = LoxEngine.compile(source);
+        if (scripts.size() >= SCRIPTS) scripts.clear();
+        scripts.put(key, script);
+        return script;
+    }
+}
@@ -0,0 +1,128 @@
+package icu.buzz.lox.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * wire format between LoxClient and LoxDaemon, all integers are big-endian
+ * request: magic, kind (PATH or SOURCE), length and UTF-8 bytes of an absolute script path or of the script itself
+ * response: frames of tag (OUT, ERR or EXIT) and payload, OUT and ERR carry length and bytes, EXIT carries exit code and ends it
+ */
+final class Protocol {
+    static final int MAGIC = 0x4c4f5844; // "LOXD"
+
+    // request kinds
+    static final byte PATH = 0;
+    static final byte SOURCE = 1;
+
+    // response frame tags
+    static final byte OUT = 1;
+    static final byte ERR = 2;
+    static final byte EXIT = 3;
+
+    private Protocol() {}
+
+    /**
+     * socket is system property lox.daemon.socket, or daemon.sock in a directory only the user can enter:
+     * jlox under $XDG_RUNTIME_DIR, or jlox-<user> under the temporary directory
+     */
+    static Path defaultSocket() {
+        String socket = System.getProperty("lox.daemon.socket");
+        if (socket != null) return Path.of(socket);
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = runtime != null && Path.of(runtime).isAbsolute()
+                ? Path.of(runtime, "jlox")
+                : Path.of(System.getProperty("java.io.tmpdir"), "jlox-" + System.getProperty("user.name"));
+        return directory.resolve("daemon.sock");
+    }
+
+    /**
+     * create directory of @param: socket (0700) if it is missing
+     * @throws IOException if the directory is not owned by the user or others may write it, another user could replace the socket
+     */
+    static void prepare(Path socket) throws IOException {
+        Path directory = socket.toAbsolutePath().getParent();
+        if (Files.notExists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            } else {
+                Files.createDirectories(directory);
+            }
+        }
+        if (!isOwned(directory) || isShared(directory)) throw new IOException(directory + " is not a private directory of " + System.getProperty("user.name"));
+    }
+
+    /**
+     * @return true if @param: path (not what it links to) is owned by the user running this jvm
+     */
+    static boolean isOwned(Path path) throws IOException {
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+        return Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).equals(user);
+    }
+
+    private static boolean isShared(Path path) throws IOException {
+        PosixFileAttributeView posix = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+        if (posix == null) return false;
+        Set<PosixFilePermission> permissions = posix.readAttributes().permissions();
+        return permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE);
+    }
+
+    static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        byte[] utf8 = new byte[in.readInt()];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * stream of OUT or ERR frames, every write becomes a frame and is sent at once,
+     * stdout and stderr of a script share the connection, @param: lock keeps their frames apart
+     */
+    static final class FrameStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte tag;
+        private final Lock lock;
+
+        FrameStream(DataOutputStream out, byte tag, Lock lock) {
+            this.out = out;
+            this.tag = tag;
+            this.lock = lock;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            lock.lock();
+            try {
+                out.writeByte(tag);
+                out.writeInt(len);
+                out.write(b, off, len);
+                out.flush();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
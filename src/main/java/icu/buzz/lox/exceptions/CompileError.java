@@ -0,0 +1,22 @@
+package icu.buzz.lox.exceptions;
+
+import java.util.List;
+
+/**
+ * a script can not be compiled, it has scan, syntax or resolution errors
+ */
+public class CompileError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // every error in the form of command line report: line [l] column [c] has Error: message
+    private final List<String> errors;
+
+    public CompileError(List<String> errors) {
+        super(String.join(System.lineSeparator(), errors));
+        this.errors = List.copyOf(errors);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,13 @@
+package icu.buzz.lox.exceptions;
+
+/**
+ * error raised by a native function, a native does not know where it is called,
+ * interpreter reports it as an ExecuteError at the call
+ */
+public class NativeError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public NativeError(String message) {
+        super(message);
+    }
+}
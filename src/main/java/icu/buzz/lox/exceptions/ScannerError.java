@@ -0,0 +1,12 @@
+package icu.buzz.lox.exceptions;
+
+/**
+ * a token stream stops at a scan error, the error itself has been reported by the scanner
+ */
+public class ScannerError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ScannerError() {
+        super("source has scan errors");
+    }
+}
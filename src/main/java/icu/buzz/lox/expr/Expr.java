@@ -1,321 +1,446 @@
-package icu.buzz.lox.expr;
-
-import icu.buzz.lox.token.Token;
-import java.util.List;
-
-public abstract class Expr {
-    public abstract <R> R accept(ExprVisitor<R> visitor);
-
-    public static class Assign extends Expr {
-        private final Token name;
-
-        private final Expr value;
-
-        public Assign(Token name, Expr value) {
-            this.name = name;
-            this.value = value;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Token getName() {
-            return this.name;
-        }
-
-        public Expr getValue() {
-            return this.value;
-        }
-
-    }
-
-    public static class Set extends Expr {
-        private final Expr object;
-
-        private final Token name;
-
-        private final Expr value;
-
-        public Set(Expr object, Token name, Expr value) {
-            this.object = object;
-            this.name = name;
-            this.value = value;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getObject() {
-            return this.object;
-        }
-
-        public Token getName() {
-            return this.name;
-        }
-
-        public Expr getValue() {
-            return this.value;
-        }
-
-    }
-
-    public static class Logical extends Expr {
-        private final Expr left;
-
-        private final Token operator;
-
-        private final Expr right;
-
-        public Logical(Expr left, Token operator, Expr right) {
-            this.left = left;
-            this.operator = operator;
-            this.right = right;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getLeft() {
-            return this.left;
-        }
-
-        public Token getOperator() {
-            return this.operator;
-        }
-
-        public Expr getRight() {
-            return this.right;
-        }
-
-    }
-
-    public static class Binary extends Expr {
-        private final Expr left;
-
-        private final Token operator;
-
-        private final Expr right;
-
-        public Binary(Expr left, Token operator, Expr right) {
-            this.left = left;
-            this.operator = operator;
-            this.right = right;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getLeft() {
-            return this.left;
-        }
-
-        public Token getOperator() {
-            return this.operator;
-        }
-
-        public Expr getRight() {
-            return this.right;
-        }
-
-    }
-
-    public static class Unary extends Expr {
-        private final Token operator;
-
-        private final Expr right;
-
-        public Unary(Token operator, Expr right) {
-            this.operator = operator;
-            this.right = right;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Token getOperator() {
-            return this.operator;
-        }
-
-        public Expr getRight() {
-            return this.right;
-        }
-
-    }
-
-    public static class Call extends Expr {
-        private final Expr callee;
-
-        private final List<Expr> arguments;
-
-        private final Token paren;
-
-        public Call(Expr callee, List<Expr> arguments, Token paren) {
-            this.callee = callee;
-            this.arguments = arguments;
-            this.paren = paren;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getCallee() {
-            return this.callee;
-        }
-
-        public List<Expr> getArguments() {
-            return this.arguments;
-        }
-
-        public Token getParen() {
-            return this.paren;
-        }
-
-    }
-
-    public static class Grouping extends Expr {
-        private final Expr expression;
-
-        public Grouping(Expr expression) {
-            this.expression = expression;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getExpression() {
-            return this.expression;
-        }
-
-    }
-
-    public static class Literal extends Expr {
-        private final Object value;
-
-        public Literal(Object value) {
-            this.value = value;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Object getValue() {
-            return this.value;
-        }
-
-    }
-
-    public static class Get extends Expr {
-        private final Expr object;
-
-        private final Token name;
-
-        public Get(Expr object, Token name) {
-            this.object = object;
-            this.name = name;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Expr getObject() {
-            return this.object;
-        }
-
-        public Token getName() {
-            return this.name;
-        }
-
-    }
-
-    public static class Variable extends Expr {
-        private final Token name;
-
-        public Variable(Token name) {
-            this.name = name;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Token getName() {
-            return this.name;
-        }
-
-    }
-
-    public static class This extends Expr {
-        private final Token keyword;
-
-        public This(Token keyword) {
-            this.keyword = keyword;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Token getKeyword() {
-            return this.keyword;
-        }
-
-    }
-
-    public static class Super extends Expr {
-        private final Token keyword;
-
-        private final Token method;
-
-        public Super(Token keyword, Token method) {
-            this.keyword = keyword;
-            this.method = method;
-        }
-
-        @Override
-        public <R> R accept(ExprVisitor<R> visitor) {
-            return visitor.visitExpr(this);
-        }
-
-        // getters
-        public Token getKeyword() {
-            return this.keyword;
-        }
-
-        public Token getMethod() {
-            return this.method;
-        }
-
-    }
-
-}
+package icu.buzz.lox.expr;
+
+import icu.buzz.lox.token.Token;
+import java.util.List;
+
+public abstract sealed class Expr permits Expr.Assign, Expr.Set, Expr.Logical, Expr.Binary, Expr.Unary, Expr.Call, Expr.Grouping, Expr.Literal, Expr.Get, Expr.Variable, Expr.This, Expr.Super, Expr.Index, Expr.IndexSet {
+    public enum Kind {
+        ASSIGN,
+        SET,
+        LOGICAL,
+        BINARY,
+        UNARY,
+        CALL,
+        GROUPING,
+        LITERAL,
+        GET,
+        VARIABLE,
+        THIS,
+        SUPER,
+        INDEX,
+        INDEX_SET
+    }
+
+    private final Kind kind;
+
+    protected Expr(Kind kind) {
+        this.kind = kind;
+    }
+
+    public final Kind getKind() {
+        return this.kind;
+    }
+
+    // distance to the scope declares the variable, -1 for a global variable, set by Resolver
+    private int depth = -1;
+
+    public final int getDepth() {
+        return this.depth;
+    }
+
+    public final void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    public abstract <R> R accept(ExprVisitor<R> visitor);
+
+    public static final class Assign extends Expr {
+        private final Token name;
+
+        private final Expr value;
+
+        public Assign(Token name, Expr value) {
+            super(Kind.ASSIGN);
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Token getName() {
+            return this.name;
+        }
+
+        public Expr getValue() {
+            return this.value;
+        }
+
+    }
+
+    public static final class Set extends Expr {
+        private final Expr object;
+
+        private final Token name;
+
+        private final Expr value;
+
+        public Set(Expr object, Token name, Expr value) {
+            super(Kind.SET);
+            this.object = object;
+            this.name = name;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getObject() {
+            return this.object;
+        }
+
+        public Token getName() {
+            return this.name;
+        }
+
+        public Expr getValue() {
+            return this.value;
+        }
+
+    }
+
+    public static final class Logical extends Expr {
+        private final Expr left;
+
+        private final Token operator;
+
+        private final Expr right;
+
+        public Logical(Expr left, Token operator, Expr right) {
+            super(Kind.LOGICAL);
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getLeft() {
+            return this.left;
+        }
+
+        public Token getOperator() {
+            return this.operator;
+        }
+
+        public Expr getRight() {
+            return this.right;
+        }
+
+    }
+
+    public static final class Binary extends Expr {
+        private final Expr left;
+
+        private final Token operator;
+
+        private final Expr right;
+
+        public Binary(Expr left, Token operator, Expr right) {
+            super(Kind.BINARY);
+            this.left = left;
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getLeft() {
+            return this.left;
+        }
+
+        public Token getOperator() {
+            return this.operator;
+        }
+
+        public Expr getRight() {
+            return this.right;
+        }
+
+    }
+
+    public static final class Unary extends Expr {
+        private final Token operator;
+
+        private final Expr right;
+
+        public Unary(Token operator, Expr right) {
+            super(Kind.UNARY);
+            this.operator = operator;
+            this.right = right;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Token getOperator() {
+            return this.operator;
+        }
+
+        public Expr getRight() {
+            return this.right;
+        }
+
+    }
+
+    public static final class Call extends Expr {
+        private final Expr callee;
+
+        private final List<Expr> arguments;
+
+        private final Token paren;
+
+        public Call(Expr callee, List<Expr> arguments, Token paren) {
+            super(Kind.CALL);
+            this.callee = callee;
+            this.arguments = arguments;
+            this.paren = paren;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getCallee() {
+            return this.callee;
+        }
+
+        public List<Expr> getArguments() {
+            return this.arguments;
+        }
+
+        public Token getParen() {
+            return this.paren;
+        }
+
+    }
+
+    public static final class Grouping extends Expr {
+        private final Expr expression;
+
+        public Grouping(Expr expression) {
+            super(Kind.GROUPING);
+            this.expression = expression;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getExpression() {
+            return this.expression;
+        }
+
+    }
+
+    public static final class Literal extends Expr {
+        private final Object value;
+
+        public Literal(Object value) {
+            super(Kind.LITERAL);
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Object getValue() {
+            return this.value;
+        }
+
+    }
+
+    public static final class Get extends Expr {
+        private final Expr object;
+
+        private final Token name;
+
+        public Get(Expr object, Token name) {
+            super(Kind.GET);
+            this.object = object;
+            this.name = name;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getObject() {
+            return this.object;
+        }
+
+        public Token getName() {
+            return this.name;
+        }
+
+    }
+
+    public static final class Variable extends Expr {
+        private final Token name;
+
+        public Variable(Token name) {
+            super(Kind.VARIABLE);
+            this.name = name;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Token getName() {
+            return this.name;
+        }
+
+    }
+
+    public static final class This extends Expr {
+        private final Token keyword;
+
+        public This(Token keyword) {
+            super(Kind.THIS);
+            this.keyword = keyword;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Token getKeyword() {
+            return this.keyword;
+        }
+
+    }
+
+    public static final class Super extends Expr {
+        private final Token keyword;
+
+        private final Token method;
+
+        public Super(Token keyword, Token method) {
+            super(Kind.SUPER);
+            this.keyword = keyword;
+            this.method = method;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Token getKeyword() {
+            return this.keyword;
+        }
+
+        public Token getMethod() {
+            return this.method;
+        }
+
+    }
+
+    public static final class Index extends Expr {
+        private final Expr object;
+
+        private final Token bracket;
+
+        private final Expr index;
+
+        public Index(Expr object, Token bracket, Expr index) {
+            super(Kind.INDEX);
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getObject() {
+            return this.object;
+        }
+
+        public Token getBracket() {
+            return this.bracket;
+        }
+
+        public Expr getIndex() {
+            return this.index;
+        }
+
+    }
+
+    public static final class IndexSet extends Expr {
+        private final Expr object;
+
+        private final Token bracket;
+
+        private final Expr index;
+
+        private final Expr value;
+
+        public IndexSet(Expr object, Token bracket, Expr index, Expr value) {
+            super(Kind.INDEX_SET);
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(ExprVisitor<R> visitor) {
+            return visitor.visitExpr(this);
+        }
+
+        // getters
+        public Expr getObject() {
+            return this.object;
+        }
+
+        public Token getBracket() {
+            return this.bracket;
+        }
+
+        public Expr getIndex() {
+            return this.index;
+        }
+
+        public Expr getValue() {
+            return this.value;
+        }
+
+    }
+
+}
@@ -0,0 +1,246 @@
+package icu.buzz.lox.io;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * file handle created by open(path, mode), a file of utf-8 lines read by readLine or written by write
+ * mode "r" reads through a direct buffer of 1 MB, "w" writes (the file is truncated), "a" appends, "m" reads through
+ * memory mapped regions of up to 1 GB, so a file of any size is read without being copied into heap
+ * in both read modes a line is decoded only when it is read: its bytes are copied once into a scratch array and
+ * turned into a String, the line terminator ("\n" or "\r\n") is dropped
+ * a file is used by a single task, close flushes what is written and releases the channel
+ */
+public final class LoxFile {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long REGION_SIZE = 1L << 30;
+    // '\n' in every byte
+    private static final long NEWLINES = 0x0a0a_0a0a_0a0a_0a0aL;
+
+    private final String path;
+    private final String mode;
+    private final FileChannel channel;
+    // for "r" and "w" a direct buffer, for "m" the mapped region, null once closed, read buffers are little endian
+    // so the lowest byte of getLong is the first
+    // when reading, bytes between position and limit have not been read yet
+    private ByteBuffer buffer;
+    // file position of the first byte of the mapped region
+    private long regionStart;
+    private boolean eof;
+    private byte[] scratch = new byte[256];
+
+    private LoxFile(String path, String mode, FileChannel channel, ByteBuffer buffer) {
+        this.path = path;
+        this.mode = mode;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * @param mode "r", "w", "a" or "m"
+     * @throws NativeError if mode is none of them, or the file can not be opened
+     */
+    public static LoxFile open(String path, String mode) {
+        try {
+            Path file = Path.of(path);
+            switch (mode) {
+                case "r" -> {
+                    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                    // nothing read yet
+                    buffer.flip();
+                    return new LoxFile(path, mode, FileChannel.open(file, StandardOpenOption.READ), buffer);
+                }
+                case "m" -> {
+                    LoxFile loxFile = new LoxFile(path, mode, FileChannel.open(file, StandardOpenOption.READ), null);
+                    loxFile.map(0);
+                    return loxFile;
+                }
+                case "w" -> {
+                    return new LoxFile(path, mode, FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), ByteBuffer.allocateDirect(BUFFER_SIZE));
+                }
+                case "a" -> {
+                    return new LoxFile(path, mode, FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND), ByteBuffer.allocateDirect(BUFFER_SIZE));
+                }
+                default -> throw new NativeError("open mode should be \"r\", \"w\", \"a\" or \"m\", not \"" + mode + "\"");
+            }
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof NativeError error) throw error;
+            throw new NativeError("can not open " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return next line without its terminator, null at end of file
+     * @throws NativeError if file is not open for reading
+     */
+    public String readLine() {
+        open();
+        if (!isReadable()) throw new NativeError(path + " is not open for reading");
+        try {
+            // bytes already scanned for a newline, not scanned again after a refill
+            int scanned = 0;
+            while (true) {
+                // refill may replace buffer
+                ByteBuffer buffer = this.buffer;
+                int start = buffer.position();
+                int limit = buffer.limit();
+                int newline = newline(buffer, start + scanned, limit);
+                if (newline >= 0) return decode(buffer, start, newline, newline + 1);
+                scanned = limit - start;
+                if (!refill()) {
+                    buffer = this.buffer;
+                    if (buffer.position() == buffer.limit()) return null;
+                    // last line has no terminator
+                    return decode(buffer, buffer.position(), buffer.limit(), buffer.limit());
+                }
+            }
+        } catch (IOException e) {
+            throw new NativeError("can not read " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * write @param: line and a newline
+     * @throws NativeError if file is not open for writing
+     */
+    public void write(String line) {
+        ByteBuffer buffer = open();
+        if (isReadable()) throw new NativeError(path + " is not open for writing");
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (buffer.remaining() < bytes.length + 1) {
+                flush(buffer);
+                // a line longer than the buffer goes to the channel directly
+                if (bytes.length + 1 > buffer.capacity()) {
+                    ByteBuffer large = ByteBuffer.wrap(bytes);
+                    while (large.hasRemaining()) channel.write(large);
+                    buffer.put((byte) '\n');
+                    return;
+                }
+            }
+            buffer.put(bytes).put((byte) '\n');
+        } catch (IOException e) {
+            throw new NativeError("can not write " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * flush what is written and close file, closing a closed file does nothing
+     */
+    public void close() {
+        if (buffer == null) return;
+        try {
+            if (!isReadable()) flush(buffer);
+        } catch (IOException e) {
+            throw new NativeError("can not write " + path + ": " + e.getMessage());
+        } finally {
+            // a mapped region is unmapped once it is collected
+            buffer = null;
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing is lost, what was written has been flushed
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return buffer == null;
+    }
+
+    private ByteBuffer open() {
+        if (buffer == null) throw new NativeError(path + " is closed");
+        return buffer;
+    }
+
+    private boolean isReadable() {
+        return mode.equals("r") || mode.equals("m");
+    }
+
+    /**
+     * @return index of the first '\n' of @param: buffer from @param: from up to @param: limit, -1 if there is none
+     * 8 bytes are tested at once: a byte of word ^ NEWLINES is 0 where word has a '\n', (x - 0x01..) & ~x sets the high
+     * bit of the lowest such byte (a borrow may also mark bytes above it, they are never the lowest)
+     */
+    private static int newline(ByteBuffer buffer, int from, int limit) {
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long x = buffer.getLong(i) ^ NEWLINES;
+            long found = (x - 0x0101_0101_0101_0101L) & ~x & 0x8080_8080_8080_8080L;
+            if (found != 0) return i + (Long.numberOfTrailingZeros(found) >>> 3);
+        }
+        for (; i < limit; i++) if (buffer.get(i) == '\n') return i;
+        return -1;
+    }
+
+    /**
+     * @return line made of bytes from @param: start to @param: end (a "\r" before end is dropped), buffer moves to @param: next
+     */
+    private String decode(ByteBuffer buffer, int start, int end, int next) {
+        if (end > start && buffer.get(end - 1) == '\r') end--;
+        int length = end - start;
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        buffer.get(start, scratch, 0, length);
+        buffer.position(next);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * keep unread bytes of buffer and add bytes after them
+     * @return false at end of file
+     */
+    private boolean refill() throws IOException {
+        if (eof) return false;
+        if (mode.equals("m")) {
+            long next = regionStart + buffer.position();
+            if (regionStart + buffer.limit() >= channel.size()) {
+                eof = true;
+                return false;
+            }
+            if (buffer.position() == 0) throw new NativeError(path + " has a line longer than " + REGION_SIZE + " bytes");
+            map(next);
+            return true;
+        }
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            // a line longer than the buffer, it grows
+            ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * map region of file from @param: start
+     */
+    private void map(long start) throws IOException {
+        regionStart = start;
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, channel.size() - start)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "<lox file " + path + ">";
+    }
+}
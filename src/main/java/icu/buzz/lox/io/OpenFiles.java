@@ -0,0 +1,47 @@
+package icu.buzz.lox.io;
+
+import icu.buzz.lox.exceptions.NativeError;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * files opened by a run and the tasks it spawns, closed when the run ends (see Interpreter.endRun),
+ * so what is written to a file the script does not close, or leaves open on a runtime error, is not lost
+ * methods are synchronized, tasks of a run open files concurrently
+ */
+public final class OpenFiles {
+    private final Set<LoxFile> files = new HashSet<>();
+    // files closed by the script are dropped once there are this many, a loop of open and close does not grow the set
+    private int pruneAt = 16;
+
+    public synchronized void add(LoxFile file) {
+        files.add(file);
+        if (files.size() < pruneAt) return;
+        files.removeIf(LoxFile::isClosed);
+        pruneAt = Math.max(16, files.size() * 2);
+    }
+
+    /**
+     * flush and close every file still open
+     * @throws NativeError of the first file that can not be flushed, the other files are closed anyway
+     */
+    public void closeAll() {
+        List<LoxFile> open;
+        synchronized (this) {
+            open = new ArrayList<>(files);
+            files.clear();
+        }
+        NativeError first = null;
+        for (LoxFile file : open) {
+            try {
+                file.close();
+            } catch (NativeError error) {
+                if (first == null) first = error;
+            }
+        }
+        if (first != null) throw first;
+    }
+}
@@ -1,50 +1,62 @@
-package icu.buzz.lox.oop;
-
-import icu.buzz.lox.Interpreter;
-import icu.buzz.lox.callable.LoxCallable;
-import icu.buzz.lox.callable.LoxFunction;
-
-import java.util.List;
-import java.util.Map;
-
-public class LoxClass implements LoxCallable {
-    private final String name;
-    private final LoxClass sup;
-    private final Map<String, LoxFunction> methods;
-
-    public LoxClass(String name, LoxClass sup, Map<String, LoxFunction> methods) {
-        this.name = name;
-        this.sup = sup;
-        this.methods = methods;
-    }
-
-    public LoxFunction getMethod(String name) {
-        LoxFunction function = methods.getOrDefault(name, null);
-        if (function == null && sup != null) function = sup.getMethod(name);
-        return function;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    @Override
-    public String toString() {
-        return "<lox class> " + this.name;
-    }
-
-    @Override
-    public Object call(Interpreter interpreter, List<Object> arguments) {
-        LoxInstance instance = new LoxInstance(this);
-        LoxFunction initializer = getMethod("init");
-        if (initializer != null) initializer.bind(instance).call(interpreter, arguments);
-        return instance;
-    }
-
-    @Override
-    public int arity() {
-        LoxFunction initializer = getMethod("init");
-        if (initializer != null) return initializer.arity();
-        return 0;
-    }
-}
+package icu.buzz.lox.oop;
+
+import icu.buzz.lox.Interpreter;
+import icu.buzz.lox.callable.LoxCallable;
+import icu.buzz.lox.callable.LoxMethod;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class LoxClass implements LoxCallable {
+    private final String name;
+    private final LoxClass sup;
+    private final Map<String, LoxMethod> methods;
+
+    public LoxClass(String name, LoxClass sup, Map<String, LoxMethod> methods) {
+        this.name = name;
+        this.sup = sup;
+        this.methods = methods;
+    }
+
+    public LoxMethod getMethod(String name) {
+        LoxMethod function = methods.getOrDefault(name, null);
+        if (function == null && sup != null) function = sup.getMethod(name);
+        return function;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LoxClass getSup() {
+        return sup;
+    }
+
+    /**
+     * @return read-only view of methods declared by this class (not inherited ones)
+     */
+    public Map<String, LoxMethod> getMethods() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    @Override
+    public String toString() {
+        return "<lox class> " + this.name;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        LoxInstance instance = new LoxInstance(this);
+        LoxMethod initializer = getMethod("init");
+        if (initializer != null) initializer.bind(instance).call(interpreter, arguments);
+        return instance;
+    }
+
+    @Override
+    public int arity() {
+        LoxMethod initializer = getMethod("init");
+        if (initializer != null) return initializer.arity();
+        return 0;
+    }
+}
@@ -1,36 +1,106 @@
-package icu.buzz.lox.oop;
-
-import java.util.HashMap;
-import java.util.Map;
-
-import icu.buzz.lox.callable.LoxFunction;
-import icu.buzz.lox.exceptions.ExecuteError;
-import icu.buzz.lox.token.Token;
-
-public class LoxInstance {
-    private final LoxClass klass;
-    private final Map<String, Object> field;
-
-    public LoxInstance(LoxClass klass) {
-        this.klass = klass;
-        this.field = new HashMap<>();
-    }
-
-    public Object get(Token name) {
-        if (field.containsKey(name.getLexeme())) return field.get(name.getLexeme());
-
-        LoxFunction method = klass.getMethod(name.getLexeme());
-        if (method != null) return method.bind(this);
-
-        throw new ExecuteError(name, "Undefined property " + name.getLexeme());
-    }
-
-    public void set(Token name, Object value) {
-        field.put(name.getLexeme(), value);
-    }
-
-    @Override
-    public String toString() {
-        return "<lox " + klass.getName() +  " instance> " + field;
-    }
-}
+package icu.buzz.lox.oop;
+
+import java.util.Map;
+
+import icu.buzz.lox.callable.LoxMethod;
+import icu.buzz.lox.concurrent.Slots;
+import icu.buzz.lox.exceptions.ExecuteError;
+import icu.buzz.lox.token.Token;
+
+/**
+ * fields follow the memory model of Slots: a single get or set is atomic, compound updates are not, compareAndSet is
+ * any task holding an instance may add a field, so adding one takes a striped lock once its run is concurrent
+ */
+public class LoxInstance extends Slots {
+    private final LoxClass klass;
+
+    public LoxInstance(LoxClass klass) {
+        super(true);
+        this.klass = klass;
+    }
+
+    public LoxClass getKlass() {
+        return klass;
+    }
+
+    /**
+     * @return read-only copy of fields set on this instance
+     */
+    public Map<String, Object> getFields() {
+        return copy();
+    }
+
+    public Object get(Token name) {
+        int slot = slot(name.getLexeme());
+        if (slot >= 0) return read(slot);
+        LoxMethod method = klass.getMethod(name.getLexeme());
+        if (method != null) return method.bind(this);
+        throw new ExecuteError(name, "Undefined property " + name.getLexeme());
+    }
+
+    /**
+     * @param name property name
+     * @return true if instance has a field or class has a method named @param: name
+     */
+    public boolean has(String name) {
+        return hasField(name) || klass.getMethod(name) != null;
+    }
+
+    /**
+     * @return true if a field named @param: name has been set on this instance
+     */
+    public boolean hasField(String name) {
+        return slot(name) >= 0;
+    }
+
+    /**
+     * get a field or a bound method
+     * @param name property name
+     * @return property value, null if property is undefined
+     */
+    public Object get(String name) {
+        int slot = slot(name);
+        if (slot >= 0) return read(slot);
+
+        LoxMethod method = klass.getMethod(name);
+        if (method != null) return method.bind(this);
+
+        return null;
+    }
+
+    /**
+     * set field by code of a run
+     * @param concurrent true if the run may have other threads (TaskGroup.isConcurrent)
+     */
+    public void set(Token name, Object value, boolean concurrent) {
+        put(name.getLexeme(), value, concurrent);
+    }
+
+    /**
+     * set field from a thread that may not be the only writer, adding a field always takes a lock
+     */
+    public void set(String name, Object value) {
+        put(name, value, true);
+    }
+
+    /**
+     * @param concurrent false if only the calling thread can reach this instance
+     */
+    public void set(String name, Object value, boolean concurrent) {
+        put(name, value, concurrent);
+    }
+
+    /**
+     * atomically set field @param: name to @param: value if it holds a value equal to @param: expected
+     * @return true if field is set, false if it holds another value or it has not been set
+     */
+    public boolean compareAndSet(String name, Object expected, Object value) {
+        int slot = slot(name);
+        return slot >= 0 && compareAndSet(slot, expected, value);
+    }
+
+    @Override
+    public String toString() {
+        return "<lox " + klass.getName() +  " instance> " + getFields();
+    }
+}
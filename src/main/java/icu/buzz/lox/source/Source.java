@@ -0,0 +1,146 @@
+package icu.buzz.lox.source;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * lox source text read by Scanner, indexed by code unit
+ * a code unit is a char for text source and a byte for UTF-8 encoded source,
+ * all lox syntax (except the content of strings and comments) is ASCII, so scanner never decodes a code unit
+ */
+public interface Source {
+    /**
+     * @return number of code units, a stream source only knows the code units read so far
+     */
+    int length();
+
+    /**
+     * find if there is a code unit at @param: index, a stream source reads more input to answer it
+     * @param index position of code unit
+     * @return true if @param: index is before the end of source
+     */
+    default boolean has(int index) {
+        return index < length();
+    }
+
+    /**
+     * code units before @param: position will never be read again, a stream source may drop them
+     * @param position first position still in use
+     */
+    default void release(int position) {}
+
+    /**
+     * @param index position of code unit
+     * @return code unit at @param: index
+     */
+    char charAt(int index);
+
+    /**
+     * decode source in [start, end)
+     * @param start start position (inclusive)
+     * @param end end position (exclusive)
+     * @return decoded text
+     */
+    String text(int start, int end);
+
+    /**
+     * columns taken by the code unit at @param: index, measured in UTF-16 chars
+     * @param index position of code unit
+     * @return 1 for a char, 0 for a UTF-8 continuation byte
+     */
+    int width(int index);
+
+    /**
+     * find the first @param: target at or after @param: from, used to skip the content of strings and comments in bulk
+     * @param target code unit to find (ASCII)
+     * @param from start position
+     * @return position of @param: target, or the end of source if there is none
+     */
+    default int indexOf(char target, int from) {
+        int index = from;
+        while (has(index) && charAt(index) != target) index++;
+        return index;
+    }
+
+    /**
+     * find the first @param: target in [@param: from, @param: to), nothing at or after to is read
+     * @param target code unit to find (ASCII)
+     * @param to end position (exclusive), not after the end of source
+     * @return position of @param: target, or @param: to if there is none
+     */
+    default int indexOf(char target, int from, int to) {
+        for (int index = from; index < to; index++) if (charAt(index) == target) return index;
+        return to;
+    }
+
+    /**
+     * skip blank characters (space, tab and carriage return)
+     * @param from start position
+     * @return position of the first code unit that is not blank
+     */
+    default int skipBlank(int from) {
+        int index = from;
+        while (has(index) && isBlank(charAt(index))) index++;
+        return index;
+    }
+
+    /**
+     * columns taken by code units in [from, to), sum of width
+     * @param from start position (inclusive)
+     * @param to end position (exclusive)
+     * @return columns measured in UTF-16 chars
+     */
+    default int columns(int from, int to) {
+        int columns = 0;
+        for (int i = from; i < to; i++) columns += width(i);
+        return columns;
+    }
+
+    static boolean isBlank(char c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    static Source of(String text) {
+        return new StringSource(text);
+    }
+
+    /**
+     * read source from @param: reader through a fixed-size window, input is never held as a whole
+     * @param reader character input, e.g. a pipe or a socket
+     * @return source backed by @param: reader
+     */
+    static Source stream(Reader reader) {
+        return new StreamSource(reader);
+    }
+
+    /**
+     * read UTF-8 encoded source from @param: channel through a fixed-size window
+     * @param channel byte input, e.g. a pipe or a socket
+     * @return source backed by @param: channel
+     */
+    static Source stream(ReadableByteChannel channel) {
+        return new StreamSource(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), StreamSource.WINDOW));
+    }
+
+    /**
+     * map a UTF-8 encoded file into memory, file content is never copied into heap as a whole
+     * @param path file path
+     * @return source backed by mapped file
+     * @throws IOException if file can not be mapped
+     */
+    static Utf8Source map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("source file " + path + " is larger than 2GB");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new Utf8Source(buffer);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package icu.buzz.lox.source;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * source read from a Reader through a refillable window, code unit is a UTF-16 char
+ * positions are absolute (counted from the start of input), the window keeps [base, base + count)
+ * code units released by scanner are dropped when the window is refilled,
+ * so memory is bounded by the window size, the window only grows for a single token longer than it (e.g. a huge string)
+ */
+public class StreamSource implements Source {
+    static final int WINDOW = 8192;
+
+    private final Reader reader;
+    private char[] window;
+    // absolute position of window[0]
+    private int base;
+    // code units in window
+    private int count;
+    // first position still in use, everything before it can be dropped
+    private int mark;
+    private boolean end;
+
+    public StreamSource(Reader reader) {
+        this.reader = reader;
+        this.window = new char[WINDOW];
+    }
+
+    @Override
+    public int length() {
+        return base + count;
+    }
+
+    @Override
+    public boolean has(int index) {
+        while (index >= base + count && !end) fill();
+        return index < base + count;
+    }
+
+    @Override
+    public void release(int position) {
+        if (position > mark) mark = position;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (!has(index)) throw new IndexOutOfBoundsException("position " + index + " is after the end of source");
+        return window[check(index)];
+    }
+
+    @Override
+    public String text(int start, int end) {
+        return new String(window, check(start), end - start);
+    }
+
+    @Override
+    public int width(int index) {
+        return 1;
+    }
+
+    /**
+     * @param index absolute position
+     * @return position of @param: index in window
+     */
+    private int check(int index) {
+        if (index < base) throw new IllegalStateException("position " + index + " has been released");
+        return index - base;
+    }
+
+    /**
+     * read more input, released code units are dropped first to make room
+     */
+    private void fill() {
+        if (count == window.length) {
+            int drop = mark - base;
+            if (drop > 0) {
+                System.arraycopy(window, drop, window, 0, count - drop);
+                base = mark;
+                count -= drop;
+            } else {
+                // a single token fills the whole window
+                char[] grown = new char[window.length * 2];
+                System.arraycopy(window, 0, grown, 0, count);
+                window = grown;
+            }
+        }
+        try {
+            int read = reader.read(window, count, window.length - count);
+            if (read < 0) end = true;
+            else count += read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
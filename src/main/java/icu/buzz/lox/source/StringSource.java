@@ -0,0 +1,51 @@
+package icu.buzz.lox.source;
+
+/**
+ * source backed by a string, code unit is a UTF-16 char
+ */
+public class StringSource implements Source {
+    private final String text;
+
+    public StringSource(String text) {
+        this.text = text;
+    }
+
+    @Override
+    public int length() {
+        return text.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return text.charAt(index);
+    }
+
+    @Override
+    public String text(int start, int end) {
+        return text.substring(start, end);
+    }
+
+    @Override
+    public int width(int index) {
+        return 1;
+    }
+
+    @Override
+    public int indexOf(char target, int from) {
+        // String.indexOf is an intrinsic, compiled to vector instructions by JIT
+        int index = text.indexOf(target, from);
+        return index < 0 ? text.length() : index;
+    }
+
+    @Override
+    public int indexOf(char target, int from, int to) {
+        // String.indexOf has no end, it would search past to
+        for (int index = from; index < to; index++) if (text.charAt(index) == target) return index;
+        return to;
+    }
+
+    @Override
+    public int columns(int from, int to) {
+        return to - from;
+    }
+}
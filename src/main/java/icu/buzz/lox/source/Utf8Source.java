@@ -0,0 +1,112 @@
+package icu.buzz.lox.source;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * source backed by UTF-8 bytes (usually a mapped file), code unit is a byte
+ * only identifiers, numbers and strings are decoded, when their lexeme or value is asked for
+ * strings, comments and blanks are skipped 8 bytes at a time (SWAR: SIMD within a register) on little-endian long words
+ */
+public class Utf8Source implements Source {
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOWS = 0x7f7f7f7f7f7f7f7fL;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private final ByteBuffer bytes;
+
+    public Utf8Source(ByteBuffer bytes) {
+        this.bytes = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * @return source bytes, read-only, e.g. to compute a cache key without mapping the file again
+     */
+    public ByteBuffer bytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(index) & 0xff);
+    }
+
+    @Override
+    public String text(int start, int end) {
+        byte[] slice = new byte[end - start];
+        bytes.get(start, slice);
+        return new String(slice, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int width(int index) {
+        int b = bytes.get(index) & 0xff;
+        // continuation byte 10xxxxxx belongs to the previous character
+        if ((b & 0xc0) == 0x80) return 0;
+        // 4-byte sequence 11110xxx is a surrogate pair in UTF-16
+        if (b >= 0xf0) return 2;
+        return 1;
+    }
+
+    @Override
+    public int indexOf(char target, int from) {
+        return indexOf(target, from, bytes.limit());
+    }
+
+    @Override
+    public int indexOf(char target, int from, int to) {
+        int index = from;
+        long pattern = ONES * target;
+        for (; index + Long.BYTES <= to; index += Long.BYTES) {
+            long found = equal(bytes.getLong(index), pattern);
+            // first byte in memory order is the lowest byte of a little-endian word
+            if (found != 0) return index + (Long.numberOfTrailingZeros(found) >>> 3);
+        }
+        while (index < to && bytes.get(index) != target) index++;
+        return index;
+    }
+
+    @Override
+    public int skipBlank(int from) {
+        int limit = bytes.limit();
+        int index = from;
+        for (; index + Long.BYTES <= limit; index += Long.BYTES) {
+            long word = bytes.getLong(index);
+            long blank = equal(word, ONES * ' ') | equal(word, ONES * '\t') | equal(word, ONES * '\r');
+            if (blank != HIGHS) return index + (Long.numberOfTrailingZeros(~blank & HIGHS) >>> 3);
+        }
+        while (index < limit && Source.isBlank((char) bytes.get(index))) index++;
+        return index;
+    }
+
+    @Override
+    public int columns(int from, int to) {
+        int columns = to - from;
+        int index = from;
+        for (; index + Long.BYTES <= to; index += Long.BYTES) {
+            long word = bytes.getLong(index);
+            // continuation byte 10xxxxxx takes no column, leading byte 11110xxx takes an extra one
+            long continuation = word & ~(word << 1) & HIGHS;
+            long supplementary = word & (word << 1) & (word << 2) & (word << 3) & HIGHS;
+            columns += Long.bitCount(supplementary) - Long.bitCount(continuation);
+        }
+        for (; index < to; index++) columns += width(index) - 1;
+        return columns;
+    }
+
+    /**
+     * compare every byte of @param: word with @param: pattern
+     * @return high bit of a byte is set exactly when the byte equals to the same byte of @param: pattern
+     */
+    private static long equal(long word, long pattern) {
+        long diff = word ^ pattern;
+        // the high bit of (low 7 bits + 0x7f) is set when any low bit is set, it never carries into the next byte
+        return ~(((diff & LOWS) + LOWS) | diff | LOWS);
+    }
+}
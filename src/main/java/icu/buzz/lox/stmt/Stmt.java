@@ -1,244 +1,275 @@
-package icu.buzz.lox.stmt;
-
-import icu.buzz.lox.expr.Expr;
-import icu.buzz.lox.token.Token;
-import java.util.List;
-
-public abstract class Stmt {
-    public abstract <R> R accept(StmtVisitor<R> visitor);
-
-    public static class Expression extends Stmt {
-        private final Expr expr;
-
-        public Expression(Expr expr) {
-            this.expr = expr;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Expr getExpr() {
-            return this.expr;
-        }
-
-    }
-
-    public static class Print extends Stmt {
-        private final Expr expr;
-
-        public Print(Expr expr) {
-            this.expr = expr;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Expr getExpr() {
-            return this.expr;
-        }
-
-    }
-
-    public static class Block extends Stmt {
-        private final List<Stmt> statements;
-
-        public Block(List<Stmt> statements) {
-            this.statements = statements;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public List<Stmt> getStatements() {
-            return this.statements;
-        }
-
-    }
-
-    public static class If extends Stmt {
-        private final Expr condition;
-
-        private final Stmt thenBranch;
-
-        private final Stmt elseBranch;
-
-        public If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
-            this.condition = condition;
-            this.thenBranch = thenBranch;
-            this.elseBranch = elseBranch;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Expr getCondition() {
-            return this.condition;
-        }
-
-        public Stmt getThenBranch() {
-            return this.thenBranch;
-        }
-
-        public Stmt getElseBranch() {
-            return this.elseBranch;
-        }
-
-    }
-
-    public static class Var extends Stmt {
-        private final Token name;
-
-        private final Expr initializer;
-
-        public Var(Token name, Expr initializer) {
-            this.name = name;
-            this.initializer = initializer;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Token getName() {
-            return this.name;
-        }
-
-        public Expr getInitializer() {
-            return this.initializer;
-        }
-
-    }
-
-    public static class Class extends Stmt {
-        private final Token name;
-
-        private final Expr.Variable sup;
-
-        private final List<Stmt.Fun> methods;
-
-        public Class(Token name, Expr.Variable sup, List<Stmt.Fun> methods) {
-            this.name = name;
-            this.sup = sup;
-            this.methods = methods;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Token getName() {
-            return this.name;
-        }
-
-        public Expr.Variable getSup() {
-            return this.sup;
-        }
-
-        public List<Stmt.Fun> getMethods() {
-            return this.methods;
-        }
-
-    }
-
-    public static class Fun extends Stmt {
-        private final Token name;
-
-        private final List<Token> parameters;
-
-        private final List<Stmt> body;
-
-        public Fun(Token name, List<Token> parameters, List<Stmt> body) {
-            this.name = name;
-            this.parameters = parameters;
-            this.body = body;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Token getName() {
-            return this.name;
-        }
-
-        public List<Token> getParameters() {
-            return this.parameters;
-        }
-
-        public List<Stmt> getBody() {
-            return this.body;
-        }
-
-    }
-
-    public static class While extends Stmt {
-        private final Expr condition;
-
-        private final Stmt body;
-
-        public While(Expr condition, Stmt body) {
-            this.condition = condition;
-            this.body = body;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Expr getCondition() {
-            return this.condition;
-        }
-
-        public Stmt getBody() {
-            return this.body;
-        }
-
-    }
-
-    public static class Return extends Stmt {
-        private final Token keyword;
-
-        private final Expr value;
-
-        public Return(Token keyword, Expr value) {
-            this.keyword = keyword;
-            this.value = value;
-        }
-
-        @Override
-        public <R> R accept(StmtVisitor<R> visitor) {
-            return visitor.visitStmt(this);
-        }
-
-        // getters
-        public Token getKeyword() {
-            return this.keyword;
-        }
-
-        public Expr getValue() {
-            return this.value;
-        }
-
-    }
-
-}
+package icu.buzz.lox.stmt;
+
+import icu.buzz.lox.expr.Expr;
+import icu.buzz.lox.token.Token;
+import java.util.List;
+
+public abstract sealed class Stmt permits Stmt.Expression, Stmt.Print, Stmt.Block, Stmt.If, Stmt.Var, Stmt.Class, Stmt.Fun, Stmt.While, Stmt.Return {
+    public enum Kind {
+        EXPRESSION,
+        PRINT,
+        BLOCK,
+        IF,
+        VAR,
+        CLASS,
+        FUN,
+        WHILE,
+        RETURN
+    }
+
+    private final Kind kind;
+
+    protected Stmt(Kind kind) {
+        this.kind = kind;
+    }
+
+    public final Kind getKind() {
+        return this.kind;
+    }
+
+    public abstract <R> R accept(StmtVisitor<R> visitor);
+
+    public static final class Expression extends Stmt {
+        private final Expr expr;
+
+        public Expression(Expr expr) {
+            super(Kind.EXPRESSION);
+            this.expr = expr;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Expr getExpr() {
+            return this.expr;
+        }
+
+    }
+
+    public static final class Print extends Stmt {
+        private final Expr expr;
+
+        public Print(Expr expr) {
+            super(Kind.PRINT);
+            this.expr = expr;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Expr getExpr() {
+            return this.expr;
+        }
+
+    }
+
+    public static final class Block extends Stmt {
+        private final List<Stmt> statements;
+
+        public Block(List<Stmt> statements) {
+            super(Kind.BLOCK);
+            this.statements = statements;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public List<Stmt> getStatements() {
+            return this.statements;
+        }
+
+    }
+
+    public static final class If extends Stmt {
+        private final Expr condition;
+
+        private final Stmt thenBranch;
+
+        private final Stmt elseBranch;
+
+        public If(Expr condition, Stmt thenBranch, Stmt elseBranch) {
+            super(Kind.IF);
+            this.condition = condition;
+            this.thenBranch = thenBranch;
+            this.elseBranch = elseBranch;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Expr getCondition() {
+            return this.condition;
+        }
+
+        public Stmt getThenBranch() {
+            return this.thenBranch;
+        }
+
+        public Stmt getElseBranch() {
+            return this.elseBranch;
+        }
+
+    }
+
+    public static final class Var extends Stmt {
+        private final Token name;
+
+        private final Expr initializer;
+
+        public Var(Token name, Expr initializer) {
+            super(Kind.VAR);
+            this.name = name;
+            this.initializer = initializer;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Token getName() {
+            return this.name;
+        }
+
+        public Expr getInitializer() {
+            return this.initializer;
+        }
+
+    }
+
+    public static final class Class extends Stmt {
+        private final Token name;
+
+        private final Expr.Variable sup;
+
+        private final List<Stmt.Fun> methods;
+
+        public Class(Token name, Expr.Variable sup, List<Stmt.Fun> methods) {
+            super(Kind.CLASS);
+            this.name = name;
+            this.sup = sup;
+            this.methods = methods;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Token getName() {
+            return this.name;
+        }
+
+        public Expr.Variable getSup() {
+            return this.sup;
+        }
+
+        public List<Stmt.Fun> getMethods() {
+            return this.methods;
+        }
+
+    }
+
+    public static final class Fun extends Stmt {
+        private final Token name;
+
+        private final List<Token> parameters;
+
+        private final List<Stmt> body;
+
+        public Fun(Token name, List<Token> parameters, List<Stmt> body) {
+            super(Kind.FUN);
+            this.name = name;
+            this.parameters = parameters;
+            this.body = body;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Token getName() {
+            return this.name;
+        }
+
+        public List<Token> getParameters() {
+            return this.parameters;
+        }
+
+        public List<Stmt> getBody() {
+            return this.body;
+        }
+
+    }
+
+    public static final class While extends Stmt {
+        private final Expr condition;
+
+        private final Stmt body;
+
+        public While(Expr condition, Stmt body) {
+            super(Kind.WHILE);
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Expr getCondition() {
+            return this.condition;
+        }
+
+        public Stmt getBody() {
+            return this.body;
+        }
+
+    }
+
+    public static final class Return extends Stmt {
+        private final Token keyword;
+
+        private final Expr value;
+
+        public Return(Token keyword, Expr value) {
+            super(Kind.RETURN);
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        @Override
+        public <R> R accept(StmtVisitor<R> visitor) {
+            return visitor.visitStmt(this);
+        }
+
+        // getters
+        public Token getKeyword() {
+            return this.keyword;
+        }
+
+        public Expr getValue() {
+            return this.value;
+        }
+
+    }
+
+}
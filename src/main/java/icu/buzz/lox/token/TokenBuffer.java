@@ -0,0 +1,177 @@
+package icu.buzz.lox.token;
+
+import icu.buzz.lox.source.Source;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * tokens stored as struct of arrays: type, start offset, length, line and column
+ * lexeme and literal value are built from source only when they are asked for,
+ * punctuation and keywords never build a lexeme, their lexeme is a constant
+ */
+public class TokenBuffer implements TokenSource {
+    private static final TokenType[] TYPES = TokenType.values();
+    // lexeme of tokens with fixed spelling, null for IDENTIFIER, STRING and NUMBER
+    private static final String[] FIXED_LEXEMES = new String[TYPES.length];
+
+    private final Source source;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private int size;
+
+    static {
+        for (TokenType type : TYPES) {
+            FIXED_LEXEMES[type.ordinal()] = switch (type) {
+                case LEFT_PAREN -> "(";
+                case RIGHT_PAREN -> ")";
+                case LEFT_BRACE -> "{";
+                case RIGHT_BRACE -> "}";
+                case LEFT_BRACKET -> "[";
+                case RIGHT_BRACKET -> "]";
+                case COMMA -> ",";
+                case DOT -> ".";
+                case MINUS -> "-";
+                case PLUS -> "+";
+                case SEMICOLON -> ";";
+                case SLASH -> "/";
+                case STAR -> "*";
+                case BANG -> "!";
+                case BANG_EQUAL -> "!=";
+                case EQUAL -> "=";
+                case EQUAL_EQUAL -> "==";
+                case GREATER -> ">";
+                case GREATER_EQUAL -> ">=";
+                case LESS -> "<";
+                case LESS_EQUAL -> "<=";
+                case IDENTIFIER, STRING, NUMBER -> null;
+                case EOF -> "";
+                // keywords are spelled as their names
+                default -> type.name().toLowerCase();
+            };
+        }
+    }
+
+    public TokenBuffer(Source source) {
+        // start small, zeroing a quarter of source length up front costs more than growing for comment or literal heavy input
+        this(source, source.length() / 16 + 16);
+    }
+
+    public TokenBuffer(Source source, int capacity) {
+        this.source = source;
+        this.types = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+    }
+
+    public void add(TokenType type, int start, int length, int line, int column) {
+        if (size == types.length) grow(size + 1);
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+    }
+
+    /**
+     * append tokens of @param: other from @param: from, both buffers must scan the same source
+     * @param other tokens to append
+     * @param from index of the first token to append
+     * @param lineShift added to line of every appended token
+     */
+    public void append(TokenBuffer other, int from, int lineShift) {
+        int count = other.size - from;
+        if (size + count > types.length) grow(size + count);
+        System.arraycopy(other.types, from, types, size, count);
+        System.arraycopy(other.starts, from, starts, size, count);
+        System.arraycopy(other.lengths, from, lengths, size, count);
+        for (int i = 0; i < count; i++) lines[size + i] = other.lines[from + i] + lineShift;
+        System.arraycopy(other.columns, from, columns, size, count);
+        size += count;
+    }
+
+    private void grow(int minimum) {
+        int capacity = Math.max(types.length * 2, minimum);
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int line(int index) {
+        return lines[index];
+    }
+
+    public int column(int index) {
+        return columns[index];
+    }
+
+    @Override
+    public String lexeme(int index) {
+        return lexeme(source, type(index), starts[index], lengths[index]);
+    }
+
+    @Override
+    public Object value(int index) {
+        return value(source, type(index), starts[index], lengths[index]);
+    }
+
+    @Override
+    public Token token(int index) {
+        return token(source, type(index), starts[index], lengths[index], lines[index], columns[index]);
+    }
+
+    /**
+     * build a token in [start, start + length) of @param: source, used by scanner to hand out a token without buffering it
+     * @return token with its lexeme and literal value
+     */
+    public static Token token(Source source, TokenType type, int start, int length, int line, int column) {
+        return new Token(lexeme(source, type, start, length), type, value(source, type, start, length), line, column);
+    }
+
+    private static String lexeme(Source source, TokenType type, int start, int length) {
+        String lexeme = FIXED_LEXEMES[type.ordinal()];
+        if (lexeme != null) return lexeme;
+        return source.text(start, start + length);
+    }
+
+    private static Object value(Source source, TokenType type, int start, int length) {
+        return switch (type) {
+            // trim the source without ""
+            case STRING -> source.text(start + 1, start + length - 1);
+            case NUMBER -> Double.parseDouble(source.text(start, start + length));
+            default -> null;
+        };
+    }
+
+    /**
+     * build every token, for callers still expect a token list
+     * @return token list
+     */
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) tokens.add(token(i));
+        return tokens;
+    }
+}
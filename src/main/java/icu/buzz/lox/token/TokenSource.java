@@ -0,0 +1,55 @@
+package icu.buzz.lox.token;
+
+import java.util.List;
+
+/**
+ * tokens consumed by Parser, a token is addressed by its position in the token stream
+ * type and literal value can be read without building a Token object
+ */
+public interface TokenSource {
+    TokenType type(int index);
+
+    /**
+     * @param index token position
+     * @return literal value of a NUMBER or STRING token, null for other tokens
+     */
+    Object value(int index);
+
+    /**
+     * @param index token position
+     * @return token object at @param: index
+     */
+    Token token(int index);
+
+    /**
+     * @param index token position
+     * @return lexeme of token at @param: index, a source may build it without a Token object
+     */
+    default String lexeme(int index) {
+        return token(index).getLexeme();
+    }
+
+    /**
+     * adapt a token list to TokenSource
+     * @param tokens tokens ends with EOF
+     * @return token source backed by @param: tokens
+     */
+    static TokenSource of(List<Token> tokens) {
+        return new TokenSource() {
+            @Override
+            public TokenType type(int index) {
+                return tokens.get(index).getType();
+            }
+
+            @Override
+            public Object value(int index) {
+                return tokens.get(index).getValue();
+            }
+
+            @Override
+            public Token token(int index) {
+                return tokens.get(index);
+            }
+        };
+    }
+}
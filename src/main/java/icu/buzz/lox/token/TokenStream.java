@@ -0,0 +1,56 @@
+package icu.buzz.lox.token;
+
+import icu.buzz.lox.Scanner;
+import icu.buzz.lox.exceptions.ScannerError;
+
+/**
+ * tokens pulled from scanner while Parser asks for them, nothing is scanned ahead of the parser
+ * parser only looks at the current token and the one before it, so a small ring of recent tokens is enough,
+ * together with a stream source, memory is bounded by the lookahead window instead of input size
+ * after a scan error no token is handed out, token() throws ScannerError
+ */
+public class TokenStream implements TokenSource {
+    private static final int WINDOW = 8;
+
+    private final Scanner scanner;
+    private final Token[] recent;
+    // number of tokens pulled from scanner
+    private int pulled;
+
+    public TokenStream(Scanner scanner) {
+        this.scanner = scanner;
+        this.recent = new Token[WINDOW];
+    }
+
+    @Override
+    public TokenType type(int index) {
+        return token(index).getType();
+    }
+
+    @Override
+    public Object value(int index) {
+        return token(index).getValue();
+    }
+
+    @Override
+    public Token token(int index) {
+        while (index >= pulled) {
+            recent[pulled++ % WINDOW] = scanner.nextToken();
+            if (scanner.hasError()) stop();
+        }
+        if (index < pulled - WINDOW) throw new IllegalStateException("token " + index + " has left the lookahead window");
+        return recent[index % WINDOW];
+    }
+
+    /**
+     * parser gets no token after a scan error, it would report errors of a broken token stream,
+     * the rest of the source is still scanned so every scan error is reported, as a whole source is
+     * @throws ScannerError always
+     */
+    private void stop() {
+        while (scanner.nextToken().getType() != TokenType.EOF) {
+            // tokens are dropped, only errors are reported
+        }
+        throw new ScannerError();
+    }
+}